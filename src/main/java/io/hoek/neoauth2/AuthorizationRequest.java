@@ -10,9 +10,9 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 import java.net.URI;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @ToString
 @EqualsAndHashCode
@@ -34,8 +34,9 @@ public abstract class AuthorizationRequest {
         this.nonce = nonce;
     }
 
+    // Returns the shared parser without any extensions, see `AuthorizationRequestParser.builder()` to add some.
     public static AuthorizationRequestParser parser() {
-        return new AuthorizationRequestParser();
+        return AuthorizationRequestParser.DEFAULT;
     }
 
     public String getClientId() {
@@ -106,7 +107,7 @@ public abstract class AuthorizationRequest {
         protected ParamWriter.Writable generateAccessGrantedWritable(IssuerBundle bundle, ClientRegistration client, UserRegistration user)  throws InvalidRequestException {
             return bundle.issueAuthorizationCode(
                     new UserAuthorization(TokenSpec.from(client, user, getClientId(), getScopes(), nonce), wasRedirectUriProvided(), getRedirectUri(), pkceInfo),
-                    Instant.now().plus(Duration.ofSeconds(client.getAuthorizationCodeLifetimeSeconds())));
+                    Instant.ofEpochMilli(bundle.getClock().millis() + TimeUnit.SECONDS.toMillis(client.getAuthorizationCodeLifetimeSeconds())));
         }
     }
 }
@@ -2,14 +2,15 @@ package io.hoek.neoauth2;
 
 import io.hoek.neoauth2.backend.ClientRegistration;
 import io.hoek.neoauth2.backend.UserRegistration;
-import io.hoek.util.function.Catch;
 import io.hoek.neoauth2.backend.IssuerBundle;
 import io.hoek.neoauth2.internal.InvalidRequestException;
+import io.hoek.neoauth2.internal.ParamWriter;
 import io.hoek.neoauth2.internal.WithStateWriter;
 import io.hoek.neoauth2.model.ErrorResponse;
 import lombok.Data;
 import lombok.NonNull;
 
+import java.net.URI;
 import java.util.Objects;
 
 @Data
@@ -29,14 +30,27 @@ public class AuthorizationRequestGranter {
     }
 
     public final OAuthReponse.Redirect grant(IssuerBundle bundle, UserRegistration user) {
+        Outcome<OAuthReponse.Redirect> outcome = tryGrant(bundle, user);
+        if (outcome.isSuccess()) {
+            return outcome.getOrThrow();
+        }
+
+        // By now the redirect URI has been validated, so errors are always returned by redirecting.
+        return (OAuthReponse.Redirect) ((Outcome.Failure<?>) outcome).toResponse();
+    }
+
+    // Like `grant()`, but reports a request which cannot be granted after all (e.g. scopes which the user may not
+    // grant) by returning an `Outcome.Failure` instead of an error redirect.
+    public final Outcome<OAuthReponse.Redirect> tryGrant(IssuerBundle bundle, UserRegistration user) {
         Objects.requireNonNull(bundle);
         Objects.requireNonNull(user);
 
-        return new OAuthReponse.Redirect(
-                request.getResponseType().getWriter(request.getRedirectUri()),
-                new WithStateWriter(request.state, Catch.insteadOf(InvalidRequestException.class,
-                        () -> request.generateAccessGrantedWritable(bundle, client, user),
-                        InvalidRequestException::getErrorResponse
-                )));
+        ParamWriter<URI> writer = request.getResponseType().getWriter(request.getRedirectUri());
+        try {
+            return Outcome.success(new OAuthReponse.Redirect(writer,
+                    new WithStateWriter(request.state, request.generateAccessGrantedWritable(bundle, client, user))));
+        } catch (InvalidRequestException e) {
+            return Outcome.redirectFailure(writer, e.getErrorResponseWithState(request.state));
+        }
     }
 }
@@ -1,30 +1,38 @@
 package io.hoek.neoauth2;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.ClientRegistry;
+import io.hoek.neoauth2.backend.builtin.DataStore;
 import io.hoek.neoauth2.extension.OAuth21SpecOption;
 import io.hoek.neoauth2.extension.OAuth21SpecViolation;
 import io.hoek.neoauth2.internal.InvalidRequestException;
+import io.hoek.neoauth2.internal.RedirectUriMatcher;
 import io.hoek.neoauth2.internal.UriQueryParamWriter;
 import io.hoek.neoauth2.internal.Util;
 import io.hoek.neoauth2.model.CodeChallengeMethod;
 import io.hoek.neoauth2.model.ErrorResponse;
 import io.hoek.neoauth2.model.PkceInfo;
+import io.hoek.neoauth2.model.PushedAuthorizationPayload;
 import io.hoek.neoauth2.model.ResponseType;
+import io.hoek.neoauth2.model.ScopeSet;
 import io.hoek.util.function.Throw;
 
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.core.MultivaluedMap;
-import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.SecureRandom;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 // Nonstandard features we support: * `authorization.nonce` (by default)
 //                                  * `authorization.response_type=token` (Implicit flow) (by opt-in)
 
-public class AuthorizationRequestParser {
+// Parsers are immutable: the extensions they are configured with are compiled into flags once, in
+// `AuthorizationRequestParser.Builder.build()`, so a single parser can be shared by all threads.
+public final class AuthorizationRequestParser {
 
     public static final int PKCE_CODE_CHALLENGE_MIN_LENGTH = 43;
     public static final int PKCE_CODE_CHALLENGE_MAX_LENGTH = 128;
@@ -37,34 +45,96 @@ public class AuthorizationRequestParser {
     public static final String PARAM_SCOPE = "scope";
     public static final String PARAM_STATE = "state";
     public static final String PARAM_NONCE = "nonce";
+    public static final String PARAM_REQUEST_URI = "request_uri";
+
+    // SPEC NOTE: RFC 9126 section 2.2 fixes the form of `request_uri`s we hand out, and suggests a lifetime of between
+    //            5 and 600 seconds. The front channel only has to follow a redirect, so we keep it short.
+    public static final String REQUEST_URI_PREFIX = "urn:ietf:params:oauth:request_uri:";
+    public static final long PUSHED_REQUEST_LIFETIME_SECONDS = 60;
+    public static final int PUSHED_REQUEST_NUM_BYTES = 32;
+
+    static final AuthorizationRequestParser DEFAULT = builder().build();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final List<Extension> extensions;
+    // Optional, pushed authorization requests are unsupported if this is `null`.
+    private final DataStore<AuthorizationRequest> pushedRequests;
+
+    // Compiled from `extensions`:
+    private final boolean requirePkce;
+    private final boolean allowPlainCodeChallengeMethod;
+    private final boolean allowImplicit;
+    private final boolean requireNonceForImplicit;
+
+    private AuthorizationRequestParser(List<Extension> extensions, DataStore<AuthorizationRequest> pushedRequests) {
+        this.extensions = List.copyOf(extensions);
+        this.pushedRequests = pushedRequests;
+
+        boolean requirePkce = true;
+        boolean allowPlainCodeChallengeMethod = false;
+        boolean allowImplicit = false;
+        boolean requireNonceForImplicit = false;
+        for (Extension ext : this.extensions) {
+            if (ext instanceof OAuth21SpecViolation.DontRequirePkce) {
+                requirePkce = false;
+            } else if (ext instanceof OAuth21SpecOption.AllowPlainCodeChallengeMethod) {
+                allowPlainCodeChallengeMethod = true;
+            } else if (ext instanceof OAuth21SpecViolation.AllowImplicit) {
+                allowImplicit = true;
+                requireNonceForImplicit = ((OAuth21SpecViolation.AllowImplicit) ext).shouldRequireNonce();
+            }
+        }
 
-    private final ObjectMapper mapper = new ObjectMapper();
-    private final List<Extension> extensions = new ArrayList<>();
+        this.requirePkce = requirePkce;
+        this.allowPlainCodeChallengeMethod = allowPlainCodeChallengeMethod;
+        this.allowImplicit = allowImplicit;
+        this.requireNonceForImplicit = requireNonceForImplicit;
+    }
 
-    AuthorizationRequestParser() {
+    public static Builder builder() {
+        return new Builder();
     }
 
-    private URI selectCandidateRedirectUri(Collection<URI> allowedUris, String strRedirectUri) throws InvalidRequestException {
-        URI redirectUri = Throw.insteadOf(URISyntaxException.class,
-                () -> strRedirectUri == null ? null : new URI(strRedirectUri),
-                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "malformed redirect URI"));
+    public Builder toBuilder() {
+        return new Builder().addExtensions(extensions).pushedAuthorizationRequests(pushedRequests);
+    }
 
-        if (redirectUri == null) {
+    private URI selectCandidateRedirectUri(ClientRegistration client, String strRedirectUri) throws InvalidRequestException {
+        Collection<URI> allowedUris = client.getAllowedRedirectUris();
+        if (strRedirectUri == null) {
             Throw.whenNot(allowedUris.size() == 1,
                     () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "missing redirect URI and no default registered"));
 
             return allowedUris.iterator().next();
         }
 
-        if (allowedUris.stream().anyMatch(uri -> Util.doUrisMatch(redirectUri, uri))) {
+        // Only a client which versions its redirect URIs has an index; for the others, indexing would cost more than
+        // the scan it saves.
+        RedirectUriMatcher matcher = RedirectUriMatcher.forClient(client);
+        if (matcher != null) {
+            URI exact = matcher.matchExact(strRedirectUri);
+            if (exact != null) {
+                return exact;
+            }
+        }
+
+        URI redirectUri = Throw.insteadOf(URISyntaxException.class,
+                () -> new URI(strRedirectUri),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "malformed redirect URI"));
+
+        boolean registered = matcher != null
+                ? matcher.matches(redirectUri)
+                : allowedUris.stream().anyMatch(uri -> Util.doUrisMatch(redirectUri, uri));
+        if (registered) {
             return redirectUri;
         }
 
         throw new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "redirect URI not registered");
     }
 
-    private URI lookupAndValidateRedirectUri(Collection<URI> allowedUris, String strRedirectUri) throws InvalidRequestException {
-        URI redirectUri = selectCandidateRedirectUri(allowedUris, strRedirectUri);
+    private URI lookupAndValidateRedirectUri(ClientRegistration client, String strRedirectUri) throws InvalidRequestException {
+        URI redirectUri = selectCandidateRedirectUri(client, strRedirectUri);
 
         Throw.whenNot(redirectUri.isAbsolute(),
                 () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "redirect URI is not absolute"));
@@ -90,30 +160,186 @@ public class AuthorizationRequestParser {
     }
 
     public AuthorizationRequestGranter parse(ClientRegistration client, ParamReader params) {
+        return tryParse(client, params).getOrThrow();
+    }
+
+    public Outcome<AuthorizationRequestGranter> tryParse(ClientRegistration client, UriInfo uriInfo) {
+        return tryParse(client, uriInfo.getQueryParameters());
+    }
+
+    public Outcome<AuthorizationRequestGranter> tryParse(ClientRegistration client, MultivaluedMap<String, String> params) {
+        return tryParse(client, ParamReader.from(params::get));
+    }
+
+    public AuthorizationRequestGranter parse(ClientRegistry registry, UriInfo uriInfo) {
+        return parse(registry, uriInfo.getQueryParameters());
+    }
+
+    public AuthorizationRequestGranter parse(ClientRegistry registry, MultivaluedMap<String, String> params) {
+        return parse(registry, ParamReader.from(params::get));
+    }
+
+    // Like `parse(ClientRegistration, ...)`, but first resolves the client named by `client_id` in `registry`.
+    public AuthorizationRequestGranter parse(ClientRegistry registry, ParamReader params) {
+        return tryParse(registry, params).getOrThrow();
+    }
+
+    public Outcome<AuthorizationRequestGranter> tryParse(ClientRegistry registry, UriInfo uriInfo) {
+        return tryParse(registry, uriInfo.getQueryParameters());
+    }
+
+    public Outcome<AuthorizationRequestGranter> tryParse(ClientRegistry registry, MultivaluedMap<String, String> params) {
+        return tryParse(registry, ParamReader.from(params::get));
+    }
+
+    // Like `tryParse(ClientRegistration, ...)`, but first resolves the client named by `client_id` in `registry`. We
+    // can't trust any redirect URI until we know the client, so an unknown client always gets an error page.
+    public Outcome<AuthorizationRequestGranter> tryParse(ClientRegistry registry, ParamReader params) {
+        Objects.requireNonNull(registry);
+        Objects.requireNonNull(params);
+
+        ClientRegistration client;
+        try {
+            client = lookupClient(registry, params);
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponse());
+        }
+
+        return tryParse(client, params);
+    }
+
+    static ClientRegistration lookupClient(ClientRegistry registry, ParamReader params) throws InvalidRequestException {
+        String clientId = Throw.whenNull(params.maybeExtractSingletonParam(PARAM_CLIENT_ID),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "missing 'client_id'"));
+
+        return Throw.whenNull(registry.lookup(clientId),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_CLIENT, "unknown client"));
+    }
+
+    // Like `parse()`, but reports a malformed request by returning an `Outcome.Failure` instead of throwing.
+    public Outcome<AuthorizationRequestGranter> tryParse(ClientRegistration client, ParamReader params) {
         Objects.requireNonNull(client);
         Objects.requireNonNull(params);
 
+        // SPEC NOTE: A `request_uri` stands in for all of the other parameters (but `client_id`), which were validated
+        //            when the request was pushed.
+        String requestUri;
+        try {
+            requestUri = params.maybeExtractSingletonParam(PARAM_REQUEST_URI);
+            if (requestUri != null) {
+                return Outcome.success(new AuthorizationRequestGranter(client, redeemPushedRequest(params, requestUri)));
+            }
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponse());
+        }
+
         // TODO: Add configurable error pages if we fail early here, before we can safely issue an error redirect.
 
-        // The only way this can throw is if `state` appears as a parameter multiple times (it is fine if `state` is not
+        // The only way this can fail is if `state` appears as a parameter multiple times (it is fine if `state` is not
         // present), and we don't bother to keep track of this and issue an error redirect if the redirect URL can be
         // validated next: just give up now and show an error page.
-        String state = Throw.insteadOf(InvalidRequestException.class,
-                () -> params.maybeExtractSingletonParam(PARAM_STATE),
-                e -> new OAuthReponse.JsonPage(Response.Status.BAD_REQUEST, e.getErrorResponse()));
+        String state;
+        try {
+            state = params.maybeExtractSingletonParam(PARAM_STATE);
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponse());
+        }
 
         // Next parse and validate the redirect URI: we again have to show an error page if this step fails.
-        URI redirectUri = Throw.insteadOf(InvalidRequestException.class,
-                () -> lookupAndValidateRedirectUri(client.getAllowedRedirectUris(), params.maybeExtractSingletonParam(PARAM_REDIRECT_URI)),
-                e -> new OAuthReponse.JsonPage(Response.Status.BAD_REQUEST, e.getErrorResponseWithState(state)));
+        String strRedirectUri;
+        URI redirectUri;
+        try {
+            strRedirectUri = params.maybeExtractSingletonParam(PARAM_REDIRECT_URI);
+            redirectUri = lookupAndValidateRedirectUri(client, strRedirectUri);
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponseWithState(state));
+        }
 
         // Finally, parse the actual request and return any errors via a query parameter redirect.
-        AuthorizationRequest request = Throw.insteadOf(InvalidRequestException.class,
-                () -> parseRequest(params, parseResponseType(params), client, redirectUri),
-                e -> new OAuthReponse.Redirect(new UriQueryParamWriter(redirectUri), e.getErrorResponseWithState(state))
-        );
+        try {
+            AuthorizationRequest request = parseRequest(params, parseResponseType(params), client, strRedirectUri != null, redirectUri, state);
+            return Outcome.success(new AuthorizationRequestGranter(client, request));
+        } catch (InvalidRequestException e) {
+            return Outcome.redirectFailure(new UriQueryParamWriter(redirectUri), e.getErrorResponseWithState(state));
+        }
+    }
+
+    private AuthorizationRequest redeemPushedRequest(ParamReader params, String requestUri) throws InvalidRequestException {
+        Throw.whenNull(pushedRequests,
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "'request_uri' not supported"));
+        Throw.whenNot(requestUri.startsWith(REQUEST_URI_PREFIX),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST_URI, "invalid 'request_uri'"));
+
+        // SPEC NOTE: `request_uri`s are one-time use, so that a leaked authorization URL cannot be replayed. Of several
+        //            racing requests, only the one which reads the entry first (as marked atomically by the store)
+        //            redeems it.
+        String key = requestUri.substring(REQUEST_URI_PREFIX.length());
+        DataStore.Entry<AuthorizationRequest> entry = pushedRequests.get(key);
+        Throw.when(entry == null || !entry.getAccessCount().isFirst(),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST_URI, "invalid or expired 'request_uri'"));
+        pushedRequests.remove(key);
+
+        // The request was pushed by an authenticated client, so this is the only check we must repeat.
+        AuthorizationRequest request = entry.getValue();
+        Throw.whenNot(request.getClientId().equals(params.extractSingletonParam(PARAM_CLIENT_ID)),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "mismatched 'client_id' with 'request_uri'"));
+
+        return request;
+    }
+
+    public OAuthReponse.JsonPage push(ClientRegistration client, MultivaluedMap<String, String> params) {
+        return push(client, ParamReader.from(params::get));
+    }
+
+    public OAuthReponse.JsonPage push(ClientRegistration client, ParamReader params) {
+        return push(client, params, null);
+    }
+
+    public OAuthReponse.JsonPage push(ClientRegistration client, MultivaluedMap<String, String> params, String authorization) {
+        return push(client, ParamReader.from(params::get), authorization);
+    }
+
+    // Handles a pushed authorization request (RFC 9126) from `client`. The request is validated exactly as by
+    // `tryParse()` and then stored, and the client is told the `request_uri` to send the user to the authorization
+    // endpoint with in its place.
+    //
+    // SPEC NOTE: The client authenticates as at the token endpoint, see
+    //            `TokenRequestParser.tryParse(IssuerBundle, ClientRegistration, ParamReader, String)`. `authorization`
+    //            is the value of the request's `Authorization` header, or `null` if it has none.
+    public OAuthReponse.JsonPage push(ClientRegistration client, ParamReader params, String authorization) {
+        Objects.requireNonNull(client);
+        Objects.requireNonNull(params);
+
+        if (pushedRequests == null) {
+            throw new IllegalStateException("parser not configured with a store for pushed authorization requests");
+        }
+
+        try {
+            params = ClientAuthentication.authenticate(client, params, authorization);
+        } catch (InvalidRequestException e) {
+            return new OAuthReponse.JsonPage(ClientAuthentication.getFailureStatus(e), e.getErrorResponse());
+        }
+
+        try {
+            Throw.whenNotNull(params.maybeExtractSingletonParam(PARAM_REQUEST_URI),
+                    () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "'request_uri' cannot be pushed"));
+        } catch (InvalidRequestException e) {
+            return new OAuthReponse.JsonPage(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponse());
+        }
+
+        // There is no user agent to redirect on the back channel, so every error is reported to the client directly.
+        Outcome<AuthorizationRequestGranter> outcome = tryParse(client, params);
+        if (!outcome.isSuccess()) {
+            ErrorResponse error = ((Outcome.Failure<?>) outcome).getError();
+            return new OAuthReponse.JsonPage(HttpResponse.STATUS_BAD_REQUEST, new ErrorResponse(error.getError(), error.getErrorMessage(), null));
+        }
 
-        return new AuthorizationRequestGranter(client, request);
+        String key = Util.generateRandomBytesBase64UrlEncodedWithoutPadding(RANDOM, PUSHED_REQUEST_NUM_BYTES);
+        Instant expiry = Instant.ofEpochMilli(pushedRequests.getClock().millis() + TimeUnit.SECONDS.toMillis(PUSHED_REQUEST_LIFETIME_SECONDS));
+        pushedRequests.put(key, new DataStore.Entry<>(outcome.getOrThrow().getRequest(), expiry));
+
+        return new OAuthReponse.JsonPage(HttpResponse.STATUS_CREATED,
+                new PushedAuthorizationPayload(REQUEST_URI_PREFIX + key, PUSHED_REQUEST_LIFETIME_SECONDS));
     }
 
     private PkceInfo parsePkceInfo(ParamReader params, ResponseType responseType) throws InvalidRequestException {
@@ -126,14 +352,11 @@ public class AuthorizationRequestParser {
         // SPEC NOTE: Optional, defaults to "plain". (Though accepting "plain" is also disabled by default.)
         CodeChallengeMethod codeChallengeMethod = CodeChallengeMethod.PLAIN;
         if (strCodeChallengeMethod != null) {
-            codeChallengeMethod = Throw.insteadOf(IllegalArgumentException.class,
-                    () -> Objects.requireNonNull(mapper.convertValue(strCodeChallengeMethod, CodeChallengeMethod.class)),
+            codeChallengeMethod = Throw.whenNull(CodeChallengeMethod.fromValue(strCodeChallengeMethod),
                     () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "unsupported code challenge method '" + strCodeChallengeMethod + "'"));
         }
 
-        OAuth21SpecViolation.DontRequirePkce dontRequirePkce =
-                tryFindExtension(OAuth21SpecViolation.DontRequirePkce.class);
-        boolean forceUsingPkce = (responseType != ResponseType.IMPLICIT) && (dontRequirePkce == null);
+        boolean forceUsingPkce = (responseType != ResponseType.IMPLICIT) && requirePkce;
         boolean anyPkceParamsPresent = (strCodeChallengeMethod != null) || (codeChallenge != null);
 
         // PKCE on by default for all but the 'implicit' flow, which is not part of OAuth 2.1 (and doesn't support it).
@@ -149,9 +372,7 @@ public class AuthorizationRequestParser {
         Throw.when(codeChallenge == null,
                 () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "missing 'code_challenge'"));
 
-        OAuth21SpecOption.AllowPlainCodeChallengeMethod allowPlainCodeChallengeMethod =
-                tryFindExtension(OAuth21SpecOption.AllowPlainCodeChallengeMethod.class);
-        Throw.when((codeChallengeMethod == CodeChallengeMethod.PLAIN) && allowPlainCodeChallengeMethod == null,
+        Throw.when((codeChallengeMethod == CodeChallengeMethod.PLAIN) && !allowPlainCodeChallengeMethod,
                 () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "challenge code method 'plain' disallowed"));
 
         return new PkceInfo(codeChallengeMethod, codeChallenge);
@@ -160,39 +381,35 @@ public class AuthorizationRequestParser {
     private @NotNull ResponseType parseResponseType(ParamReader params) throws InvalidRequestException {
         String strResponseType = params.extractSingletonParam(PARAM_RESPONSE_TYPE);
 
-        return Throw.insteadOf(IllegalArgumentException.class,
-                () -> Objects.requireNonNull(mapper.convertValue(strResponseType, ResponseType.class)),
+        return Throw.whenNull(ResponseType.fromValue(strResponseType),
                 () -> new InvalidRequestException(ErrorResponse.DESC_UNSUPPORTED_RESPONSE_TYPE, "unsupported response type '" + strResponseType + "'"));
     }
 
     private void checkResponseType(ResponseType responseType, String nonce) throws InvalidRequestException {
-        OAuth21SpecViolation.AllowImplicit ruleAllowImplicit = tryFindExtension(OAuth21SpecViolation.AllowImplicit.class);
         if (responseType == ResponseType.IMPLICIT) {
-            Throw.whenNull(ruleAllowImplicit,
+            Throw.whenNot(allowImplicit,
                     () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "response type 'token' disallowed"));
 
-            Throw.when(nonce == null && ruleAllowImplicit.shouldRequireNonce(),
+            Throw.when(nonce == null && requireNonceForImplicit,
                     () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "parameter 'nonce' required for implicit grant"));
         }
     }
 
     private @NotNull List<String> parseScopes(ParamReader params, ClientRegistration client) throws InvalidRequestException {
-        List<String> scopes = Optional.ofNullable(params.maybeExtractSingletonParam(PARAM_SCOPE))
-                .map(str -> List.of(str.split(" ")))
-                .orElseGet(client::getDefaultScopes);
+        String strScopes = params.maybeExtractSingletonParam(PARAM_SCOPE);
+        List<String> scopes = strScopes != null ? ScopeSet.parse(strScopes).toList() : client.getDefaultScopes();
 
         return Throw.whenNull(scopes,
                 () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "no 'scope' specified"));
     }
 
-    private AuthorizationRequest parseRequest(ParamReader params, ResponseType responseType, ClientRegistration client, URI redirectUri) throws InvalidRequestException {
+    // The `state` and `redirect_uri` have already been extracted by the time we get here, so we don't read them again.
+    private AuthorizationRequest parseRequest(ParamReader params, ResponseType responseType, ClientRegistration client, boolean redirectUriProvided, URI redirectUri, String state) throws InvalidRequestException {
         PkceInfo pkceInfo = parsePkceInfo(params, responseType);
         List<String> scopes = parseScopes(params, client);
 
         // TODO: Allow the `client_id` to be missing if the client has been authenticated by alternative means.
         String clientId = params.extractSingletonParam(PARAM_CLIENT_ID);
-        boolean redirectUriProvided = params.maybeExtractSingletonParam(PARAM_REDIRECT_URI) != null;
-        String state = params.maybeExtractSingletonParam(PARAM_STATE);
         String nonce = params.maybeExtractSingletonParam(PARAM_NONCE);
 
         checkResponseType(responseType, nonce);
@@ -207,36 +424,60 @@ public class AuthorizationRequestParser {
         }
     }
 
-    private void enforceExtensionsSealed(Extension ext) {
-        Throw.whenNot(ext.getClass().getPackageName()
-                        .equals(AuthorizationRequestParser.class.getPackageName() + ".extension"),
-                () -> new IllegalArgumentException("Custom extensions are not supported! (" + ext.getClass() + ")"));
+    // Returns a new parser which additionally has the extension `newExt`; this parser is unchanged. (These were once
+    // called `addExtension()`/`addExtensions()` and changed the parser in place; the rename makes callers which ignored
+    // the result fail to compile, instead of silently losing their extensions.)
+    public AuthorizationRequestParser withExtension(Extension newExt) {
+        return toBuilder().addExtension(newExt).build();
+    }
+
+    // Returns a new parser which additionally has the extensions `newExts`; this parser is unchanged.
+    public AuthorizationRequestParser withExtensions(Collection<? extends Extension> newExts) {
+        return toBuilder().addExtensions(newExts).build();
     }
 
-    public AuthorizationRequestParser addExtension(Extension newExt) {
-        // TODO: Replace with `sealed` once we can support Java 17.
-        enforceExtensionsSealed(newExt);
+    public static final class Builder {
 
-        Throw.when(extensions.stream().anyMatch(
-                        oldExt -> oldExt.getClass().equals(newExt.getClass())),
-                () -> new IllegalArgumentException("duplicate extension: " + newExt.getClass()));
+        private final List<Extension> extensions = new ArrayList<>();
+        private DataStore<AuthorizationRequest> pushedRequests;
 
-        this.extensions.add(newExt);
-        return this;
-    }
+        private Builder() {
+        }
 
-    public AuthorizationRequestParser addExtensions(Collection<Extension> extensions) {
-        extensions.forEach(this::addExtension);
-        return this;
-    }
+        private static void enforceExtensionsSealed(Extension ext) {
+            Throw.whenNot(ext.getClass().getPackageName()
+                            .equals(AuthorizationRequestParser.class.getPackageName() + ".extension"),
+                    () -> new IllegalArgumentException("Custom extensions are not supported! (" + ext.getClass() + ")"));
+        }
 
-    private <T extends Extension> T tryFindExtension(Class<T> clazz) {
-        // Note that we check and prohibit duplicates in `AuthorizationRequestParser.withExtension()`.
-        return extensions.stream()
-                .filter(ext -> ext.getClass().equals(clazz))
-                .map(clazz::cast)
-                .findFirst()
-                .orElse(null);
+        public Builder addExtension(Extension newExt) {
+            // TODO: Replace with `sealed` once we can support Java 17.
+            enforceExtensionsSealed(newExt);
+
+            for (Extension oldExt : extensions) {
+                Throw.when(oldExt.getClass().equals(newExt.getClass()),
+                        () -> new IllegalArgumentException("duplicate extension: " + newExt.getClass()));
+            }
+
+            extensions.add(newExt);
+            return this;
+        }
+
+        public Builder addExtensions(Collection<? extends Extension> newExts) {
+            newExts.forEach(this::addExtension);
+            return this;
+        }
+
+        // Enables pushed authorization requests (RFC 9126), which are held in `store` until the user agent arrives with
+        // their `request_uri`. The store should not hold values longer than `PUSHED_REQUEST_LIFETIME_SECONDS`.
+        public Builder pushedAuthorizationRequests(DataStore<AuthorizationRequest> store) {
+            this.pushedRequests = store;
+            return this;
+        }
+
+        public AuthorizationRequestParser build() {
+            return new AuthorizationRequestParser(extensions, pushedRequests);
+        }
     }
 
     public static abstract class Extension {
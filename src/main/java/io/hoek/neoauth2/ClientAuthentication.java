@@ -0,0 +1,174 @@
+package io.hoek.neoauth2;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.ClientRegistry;
+import io.hoek.neoauth2.backend.ClientSecretHash;
+import io.hoek.neoauth2.internal.Hashing;
+import io.hoek.neoauth2.internal.InvalidRequestException;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.util.function.Throw;
+
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Authenticates confidential clients by `client_secret_basic` or `client_secret_post` (RFC 6749 section 2.3.1), at the
+// token endpoint and at the other back-channel endpoints which RFC 9126 and RFC 8628 have authenticate like it.
+//
+// Checking a secret against a `ClientSecretHash` is slow by design, so successful verifications are cached for a few
+// minutes, keyed by the hash. A client whose secret changes has a new hash (with a new salt), so its old entry is never
+// consulted again. We cache an HMAC of the presented secret under a key private to this process, not the secret
+// itself, and compare it in constant time.
+final class ClientAuthentication {
+
+    private static final String BASIC_PREFIX = "basic ";
+
+    private static final long VERIFIED_TTL_MINUTES = 5;
+    private static final long VERIFIED_MAX_SIZE = 10_000;
+
+    private static final byte[] CACHE_KEY = new byte[Hashing.SHA256_LENGTH];
+    private static final Cache<String, byte[]> VERIFIED = CacheBuilder.newBuilder()
+            .expireAfterWrite(VERIFIED_TTL_MINUTES, TimeUnit.MINUTES)
+            .maximumSize(VERIFIED_MAX_SIZE)
+            .build();
+
+    static {
+        new SecureRandom().nextBytes(CACHE_KEY);
+    }
+
+    private ClientAuthentication() {
+    }
+
+    private static final class Credentials {
+
+        private final String clientId;
+        private final String secret;
+
+        private Credentials(String clientId, String secret) {
+            this.clientId = clientId;
+            this.secret = secret;
+        }
+    }
+
+    // Returns `null` if `authorization` (the value of the `Authorization` header) is `null`.
+    private static Credentials parseBasic(String authorization) throws InvalidRequestException {
+        if (authorization == null) {
+            return null;
+        }
+
+        Throw.whenNot(authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length()),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_CLIENT, "unsupported authorization scheme"));
+
+        String decoded;
+        try {
+            decoded = new String(Base64.getDecoder().decode(authorization.substring(BASIC_PREFIX.length()).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "malformed basic credentials");
+        }
+
+        int colon = decoded.indexOf(':');
+        Throw.when(colon < 0,
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "malformed basic credentials"));
+
+        // SPEC NOTE: The client ID and secret are form-encoded before being joined.
+        try {
+            return new Credentials(
+                    URLDecoder.decode(decoded.substring(0, colon), StandardCharsets.UTF_8),
+                    URLDecoder.decode(decoded.substring(colon + 1), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "malformed basic credentials");
+        }
+    }
+
+    // Returns the client ID in the basic credentials in `authorization`, or `null` if there are none.
+    static String basicClientId(String authorization) throws InvalidRequestException {
+        Credentials basic = parseBasic(authorization);
+        return basic == null ? null : basic.clientId;
+    }
+
+    // Resolves the client named by the basic credentials in `authorization` if there are any, else by `client_id`.
+    static ClientRegistration lookupClient(ClientRegistry registry, ParamReader params, String authorization) throws InvalidRequestException {
+        String basicClientId = basicClientId(authorization);
+        if (basicClientId == null) {
+            return AuthorizationRequestParser.lookupClient(registry, params);
+        }
+
+        return Throw.whenNull(registry.lookup(basicClientId),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_CLIENT, "unknown client"));
+    }
+
+    // SPEC NOTE: A client which fails to authenticate is reported as `invalid_client` with a 401, other errors with a
+    //            400.
+    static int getFailureStatus(InvalidRequestException e) {
+        return ErrorResponse.DESC_INVALID_CLIENT.equals(e.getErrorResponse().getError())
+                ? HttpResponse.STATUS_UNAUTHORIZED : HttpResponse.STATUS_BAD_REQUEST;
+    }
+
+    static boolean isConfidential(ClientRegistration client) {
+        return client.getClientSecretHash() != null || client.getClientSecret() != null;
+    }
+
+    private static boolean verifyHashed(String secret, String hash) {
+        byte[] presented = Hashing.hmacSha256(CACHE_KEY, secret);
+        if (Hashing.constantTimeEquals(VERIFIED.getIfPresent(hash), presented)) {
+            return true;
+        }
+
+        if (!ClientSecretHash.verify(secret, hash)) {
+            return false;
+        }
+
+        VERIFIED.put(hash, presented);
+        return true;
+    }
+
+    private static boolean verify(ClientRegistration client, String secret) {
+        String hash = client.getClientSecretHash();
+        if (hash != null) {
+            return verifyHashed(secret, hash);
+        }
+
+        // Compare digests, so that the comparison doesn't leak the length of the secret either.
+        return Hashing.constantTimeEquals(Hashing.sha256(secret), Hashing.sha256(client.getClientSecret()));
+    }
+
+    // Authenticates `client` by the credentials in `params` or `authorization` (the value of the `Authorization`
+    // header, if any). Returns the params of the request, with `client_id` filled in from basic credentials if the
+    // client omitted it from the body.
+    static ParamReader authenticate(ClientRegistration client, ParamReader params, String authorization) throws InvalidRequestException {
+        Credentials basic = parseBasic(authorization);
+        String postSecret = params.maybeExtractSingletonParam(TokenRequestParser.PARAM_CLIENT_SECRET);
+        Throw.when(basic != null && postSecret != null,
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "multiple client authentication methods"));
+
+        String paramClientId = params.maybeExtractSingletonParam(TokenRequestParser.PARAM_CLIENT_ID);
+        Throw.when(basic != null && paramClientId != null && !paramClientId.equals(basic.clientId),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_CLIENT, "mismatched 'client_id' with credentials"));
+
+        String secret = basic != null ? basic.secret : postSecret;
+        if (!isConfidential(client)) {
+            Throw.whenNotNull(secret,
+                    () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_CLIENT, "client has no secret"));
+
+            return params;
+        }
+
+        Throw.whenNull(secret,
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_CLIENT, "client authentication required"));
+        Throw.whenNot(verify(client, secret),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_CLIENT, "client authentication failed"));
+
+        if (basic == null || paramClientId != null) {
+            return params;
+        }
+
+        List<String> clientId = List.of(basic.clientId);
+        return ParamReader.from(param -> TokenRequestParser.PARAM_CLIENT_ID.equals(param) ? clientId : params.get(param));
+    }
+}
@@ -0,0 +1,140 @@
+package io.hoek.neoauth2;
+
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.ClientRegistry;
+import io.hoek.neoauth2.backend.IssuerBundle;
+import io.hoek.neoauth2.backend.builtin.DataStore;
+import io.hoek.neoauth2.internal.InvalidRequestException;
+import io.hoek.neoauth2.model.DeviceAuthorizationPayload;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.neoauth2.model.ScopeSet;
+import io.hoek.util.function.Throw;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import javax.ws.rs.core.MultivaluedMap;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A request to the device authorization endpoint of RFC 8628. Once the device has shown the user code to the user, it
+// polls the token endpoint with the `urn:ietf:params:oauth:grant-type:device_code` grant, which is handled by
+// `TokenRequestParser`.
+@ToString
+@EqualsAndHashCode
+public final class DeviceAuthorizationRequest {
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final IssuerBundle bundle;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final ClientRegistration client;
+
+    private final String clientId;
+    private final List<String> scopes;
+
+    private DeviceAuthorizationRequest(IssuerBundle bundle, ClientRegistration client, String clientId, List<String> scopes) {
+        this.bundle = bundle;
+        this.client = client;
+        this.clientId = clientId;
+        this.scopes = scopes;
+    }
+
+    public static DeviceAuthorizationRequest parse(IssuerBundle bundle, ClientRegistration client, MultivaluedMap<String, String> params) {
+        return parse(bundle, client, ParamReader.from(params::get));
+    }
+
+    public static DeviceAuthorizationRequest parse(IssuerBundle bundle, ClientRegistration client, ParamReader params) {
+        return parse(bundle, client, params, null);
+    }
+
+    public static DeviceAuthorizationRequest parse(IssuerBundle bundle, ClientRegistration client, ParamReader params, String authorization) {
+        return tryParse(bundle, client, params, authorization).getOrThrow();
+    }
+
+    public static Outcome<DeviceAuthorizationRequest> tryParse(IssuerBundle bundle, ClientRegistration client, MultivaluedMap<String, String> params) {
+        return tryParse(bundle, client, ParamReader.from(params::get));
+    }
+
+    public static Outcome<DeviceAuthorizationRequest> tryParse(IssuerBundle bundle, ClientRegistration client, ParamReader params) {
+        return tryParse(bundle, client, params, null);
+    }
+
+    public static Outcome<DeviceAuthorizationRequest> tryParse(IssuerBundle bundle, ClientRegistration client, MultivaluedMap<String, String> params, String authorization) {
+        return tryParse(bundle, client, ParamReader.from(params::get), authorization);
+    }
+
+    // Like `parse()`, but reports a malformed request by returning an `Outcome.Failure` instead of throwing.
+    //
+    // SPEC NOTE: A confidential client authenticates as at the token endpoint (RFC 8628 section 3.1), see
+    //            `TokenRequestParser.tryParse(IssuerBundle, ClientRegistration, ParamReader, String)`. `authorization`
+    //            is the value of the request's `Authorization` header, or `null` if it has none.
+    public static Outcome<DeviceAuthorizationRequest> tryParse(IssuerBundle bundle, ClientRegistration client, ParamReader params, String authorization) {
+        ParamReader authenticated;
+        try {
+            authenticated = ClientAuthentication.authenticate(client, params, authorization);
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(ClientAuthentication.getFailureStatus(e), e.getErrorResponse());
+        }
+
+        try {
+            return Outcome.success(parseRequest(bundle, client, authenticated));
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponse());
+        }
+    }
+
+    public static Outcome<DeviceAuthorizationRequest> tryParse(IssuerBundle bundle, ClientRegistry registry, ParamReader params) {
+        return tryParse(bundle, registry, params, null);
+    }
+
+    // SPEC NOTE: An unknown client is reported as `invalid_client` with a 401.
+    public static Outcome<DeviceAuthorizationRequest> tryParse(IssuerBundle bundle, ClientRegistry registry, ParamReader params, String authorization) {
+        ClientRegistration client;
+        try {
+            client = ClientAuthentication.lookupClient(registry, params, authorization);
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(ClientAuthentication.getFailureStatus(e), e.getErrorResponse());
+        }
+
+        return tryParse(bundle, client, params, authorization);
+    }
+
+    private static DeviceAuthorizationRequest parseRequest(IssuerBundle bundle, ClientRegistration client, ParamReader params) throws InvalidRequestException {
+        Throw.when(bundle.getDeviceAuthorization() == null || client.getDeviceCodeLifetimeSeconds() <= 0,
+                () -> new InvalidRequestException(ErrorResponse.DESC_UNAUTHORIZED_CLIENT, "device authorization grant not permitted for client"));
+
+        String clientId = params.extractSingletonParam(TokenRequestParser.PARAM_CLIENT_ID);
+
+        // SPEC NOTE: If the `scope` parameter is omitted we fall back to the client's default scopes.
+        String strScopes = params.maybeExtractSingletonParam(TokenRequestParser.PARAM_SCOPE);
+        ScopeSet scopes = strScopes != null ? ScopeSet.parse(strScopes)
+                : client.getDefaultScopes() != null ? ScopeSet.of(client.getDefaultScopes()) : null;
+        Throw.whenNull(scopes,
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "no 'scope' specified"));
+        Throw.whenNull(client.validateScopesAndGetAudience(scopes),
+                () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "scopes not authorized"));
+
+        return new DeviceAuthorizationRequest(bundle, client, clientId, scopes.toList());
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public List<String> getScopes() {
+        return scopes;
+    }
+
+    // Starts the device authorization, responding with the device and user codes.
+    //
+    // SPEC NOTE: RFC 8628 suggests device codes live for longer than `DataStore.MAX_EXPIRES_IN_SECS`, but stores need
+    //            not keep entries that long. We clamp the lifetime, so that the `expires_in` we advertise is true.
+    public OAuthReponse.JsonPage start() {
+        long lifetimeSeconds = Math.min(client.getDeviceCodeLifetimeSeconds(), DataStore.MAX_EXPIRES_IN_SECS);
+        Instant expiry = Instant.ofEpochMilli(bundle.getClock().millis() + TimeUnit.SECONDS.toMillis(lifetimeSeconds));
+        DeviceAuthorizationPayload payload = bundle.getDeviceAuthorization().startDeviceAuthorization(clientId, scopes, expiry);
+        return new OAuthReponse.JsonPage(HttpResponse.STATUS_OK, payload);
+    }
+}
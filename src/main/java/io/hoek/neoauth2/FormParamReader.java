@@ -0,0 +1,261 @@
+package io.hoek.neoauth2;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@code ParamReader} over the raw bytes of an {@code application/x-www-form-urlencoded} request body or URI query
+ * string. The input is tokenized in a single pass into an index of parameter offsets, where the parameters this
+ * library reads are recognized up front; values are only percent-decoded when they are actually read.
+ * <p>
+ * Malformed percent-escapes are kept verbatim rather than rejected, since the value is then simply one which fails
+ * validation later on. Instances are not safe to share between threads, and the input must not be modified while the
+ * reader is in use.
+ */
+public final class FormParamReader extends ParamReader {
+
+    private static final String[] KNOWN_PARAMS = {
+            AuthorizationRequestParser.PARAM_CLIENT_ID,
+            AuthorizationRequestParser.PARAM_RESPONSE_TYPE,
+            AuthorizationRequestParser.PARAM_REDIRECT_URI,
+            AuthorizationRequestParser.PARAM_CODE_CHALLENGE_METHOD,
+            AuthorizationRequestParser.PARAM_CODE_CHALLENGE,
+            AuthorizationRequestParser.PARAM_SCOPE,
+            AuthorizationRequestParser.PARAM_STATE,
+            AuthorizationRequestParser.PARAM_NONCE,
+            AuthorizationRequestParser.PARAM_REQUEST_URI,
+            TokenRequestParser.PARAM_GRANT_TYPE,
+            TokenRequestParser.PARAM_CODE,
+            TokenRequestParser.PARAM_CODE_VERIFIER,
+            TokenRequestParser.PARAM_REFRESH_TOKEN,
+            TokenRequestParser.PARAM_DEVICE_CODE,
+            TokenRequestParser.PARAM_CLIENT_SECRET,
+    };
+
+    private static final byte[][] KNOWN_PARAM_BYTES = Arrays.stream(KNOWN_PARAMS)
+            .map(param -> param.getBytes(StandardCharsets.US_ASCII))
+            .toArray(byte[][]::new);
+
+    private static final int NONE = -1;
+    private static final int UNKNOWN = -2;
+
+    private final byte[] buf;
+
+    // For each pair: the offsets of its name and value, the index of its name in `KNOWN_PARAMS` (or `UNKNOWN`), and
+    // the next pair with the same known name.
+    private int numPairs;
+    private int[] pairs = new int[4 * 8];
+    private int[] knownIndex = new int[8];
+    private int[] nextWithSameName = new int[8];
+
+    private final int[] firstWithName = new int[KNOWN_PARAMS.length];
+    private final List<?>[] decoded = new List<?>[KNOWN_PARAMS.length];
+
+    private FormParamReader(byte[] buf, int offset, int length) {
+        this.buf = buf;
+
+        Arrays.fill(firstWithName, NONE);
+        tokenize(offset, offset + length);
+    }
+
+    public static FormParamReader from(byte[] buf) {
+        return from(buf, 0, buf.length);
+    }
+
+    public static FormParamReader from(byte[] buf, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, buf.length);
+        return new FormParamReader(buf, offset, length);
+    }
+
+    // Heap buffers are read in place; direct buffers are copied once.
+    public static FormParamReader from(ByteBuffer buf) {
+        if (buf.hasArray()) {
+            return new FormParamReader(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        }
+
+        byte[] copy = new byte[buf.remaining()];
+        buf.duplicate().get(copy);
+        return new FormParamReader(copy, 0, copy.length);
+    }
+
+    // Accepts a raw (still encoded) query string, e.g. from `URI.getRawQuery()`. A `null` query has no parameters.
+    public static FormParamReader from(String rawQuery) {
+        if (rawQuery == null) {
+            return from(new byte[0]);
+        }
+
+        return from(rawQuery.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void tokenize(int start, int end) {
+        int pairStart = start;
+        while (pairStart < end) {
+            int pairEnd = pairStart;
+            int eq = NONE;
+            while (pairEnd < end && buf[pairEnd] != '&') {
+                if (eq == NONE && buf[pairEnd] == '=') {
+                    eq = pairEnd;
+                }
+                pairEnd++;
+            }
+
+            if (pairEnd > pairStart) {
+                if (eq == NONE) {
+                    addPair(pairStart, pairEnd, pairEnd, pairEnd);
+                } else {
+                    addPair(pairStart, eq, eq + 1, pairEnd);
+                }
+            }
+
+            pairStart = pairEnd + 1;
+        }
+    }
+
+    private void addPair(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        if (numPairs == knownIndex.length) {
+            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            knownIndex = Arrays.copyOf(knownIndex, knownIndex.length * 2);
+            nextWithSameName = Arrays.copyOf(nextWithSameName, nextWithSameName.length * 2);
+        }
+
+        int i = numPairs++;
+        pairs[4 * i] = nameStart;
+        pairs[4 * i + 1] = nameEnd;
+        pairs[4 * i + 2] = valueStart;
+        pairs[4 * i + 3] = valueEnd;
+        nextWithSameName[i] = NONE;
+
+        int known = lookupKnownName(nameStart, nameEnd);
+        knownIndex[i] = known;
+        if (known == UNKNOWN) {
+            return;
+        }
+
+        // Append to the end of the chain, preserving the order of repeated parameters.
+        if (firstWithName[known] == NONE) {
+            firstWithName[known] = i;
+        } else {
+            int last = firstWithName[known];
+            while (nextWithSameName[last] != NONE) {
+                last = nextWithSameName[last];
+            }
+            nextWithSameName[last] = i;
+        }
+    }
+
+    private static boolean needsDecoding(byte[] buf, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buf[i] == '%' || buf[i] == '+') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int lookupKnownName(int start, int end) {
+        if (needsDecoding(buf, start, end)) {
+            // Encoded names are unusual enough that we just decode them eagerly.
+            int known = indexOfKnownParam(decode(buf, start, end));
+            return known == NONE ? UNKNOWN : known;
+        }
+
+        for (int k = 0; k < KNOWN_PARAM_BYTES.length; k++) {
+            if (Arrays.equals(buf, start, end, KNOWN_PARAM_BYTES[k], 0, KNOWN_PARAM_BYTES[k].length)) {
+                return k;
+            }
+        }
+
+        return UNKNOWN;
+    }
+
+    private static int indexOfKnownParam(String param) {
+        for (int k = 0; k < KNOWN_PARAMS.length; k++) {
+            if (KNOWN_PARAMS[k].equals(param)) {
+                return k;
+            }
+        }
+
+        return NONE;
+    }
+
+    private static int hexValue(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return NONE;
+    }
+
+    static String decode(byte[] buf, int start, int end) {
+        if (!needsDecoding(buf, start, end)) {
+            return new String(buf, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            byte b = buf[i];
+            if (b == '+') {
+                out.write(' ');
+            } else if (b == '%' && i + 2 < end && hexValue(buf[i + 1]) != NONE && hexValue(buf[i + 2]) != NONE) {
+                out.write((hexValue(buf[i + 1]) << 4) | hexValue(buf[i + 2]));
+                i += 2;
+            } else {
+                out.write(b);
+            }
+        }
+
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String decodeValue(int pair) {
+        return decode(buf, pairs[4 * pair + 2], pairs[4 * pair + 3]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> get(String param) {
+        int known = indexOfKnownParam(param);
+        if (known == NONE) {
+            return getUnknown(param);
+        }
+
+        if (decoded[known] == null) {
+            int first = firstWithName[known];
+            if (first == NONE) {
+                decoded[known] = List.of();
+            } else if (nextWithSameName[first] == NONE) {
+                decoded[known] = List.of(decodeValue(first));
+            } else {
+                List<String> values = new ArrayList<>();
+                for (int i = first; i != NONE; i = nextWithSameName[i]) {
+                    values.add(decodeValue(i));
+                }
+                decoded[known] = List.copyOf(values);
+            }
+        }
+
+        return (List<String>) decoded[known];
+    }
+
+    private List<String> getUnknown(String param) {
+        List<String> values = new ArrayList<>(1);
+        for (int i = 0; i < numPairs; i++) {
+            if (knownIndex[i] == UNKNOWN && param.equals(decode(buf, pairs[4 * i], pairs[4 * i + 1]))) {
+                values.add(decodeValue(i));
+            }
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,108 @@
+package io.hoek.neoauth2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A framework-neutral HTTP response: a status code, single-valued headers, and a (possibly empty) body. This is all
+ * that is needed to serve an {@code OAuthReponse} from any HTTP server, without going through JAX-RS.
+ */
+public final class HttpResponse {
+
+    public static final int STATUS_OK = 200;
+    public static final int STATUS_CREATED = 201;
+    public static final int STATUS_FOUND = 302;
+    public static final int STATUS_BAD_REQUEST = 400;
+    public static final int STATUS_UNAUTHORIZED = 401;
+
+    public static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    public static final String HEADER_CONTENT_TYPE = "Content-Type";
+    public static final String HEADER_LOCATION = "Location";
+    public static final String HEADER_WWW_AUTHENTICATE = "WWW-Authenticate";
+
+    public static final String CHALLENGE_BASIC = "Basic";
+
+    public static final String CACHE_CONTROL_NO_STORE = "no-store";
+    public static final String CONTENT_TYPE_JSON = "application/json";
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int status;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    private HttpResponse(int status, Map<String, String> headers, byte[] body) {
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+    }
+
+    // All responses must not be cached, since they may contain credentials.
+    private static Map<String, String> baseHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>(4);
+        headers.put(HEADER_CACHE_CONTROL, CACHE_CONTROL_NO_STORE);
+        return headers;
+    }
+
+    static HttpResponse redirect(String location) {
+        Map<String, String> headers = baseHeaders();
+        headers.put(HEADER_LOCATION, location);
+        return new HttpResponse(STATUS_FOUND, headers, EMPTY);
+    }
+
+    static HttpResponse json(int status, byte[] body) {
+        Map<String, String> headers = baseHeaders();
+        headers.put(HEADER_CONTENT_TYPE, CONTENT_TYPE_JSON);
+        // SPEC NOTE: A 401 must name the authentication scheme the client should retry with (RFC 6749 section 5.2). We
+        //            only send it when a client fails to authenticate, and `client_secret_basic` is the only scheme we
+        //            accept by header.
+        if (status == STATUS_UNAUTHORIZED) {
+            headers.put(HEADER_WWW_AUTHENTICATE, CHALLENGE_BASIC);
+        }
+        return new HttpResponse(status, headers, body);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    // Returns `null` for statuses other than the `STATUS_*` constants, which are all we send.
+    public static String getReasonPhrase(int status) {
+        switch (status) {
+            case STATUS_OK:
+                return "OK";
+            case STATUS_CREATED:
+                return "Created";
+            case STATUS_FOUND:
+                return "Found";
+            case STATUS_BAD_REQUEST:
+                return "Bad Request";
+            case STATUS_UNAUTHORIZED:
+                return "Unauthorized";
+            default:
+                return null;
+        }
+    }
+
+    // Header names are as given by the `HEADER_*` constants, in the order they should be sent.
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    // Returns `null` if the header is not set.
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    // The returned array may be shared and must not be modified.
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void writeBody(OutputStream out) throws IOException {
+        out.write(body);
+    }
+}
@@ -1,20 +1,28 @@
 package io.hoek.neoauth2;
 
+import io.hoek.neoauth2.internal.ErrorResponseEncoder;
 import io.hoek.neoauth2.internal.JsonParamWriter;
 import io.hoek.neoauth2.internal.ParamWriter;
-import io.hoek.neoauth2.internal.Util;
+import io.hoek.neoauth2.internal.RedirectParamWriter;
+import io.hoek.neoauth2.model.ErrorResponse;
 
-import javax.ws.rs.WebApplicationException;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
 import java.net.URI;
 
-public abstract class OAuthReponse extends WebApplicationException {
+/**
+ * A response to an OAuth request. The response is only encoded on demand, by {@link #getHttpResponse()}, into a
+ * framework-neutral form which can be served from any HTTP server. JAX-RS applications can use the adapters in
+ * {@code io.hoek.neoauth2.jaxrs}.
+ */
+public abstract class OAuthReponse extends RuntimeException {
 
     private final ParamWriter.Writable content;
 
-    OAuthReponse(ParamWriter.Writable content, Response response) {
-        super(response);
+    private HttpResponse httpResponse;
+
+    OAuthReponse(ParamWriter.Writable content) {
+        // These represent ordinary responses rather than failures of the program, so capturing a stack trace is a
+        // waste.
+        super(null, null, false, false);
 
         this.content = content;
     }
@@ -23,31 +31,70 @@ public abstract class OAuthReponse extends WebApplicationException {
         return content;
     }
 
-    public static final class Redirect extends OAuthReponse {
+    public abstract int getStatus();
+
+    abstract HttpResponse buildHttpResponse();
 
-        private static Response buildResponse(ParamWriter<URI> writer, ParamWriter.Writable content) {
-            return Util.addSecurityCacheControlHeaders(Response.status(Response.Status.FOUND))
-                    .header("Location", writer.buildWith(content))
-                    .build();
+    public final synchronized HttpResponse getHttpResponse() {
+        if (httpResponse == null) {
+            httpResponse = buildHttpResponse();
         }
 
+        return httpResponse;
+    }
+
+    @Override
+    public String getMessage() {
+        int status = getStatus();
+        String reason = HttpResponse.getReasonPhrase(status);
+        return "HTTP " + status + (reason == null ? "" : " " + reason);
+    }
+
+    public static final class Redirect extends OAuthReponse {
+
+        private final ParamWriter<URI> writer;
+
         public Redirect(ParamWriter<URI> writer, ParamWriter.Writable content) {
-            super(content, buildResponse(writer, content));
+            super(content);
+
+            this.writer = writer;
+        }
+
+        @Override
+        public int getStatus() {
+            return HttpResponse.STATUS_FOUND;
+        }
+
+        @Override
+        HttpResponse buildHttpResponse() {
+            getContent().writeTo(writer);
+            return HttpResponse.redirect(writer instanceof RedirectParamWriter
+                    ? ((RedirectParamWriter) writer).buildLocation()
+                    : writer.build().toString());
         }
     }
 
     public static final class JsonPage extends OAuthReponse {
 
-        private static Response buildResponse(Response.Status status, ParamWriter.Writable content) {
-            String body = new JsonParamWriter().buildWith(content);
-            return Util.addSecurityCacheControlHeaders(Response.status(status))
-                    .type(MediaType.APPLICATION_JSON_TYPE)
-                    .entity(body)
-                    .build();
+        private final int status;
+
+        public JsonPage(int status, ParamWriter.Writable content) {
+            super(content);
+
+            this.status = status;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
         }
 
-        public JsonPage(Response.Status status, ParamWriter.Writable content) {
-            super(content, buildResponse(status, content));
+        @Override
+        HttpResponse buildHttpResponse() {
+            // Error bodies are mostly one of a few fixed responses, which are pre-encoded.
+            return HttpResponse.json(status, getContent() instanceof ErrorResponse
+                    ? ErrorResponseEncoder.encode((ErrorResponse) getContent())
+                    : JsonParamWriter.encode(getContent()));
         }
     }
 }
@@ -0,0 +1,103 @@
+package io.hoek.neoauth2;
+
+import io.hoek.neoauth2.internal.ParamWriter;
+import io.hoek.neoauth2.model.ErrorResponse;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * The result of parsing a request without throwing: either a {@code Success} holding the parsed value (e.g. a granter)
+ * or a {@code Failure} describing the error response which should be shown. The error response itself is only built
+ * when {@link Failure#toResponse()} is called.
+ */
+public abstract class Outcome<T> {
+
+    private Outcome() {
+    }
+
+    static <T> Outcome<T> success(T value) {
+        return new Success<>(value);
+    }
+
+    static <T> Outcome<T> failure(int status, ErrorResponse error) {
+        return new Failure<>(status, null, error);
+    }
+
+    static <T> Outcome<T> redirectFailure(ParamWriter<URI> writer, ErrorResponse error) {
+        return new Failure<>(HttpResponse.STATUS_FOUND, Objects.requireNonNull(writer), error);
+    }
+
+    public abstract boolean isSuccess();
+
+    /**
+     * @return the parsed value
+     * @throws OAuthReponse the error response if this is a {@code Failure}
+     */
+    public abstract T getOrThrow() throws OAuthReponse;
+
+    public static final class Success<T> extends Outcome<T> {
+
+        private final T value;
+
+        private Success(T value) {
+            this.value = Objects.requireNonNull(value);
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public T getOrThrow() {
+            return value;
+        }
+    }
+
+    public static final class Failure<T> extends Outcome<T> {
+
+        // The error is shown as a page with `status`, unless there is a `redirectWriter`.
+        private final int status;
+        private final ParamWriter<URI> redirectWriter;
+
+        private final ErrorResponse error;
+
+        private Failure(int status, ParamWriter<URI> redirectWriter, ErrorResponse error) {
+            this.status = status;
+            this.redirectWriter = redirectWriter;
+            this.error = Objects.requireNonNull(error);
+        }
+
+        public ErrorResponse getError() {
+            return error;
+        }
+
+        // Whether the error is returned to the client by redirecting, as opposed to being shown as an error page.
+        public boolean isRedirect() {
+            return redirectWriter != null;
+        }
+
+        public OAuthReponse toResponse() {
+            if (redirectWriter != null) {
+                return new OAuthReponse.Redirect(redirectWriter, error);
+            }
+
+            return new OAuthReponse.JsonPage(status, error);
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return false;
+        }
+
+        @Override
+        public T getOrThrow() throws OAuthReponse {
+            throw toResponse();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.hoek.neoauth2;
+
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.hoek.neoauth2.backend.ClientRegistry;
+import io.hoek.neoauth2.backend.Clock;
+import io.hoek.neoauth2.backend.IssuerBundle;
+import lombok.Getter;
+
+import javax.ws.rs.core.UriInfo;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes requests to the {@code Tenant} (issuer, parser and clients) they are addressed to, for servers hosting many
+ * tenants. Tenants are built on first use by a {@code TenantFactory} and cached until they have been idle for a while,
+ * so memory scales with the number of active tenants rather than all of them.
+ * <p>
+ * Since an evicted tenant is rebuilt on its next request, anything which must outlive a tenant's eviction (e.g.
+ * outstanding authorization codes) must be held outside of it: tenants should share stores, each using a
+ * {@code DataStore.prefixed()} view named by its tenant ID.
+ */
+public final class TenantRouter {
+
+    /**
+     * Extracts the ID of the tenant a request is addressed to from its URI, returning null if there is none.
+     */
+    @FunctionalInterface
+    public interface Resolver {
+
+        String resolveTenantId(URI requestUri);
+    }
+
+    // Routes by (lower-cased) host name, e.g. `https://acme.auth.example.com/authorize` to "acme.auth.example.com".
+    public static final Resolver BY_HOST = uri -> uri.getHost() == null ? null : uri.getHost().toLowerCase(Locale.ROOT);
+
+    // Routes by the first path segment, e.g. `https://auth.example.com/acme/authorize` to "acme".
+    public static final Resolver BY_PATH_PREFIX = uri -> {
+        String path = uri.getPath();
+        if (path == null || !path.startsWith("/")) {
+            return null;
+        }
+
+        int end = path.indexOf('/', 1);
+        String segment = end < 0 ? path.substring(1) : path.substring(1, end);
+        return segment.isEmpty() ? null : segment;
+    };
+
+    @FunctionalInterface
+    public interface TenantFactory {
+
+        // Returns null if there is no such tenant. May be called concurrently, though never for the same tenant at once.
+        Tenant create(String tenantId);
+    }
+
+    @Getter
+    public static final class Tenant {
+
+        private final String id;
+        private final IssuerBundle issuerBundle;
+        private final AuthorizationRequestParser authorizationRequestParser;
+        // May be null, if clients are resolved some other way.
+        private final ClientRegistry clientRegistry;
+
+        public Tenant(String id, IssuerBundle issuerBundle, AuthorizationRequestParser authorizationRequestParser, ClientRegistry clientRegistry) {
+            this.id = Objects.requireNonNull(id);
+            this.issuerBundle = Objects.requireNonNull(issuerBundle);
+            this.authorizationRequestParser = Objects.requireNonNull(authorizationRequestParser);
+            this.clientRegistry = clientRegistry;
+        }
+
+        // Parsers are stateless, so every tenant shares the one token request parser.
+        public TokenRequestParser getTokenRequestParser() {
+            return TokenRequestParser.DEFAULT;
+        }
+    }
+
+    private final Resolver resolver;
+    private final TenantFactory factory;
+    private final Cache<String, Tenant> tenants;
+
+    private TenantRouter(Resolver resolver, TenantFactory factory, Duration idleTimeout, long maxTenants, Clock clock) {
+        this.resolver = Objects.requireNonNull(resolver);
+        this.factory = Objects.requireNonNull(factory);
+        this.tenants = CacheBuilder.newBuilder()
+                .expireAfterAccess(idleTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                .maximumSize(maxTenants)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                    }
+                })
+                .build();
+    }
+
+    public static Builder builder(Resolver resolver, TenantFactory factory) {
+        return new Builder(resolver, factory);
+    }
+
+    // Returns null if there is no such tenant. Unknown tenants are not cached, so they can't crowd out real ones.
+    public Tenant get(String tenantId) {
+        if (tenantId == null) {
+            return null;
+        }
+
+        // Guava implements `asMap().computeIfAbsent()` as `compute()`, which takes the segment lock even on a hit, so
+        // look the tenant up first. A miss builds the tenant while holding only its own key's lock.
+        Tenant tenant = tenants.getIfPresent(tenantId);
+        if (tenant != null) {
+            return tenant;
+        }
+
+        try {
+            return tenants.get(tenantId, () -> factory.create(tenantId));
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            // The factory returned null.
+            return null;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Returns null if the request is not addressed to any tenant.
+    public Tenant resolve(URI requestUri) {
+        return get(resolver.resolveTenantId(requestUri));
+    }
+
+    public Tenant resolve(UriInfo uriInfo) {
+        return resolve(uriInfo.getRequestUri());
+    }
+
+    // Forces the tenant to be rebuilt on its next request, e.g. after its configuration has changed.
+    public void invalidate(String tenantId) {
+        tenants.invalidate(tenantId);
+    }
+
+    public long size() {
+        tenants.cleanUp();
+        return tenants.size();
+    }
+
+    public static final class Builder {
+
+        private final Resolver resolver;
+        private final TenantFactory factory;
+        private Duration idleTimeout = Duration.ofMinutes(30);
+        private long maxTenants = 1000;
+        private Clock clock = Clock.system();
+
+        private Builder(Resolver resolver, TenantFactory factory) {
+            this.resolver = Objects.requireNonNull(resolver);
+            this.factory = Objects.requireNonNull(factory);
+        }
+
+        // Tenants which have received no requests for this long are evicted.
+        public Builder idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = Objects.requireNonNull(idleTimeout);
+            return this;
+        }
+
+        // At most this many tenants are held at once, evicting those least recently used.
+        public Builder maxTenants(long maxTenants) {
+            this.maxTenants = maxTenants;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = Objects.requireNonNull(clock);
+            return this;
+        }
+
+        public TenantRouter build() {
+            return new TenantRouter(resolver, factory, idleTimeout, maxTenants, clock);
+        }
+    }
+}
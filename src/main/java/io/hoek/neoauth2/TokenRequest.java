@@ -3,12 +3,17 @@ package io.hoek.neoauth2;
 import io.hoek.neoauth2.backend.*;
 import io.hoek.neoauth2.internal.InvalidRequestException;
 import io.hoek.neoauth2.internal.ParamWriter;
+import io.hoek.neoauth2.model.AccessTokenPayload;
 import io.hoek.neoauth2.model.ErrorResponse;
 import io.hoek.neoauth2.model.GrantType;
+import io.hoek.neoauth2.model.RefreshTokenPayload;
+import io.hoek.neoauth2.model.ScopeSet;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @ToString
 @EqualsAndHashCode
@@ -23,7 +28,7 @@ public abstract class TokenRequest {
     }
 
     public static TokenRequestParser parser() {
-        return new TokenRequestParser();
+        return TokenRequestParser.DEFAULT;
     }
 
     public String getClientId() {
@@ -36,7 +41,27 @@ public abstract class TokenRequest {
 
     public abstract GrantType getGrantType();
 
-    abstract ParamWriter.Writable generateAccessGrantedWritable(AccessTokenIssuer issuer, ClientRegistration client) throws InvalidRequestException;
+    abstract ParamWriter.Writable generateAccessGrantedWritable(IssuerBundle bundle, ClientRegistration client) throws InvalidRequestException;
+
+    private static Instant refreshTokenExpiry(IssuerBundle bundle, ClientRegistration client) {
+        return Instant.ofEpochMilli(bundle.getClock().millis() + TimeUnit.SECONDS.toMillis(client.getRefreshTokenLifetimeSeconds()));
+    }
+
+    // Issues the access token (and, if the client takes them, a refresh token) for an authorization the user granted.
+    private static ParamWriter.Writable grantAuthorization(IssuerBundle bundle, ClientRegistration client, UserAuthorization authorization) throws InvalidRequestException {
+        String aud = client.validateScopesAndGetAudience(authorization.getSpec().getScopeSet());
+        if (aud == null) {
+            throw new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "scopes not authorized");
+        }
+
+        AccessTokenPayload payload = bundle.issueAccessToken(new AccessTokenOrder(authorization.getSpec(), client.getAccessTokenLifetimeSeconds()));
+        if (client.getRefreshTokenLifetimeSeconds() <= 0) {
+            return payload;
+        }
+
+        RefreshTokenPayload refreshToken = bundle.issueRefreshToken(authorization, refreshTokenExpiry(bundle, client));
+        return refreshToken == null ? payload : payload.withRefreshToken(refreshToken);
+    }
 
     // FIXME How to do accessDenied?
 
@@ -62,22 +87,87 @@ public abstract class TokenRequest {
         }
 
         @Override
-        protected ParamWriter.Writable generateAccessGrantedWritable(AccessTokenIssuer issuer, ClientRegistration client) throws InvalidRequestException {
-            String aud = client.validateScopesAndGetAudience(getScopes());
+        protected ParamWriter.Writable generateAccessGrantedWritable(IssuerBundle bundle, ClientRegistration client) throws InvalidRequestException {
+            return grantAuthorization(bundle, client, getCode());
+        }
+    }
+
+    @ToString(callSuper = true)
+    @EqualsAndHashCode(callSuper = true)
+    public static final class DeviceCode extends TokenRequest {
+
+        private final UserAuthorization authorization;
+
+        DeviceCode(UserAuthorization authorization) {
+            super(authorization.getSpec().getClientId(), authorization.getSpec().getScopes());
+
+            this.authorization = authorization;
+        }
+
+        @Override
+        public GrantType getGrantType() {
+            return GrantType.DEVICE_CODE;
+        }
+
+        public UserAuthorization getAuthorization() {
+            return authorization;
+        }
+
+        @Override
+        protected ParamWriter.Writable generateAccessGrantedWritable(IssuerBundle bundle, ClientRegistration client) throws InvalidRequestException {
+            return grantAuthorization(bundle, client, authorization);
+        }
+    }
+
+    @ToString(callSuper = true)
+    @EqualsAndHashCode(callSuper = true)
+    public static final class RefreshToken extends TokenRequest {
+
+        private final UserAuthorization authorization;
+        @ToString.Exclude
+        private final RefreshTokenPayload token;
+        private final ScopeSet scopeSet;
+
+        // The `token` must already have been verified (and so spent), yielding `authorization`. The `scopes` must be a
+        // subset of those originally authorized.
+        RefreshToken(UserAuthorization authorization, RefreshTokenPayload token, ScopeSet scopes) {
+            super(authorization.getSpec().getClientId(), scopes.toList());
+
+            this.authorization = authorization;
+            this.token = token;
+            this.scopeSet = scopes;
+        }
+
+        @Override
+        public GrantType getGrantType() {
+            return GrantType.REFRESH_TOKEN;
+        }
+
+        public UserAuthorization getAuthorization() {
+            return authorization;
+        }
+
+        @Override
+        protected ParamWriter.Writable generateAccessGrantedWritable(IssuerBundle bundle, ClientRegistration client) throws InvalidRequestException {
+            // The client's policy may have changed since the authorization was granted, so we validate the scopes again.
+            // A failure here is not the client's fault, so we hand the token back rather than leave it spent, which
+            // would make the client's next attempt look like reuse and revoke the whole family.
+            String aud = client.validateScopesAndGetAudience(scopeSet);
             if (aud == null) {
+                bundle.restoreRefreshToken(token);
                 throw new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "scopes not authorized");
             }
 
-            // FIXME delete?
-            //            if (sub != null && !sub.equals(getCode().getSub())) {
-            //                throw new IllegalArgumentException("mismatched sub: argument='" + sub + "' vs codeOrder='" + getCode().getSub() + "'");
-            //            }
-            //
-            //            if (customClaims != null && !CollectionUtils.isEqualCollection(customClaims.entrySet(), getCode().getCustomClaims().entrySet())) {
-            //                throw new IllegalArgumentException("mismatched customClaims: argument='" + customClaims + "' vs codeOrder='" + getCode().getCustomClaims() + "'");
-            //            }
+            // SPEC NOTE: The new refresh token keeps the scopes of the original authorization, even if the access token
+            //            issued now was narrowed.
+            RefreshTokenPayload rotated = bundle.rotateRefreshToken(token, refreshTokenExpiry(bundle, client));
+            if (rotated == null) {
+                throw new InvalidRequestException(ErrorResponse.DESC_INVALID_GRANT, "refresh token revoked");
+            }
 
-            return issuer.issueAccessToken(new AccessTokenOrder(getCode().getSpec(), client.getAccessTokenLifetimeSeconds()));
+            TokenSpec spec = authorization.getSpec().withScopes(scopeSet, aud);
+            return bundle.issueAccessToken(new AccessTokenOrder(spec, client.getAccessTokenLifetimeSeconds()))
+                    .withRefreshToken(rotated);
         }
     }
 
@@ -95,8 +185,16 @@ public abstract class TokenRequest {
         }
 
         @Override
-        protected ParamWriter.Writable generateAccessGrantedWritable(AccessTokenIssuer issuer, ClientRegistration client) throws InvalidRequestException {
-            String aud = client.validateScopesAndGetAudience(getScopes());
+        protected ParamWriter.Writable generateAccessGrantedWritable(IssuerBundle bundle, ClientRegistration client) throws InvalidRequestException {
+            // SPEC NOTE: If the `scope` parameter is omitted we fall back to the client's default scopes.
+            List<String> requestedScopes = getScopes() != null ? getScopes() : client.getDefaultScopes();
+            if (requestedScopes == null) {
+                throw new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "no 'scope' specified");
+            }
+
+            // Validate only once, and reuse the audience for the token.
+            ScopeSet scopes = ScopeSet.of(requestedScopes);
+            String aud = client.validateScopesAndGetAudience(scopes);
             if (aud == null) {
                 throw new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "scopes not authorized");
             }
@@ -105,11 +203,11 @@ public abstract class TokenRequest {
                 throw new IllegalArgumentException("provided ClientRegistration does not implement UserRegistration: 'client_credentials' grant disabled");
             }
 
-            return issuer.issueAccessToken(new AccessTokenOrder(TokenSpec.from(
-                    client,
+            return bundle.issueAccessToken(new AccessTokenOrder(TokenSpec.withAudience(
                     (UserRegistration) client,
                     getClientId(),
-                    getScopes(),
+                    scopes,
+                    aud,
                     null), client.getAccessTokenLifetimeSeconds()));
         }
     }
@@ -1,14 +1,12 @@
 package io.hoek.neoauth2;
 
 import io.hoek.neoauth2.backend.ClientRegistration;
-import io.hoek.util.function.Catch;
 import io.hoek.neoauth2.backend.IssuerBundle;
 import io.hoek.neoauth2.internal.InvalidRequestException;
 import io.hoek.neoauth2.model.ErrorResponse;
 import lombok.Data;
 import lombok.NonNull;
 
-import javax.ws.rs.core.Response;
 
 @Data
 public class TokenRequestGranter {
@@ -23,15 +21,29 @@ public class TokenRequestGranter {
 
     public final OAuthReponse.JsonPage deny(String reason) {
         return new OAuthReponse.JsonPage(
-                Response.Status.BAD_REQUEST,
+                HttpResponse.STATUS_BAD_REQUEST,
                 new ErrorResponse(ErrorResponse.DESC_ACCESS_DENIED, reason, null));
     }
 
     public final OAuthReponse.JsonPage grant() {
-        return new OAuthReponse.JsonPage(
-                Response.Status.OK,
-                Catch.insteadOf(InvalidRequestException.class,
-                        () -> request.generateAccessGrantedWritable(bundle, client),
-                        InvalidRequestException::getErrorResponse));
+        Outcome<OAuthReponse.JsonPage> outcome = tryGrant();
+        if (outcome.isSuccess()) {
+            return outcome.getOrThrow();
+        }
+
+        // Errors at the token endpoint are never redirects.
+        return (OAuthReponse.JsonPage) ((Outcome.Failure<?>) outcome).toResponse();
+    }
+
+    // Like `grant()`, but reports a request which cannot be granted after all (e.g. an authorization code which has
+    // already been redeemed) by returning an `Outcome.Failure` instead of an error page.
+    public final Outcome<OAuthReponse.JsonPage> tryGrant() {
+        try {
+            return Outcome.success(new OAuthReponse.JsonPage(
+                    HttpResponse.STATUS_OK,
+                    request.generateAccessGrantedWritable(bundle, client)));
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponse());
+        }
     }
 }
@@ -1,33 +1,42 @@
 package io.hoek.neoauth2;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.hoek.neoauth2.backend.*;
 import io.hoek.neoauth2.model.*;
 import io.hoek.util.function.Throw;
 import io.hoek.neoauth2.internal.InvalidRequestException;
 import io.hoek.neoauth2.internal.Util;
-import org.apache.commons.collections4.CollectionUtils;
 
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.core.MultivaluedMap;
-import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
-public class TokenRequestParser {
+// Parsers are stateless, so a single parser can be shared by all threads.
+public final class TokenRequestParser {
 
     public static final String PARAM_CLIENT_ID = "client_id";
+    public static final String PARAM_CLIENT_SECRET = "client_secret";
     public static final String PARAM_GRANT_TYPE = "grant_type";
     public static final String PARAM_REDIRECT_URI = "redirect_uri";
     public static final String PARAM_CODE = "code";
     public static final String PARAM_CODE_VERIFIER = "code_verifier";
     public static final String PARAM_SCOPE = "scope";
+    public static final String PARAM_REFRESH_TOKEN = "refresh_token";
+    public static final String PARAM_DEVICE_CODE = "device_code";
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    static final TokenRequestParser DEFAULT = new TokenRequestParser();
 
-    TokenRequestParser() {
+    private static final GrantAuthorizationCodeParser GRANT_AUTHORIZATION_CODE_PARSER = new GrantAuthorizationCodeParser();
+    private static final GrantClientCredentialsParser GRANT_CLIENT_CREDENTIALS_PARSER = new GrantClientCredentialsParser();
+    private static final GrantRefreshTokenParser GRANT_REFRESH_TOKEN_PARSER = new GrantRefreshTokenParser();
+    private static final GrantDeviceCodeParser GRANT_DEVICE_CODE_PARSER = new GrantDeviceCodeParser();
+
+    private TokenRequestParser() {
     }
 
     public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistration client, UriInfo uriInfo) {
@@ -39,33 +48,164 @@ public class TokenRequestParser {
     }
 
     public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistration client, ParamReader params) {
-        return Throw.insteadOf(InvalidRequestException.class,
-                () -> new TokenRequestGranter(bundle, client, parseRequest(bundle, client, params)),
-                e -> new OAuthReponse.JsonPage(Response.Status.BAD_REQUEST, e.getErrorResponse()));
+        return parse(bundle, client, params, null);
+    }
+
+    public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistration client, MultivaluedMap<String, String> params, String authorization) {
+        return parse(bundle, client, ParamReader.from(params::get), authorization);
+    }
+
+    public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistration client, ParamReader params, String authorization) {
+        return tryParse(bundle, client, params, authorization).getOrThrow();
+    }
+
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistration client, UriInfo uriInfo) {
+        return tryParse(bundle, client, uriInfo.getQueryParameters());
+    }
+
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistration client, MultivaluedMap<String, String> params) {
+        return tryParse(bundle, client, ParamReader.from(params::get));
+    }
+
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistration client, ParamReader params) {
+        return tryParse(bundle, client, params, null);
+    }
+
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistration client, MultivaluedMap<String, String> params, String authorization) {
+        return tryParse(bundle, client, ParamReader.from(params::get), authorization);
+    }
+
+    // Like `parse()`, but reports a malformed request by returning an `Outcome.Failure` instead of throwing.
+    //
+    // `authorization` is the value of the request's `Authorization` header, or `null` if it has none. A client with a
+    // secret must authenticate with it, either by `client_secret_basic` in that header or by `client_secret_post` in
+    // `params`. Note that it is up to the caller to pass the registration of the client named by the request, which
+    // `tryParse(IssuerBundle, ClientRegistry, ...)` does.
+    //
+    // SPEC NOTE: A client which fails to authenticate is reported as `invalid_client` with a 401, which challenges it
+    //            with `WWW-Authenticate: Basic`.
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistration client, ParamReader params, String authorization) {
+        ParamReader authenticated;
+        try {
+            authenticated = ClientAuthentication.authenticate(client, params, authorization);
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(ClientAuthentication.getFailureStatus(e), e.getErrorResponse());
+        }
+
+        try {
+            return Outcome.success(new TokenRequestGranter(bundle, client, parseRequest(bundle, client, authenticated)));
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponse());
+        }
+    }
+
+    // Like `tryParse()`, but a `device_code` grant whose authorization is still pending may wait for the user's decision
+    // (see `DeviceAuthorizationAuthority.pollAsync()`) without holding the calling thread. All other requests complete at
+    // once.
+    public CompletionStage<Outcome<TokenRequestGranter>> tryParseAsync(IssuerBundle bundle, ClientRegistration client, ParamReader params, String authorization) {
+        ParamReader authenticated;
+        try {
+            authenticated = ClientAuthentication.authenticate(client, params, authorization);
+        } catch (InvalidRequestException e) {
+            return CompletableFuture.completedFuture(Outcome.failure(ClientAuthentication.getFailureStatus(e), e.getErrorResponse()));
+        }
+
+        CompletionStage<TokenRequest> request;
+        try {
+            request = parseGrantType(authenticated) == GrantType.DEVICE_CODE
+                    ? GRANT_DEVICE_CODE_PARSER.parseRequestAsync(bundle.getDeviceAuthorization(), client, authenticated)
+                    : CompletableFuture.completedFuture(parseRequest(bundle, client, authenticated));
+        } catch (InvalidRequestException e) {
+            return CompletableFuture.completedFuture(Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, e.getErrorResponse()));
+        }
+
+        return request.handle((parsed, ex) -> {
+            if (ex == null) {
+                return Outcome.success(new TokenRequestGranter(bundle, client, parsed));
+            }
+
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof InvalidRequestException) {
+                return Outcome.failure(HttpResponse.STATUS_BAD_REQUEST, ((InvalidRequestException) cause).getErrorResponse());
+            }
+
+            throw new CompletionException(cause);
+        });
+    }
+
+    public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistry registry, UriInfo uriInfo) {
+        return parse(bundle, registry, uriInfo.getQueryParameters());
+    }
+
+    public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistry registry, MultivaluedMap<String, String> params) {
+        return parse(bundle, registry, ParamReader.from(params::get));
+    }
+
+    // Like `parse(IssuerBundle, ClientRegistration, ...)`, but first resolves the client named by `client_id` in
+    // `registry`.
+    public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistry registry, ParamReader params) {
+        return parse(bundle, registry, params, null);
+    }
+
+    public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistry registry, MultivaluedMap<String, String> params, String authorization) {
+        return parse(bundle, registry, ParamReader.from(params::get), authorization);
+    }
+
+    public TokenRequestGranter parse(IssuerBundle bundle, ClientRegistry registry, ParamReader params, String authorization) {
+        return tryParse(bundle, registry, params, authorization).getOrThrow();
+    }
+
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistry registry, UriInfo uriInfo) {
+        return tryParse(bundle, registry, uriInfo.getQueryParameters());
+    }
+
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistry registry, MultivaluedMap<String, String> params) {
+        return tryParse(bundle, registry, ParamReader.from(params::get));
+    }
+
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistry registry, ParamReader params) {
+        return tryParse(bundle, registry, params, null);
+    }
+
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistry registry, MultivaluedMap<String, String> params, String authorization) {
+        return tryParse(bundle, registry, ParamReader.from(params::get), authorization);
+    }
+
+    // SPEC NOTE: An unknown client is reported as `invalid_client` with a 401. A client authenticating by
+    //            `client_secret_basic` is named by its credentials, and need not repeat its `client_id` in the body.
+    public Outcome<TokenRequestGranter> tryParse(IssuerBundle bundle, ClientRegistry registry, ParamReader params, String authorization) {
+        ClientRegistration client;
+        try {
+            client = ClientAuthentication.lookupClient(registry, params, authorization);
+        } catch (InvalidRequestException e) {
+            return Outcome.failure(ClientAuthentication.getFailureStatus(e), e.getErrorResponse());
+        }
+
+        return tryParse(bundle, client, params, authorization);
     }
 
     private @NotNull GrantType parseGrantType(ParamReader params) throws InvalidRequestException {
         String grantType = Throw.whenNull(params.maybeExtractSingletonParam(PARAM_GRANT_TYPE),
                 () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "missing 'grant_type'"));
 
-        return Throw.insteadOf(IllegalArgumentException.class,
-                () -> Objects.requireNonNull(mapper.convertValue(grantType, GrantType.class)),
+        return Throw.whenNull(GrantType.fromValue(grantType),
                 () -> new InvalidRequestException(ErrorResponse.DESC_UNSUPPORTED_GRANT_TYPE, "unsupported grant type '" + grantType + "'"));
     }
 
-    // FIXME client???
-    private TokenRequest parseRequest(AuthorizationAuthority verifier, ClientRegistration client, ParamReader params) throws InvalidRequestException {
+    // By now `client` has authenticated (if it has a secret), and `params` names it in `client_id`. Each grant checks
+    // that what it redeems was issued to that client.
+    private TokenRequest parseRequest(IssuerBundle verifier, ClientRegistration client, ParamReader params) throws InvalidRequestException {
         GrantType grantType = parseGrantType(params);
 
-        // TODO: Once we implement 'client_credentials'(?) grant note from spec:
-        //     *  ensure that the authorization code was issued to the authenticated
-        //        confidential or credentialed client
-
         switch (grantType) {
             case AUTHORIZATION_CODE:
-                return new GrantAuthorizationCodeParser().parseRequest(verifier, params);
+                return GRANT_AUTHORIZATION_CODE_PARSER.parseRequest(verifier, params);
             case CLIENT_CREDENTIALS:
-                return new GrantClientCredentialsParser().parseRequest(params);
+                return GRANT_CLIENT_CREDENTIALS_PARSER.parseRequest(client, params);
+            case REFRESH_TOKEN:
+                return GRANT_REFRESH_TOKEN_PARSER.parseRequest(verifier, params);
+            case DEVICE_CODE:
+                return GRANT_DEVICE_CODE_PARSER.parseRequest(verifier.getDeviceAuthorization(), client, params);
             default:
                 throw new UnsupportedOperationException();
         }
@@ -76,16 +216,15 @@ public class TokenRequestParser {
                 () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_GRANT, "mismatched 'client_id' with authorization code"));
     }
 
-    private static void checkScopes(ParamReader params, Collection<String> authorizedScopes) throws InvalidRequestException {
-        Optional<List<String>> scopes = Optional.ofNullable(params.maybeExtractSingletonParam(PARAM_SCOPE))
-                .map(str -> Arrays.asList(str.split(" ")));
-        if (scopes.isEmpty()) {
+    private static void checkScopes(ParamReader params, ScopeSet authorizedScopes) throws InvalidRequestException {
+        String strScopes = params.maybeExtractSingletonParam(PARAM_SCOPE);
+        if (strScopes == null) {
             return;
         }
 
         // If a `scope` parameter was provided at this step, make sure it is a subset of the scopes which were
         // assigned to the previously issued authorization code.
-        Throw.whenNot(CollectionUtils.isEqualCollection(scopes.get(), authorizedScopes), () ->
+        Throw.whenNot(ScopeSet.parse(strScopes).equals(authorizedScopes), () ->
                 new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "requesting a scope not originally authorized"));
     }
 
@@ -124,8 +263,7 @@ public class TokenRequestParser {
             Throw.whenNull(pkceInfo,
                     () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "missing 'code_challenge' from authorization"));
 
-            String localCodeChallenge = pkceInfo.getMethod().calculateChallenge(codeVerifier);
-            Throw.whenNot(localCodeChallenge.equals(pkceInfo.getChallenge()),
+            Throw.whenNot(pkceInfo.verify(codeVerifier),
                     () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_REQUEST, "code challenge validation failed"));
         }
 
@@ -136,7 +274,7 @@ public class TokenRequestParser {
                     () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_GRANT, "invalid code"));
 
             checkClientId(params, order.getSpec().getClientId());
-            checkScopes(params, order.getSpec().getScopes());
+            checkScopes(params, order.getSpec().getScopeSet());
             checkRedirectUri(params, order.isRedirectUriProvided(), order.getRedirectUri());
             checkPkce(params, order.getPkceInfo());
 
@@ -150,12 +288,15 @@ public class TokenRequestParser {
         }
 
         private static List<String> parseScopes(ParamReader params) throws InvalidRequestException {
-            return Optional.ofNullable(params.maybeExtractSingletonParam(PARAM_SCOPE))
-                    .map(str -> List.of(str.split(" ")))
-                    .orElse(null);
+            String strScopes = params.maybeExtractSingletonParam(PARAM_SCOPE);
+            return strScopes == null ? null : ScopeSet.parse(strScopes).toList();
         }
 
-        public TokenRequest parseRequest(ParamReader params) throws InvalidRequestException {
+        // SPEC NOTE: The client credentials grant MUST only be used by confidential clients (RFC 6749 section 4.4).
+        public TokenRequest parseRequest(ClientRegistration client, ParamReader params) throws InvalidRequestException {
+            Throw.whenNot(ClientAuthentication.isConfidential(client),
+                    () -> new InvalidRequestException(ErrorResponse.DESC_UNAUTHORIZED_CLIENT, "'client_credentials' grant requires a confidential client"));
+
             String clientId = params.extractSingletonParam(PARAM_CLIENT_ID);
             List<String> scopes = parseScopes(params);
 
@@ -168,16 +309,64 @@ public class TokenRequestParser {
         private GrantRefreshTokenParser() {
         }
 
+        // SPEC NOTE: If a `scope` parameter is provided it may narrow, but not widen, the scopes originally authorized.
+        private static ScopeSet parseNarrowedScopes(ParamReader params, ScopeSet authorizedScopes) throws InvalidRequestException {
+            String strScopes = params.maybeExtractSingletonParam(PARAM_SCOPE);
+            if (strScopes == null) {
+                return authorizedScopes;
+            }
+
+            ScopeSet scopes = ScopeSet.parse(strScopes);
+            Throw.whenNot(authorizedScopes.containsAll(scopes), () ->
+                    new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "requesting a scope not originally authorized"));
+
+            return scopes;
+        }
+
         public TokenRequest parseRequest(AuthorizationAuthority verifier, ParamReader params) throws InvalidRequestException {
-            RefreshTokenPayload token = new RefreshTokenPayload(params.extractSingletonParam(PARAM_CODE));
+            RefreshTokenPayload token = new RefreshTokenPayload(params.extractSingletonParam(PARAM_REFRESH_TOKEN));
+            // Note that this spends the token even if the request is rejected below, after which the client must obtain
+            // a new authorization. This is deliberate: the token has been presented by a misbehaving party.
             UserAuthorization order = verifier.readAndVerifyRefreshToken(token);
             Throw.whenNull(order,
-                    () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_GRANT, "invalid code"));
+                    () -> new InvalidRequestException(ErrorResponse.DESC_INVALID_GRANT, "invalid refresh token"));
+
+            checkClientId(params, order.getSpec().getClientId());
+            ScopeSet scopes = parseNarrowedScopes(params, order.getSpec().getScopeSet());
+
+            return new TokenRequest.RefreshToken(order, token, scopes);
+        }
+    }
+
+    private static class GrantDeviceCodeParser {
+
+        private GrantDeviceCodeParser() {
+        }
 
-            checkClientId(params, order);
-            checkScopes(params, order);
+        private static void checkPermitted(DeviceAuthorizationAuthority device, ClientRegistration client) throws InvalidRequestException {
+            Throw.whenNull(device,
+                    () -> new InvalidRequestException(ErrorResponse.DESC_UNSUPPORTED_GRANT_TYPE, "unsupported grant type '" + GrantType.DEVICE_CODE.getValue() + "'"));
+            Throw.when(client.getDeviceCodeLifetimeSeconds() <= 0,
+                    () -> new InvalidRequestException(ErrorResponse.DESC_UNAUTHORIZED_CLIENT, "device authorization grant not permitted for client"));
+        }
+
+        public TokenRequest parseRequest(DeviceAuthorizationAuthority device, ClientRegistration client, ParamReader params) throws InvalidRequestException {
+            checkPermitted(device, client);
+
+            String clientId = params.extractSingletonParam(PARAM_CLIENT_ID);
+            String deviceCode = params.extractSingletonParam(PARAM_DEVICE_CODE);
+
+            // Throws `authorization_pending` and friends, which the client expects while the user decides.
+            return new TokenRequest.DeviceCode(device.poll(clientId, deviceCode));
+        }
+
+        public CompletionStage<TokenRequest> parseRequestAsync(DeviceAuthorizationAuthority device, ClientRegistration client, ParamReader params) throws InvalidRequestException {
+            checkPermitted(device, client);
+
+            String clientId = params.extractSingletonParam(PARAM_CLIENT_ID);
+            String deviceCode = params.extractSingletonParam(PARAM_DEVICE_CODE);
 
-            return new TokenRequest.RefreshToken(order);
+            return device.pollAsync(clientId, deviceCode).thenApply(TokenRequest.DeviceCode::new);
         }
     }
 }
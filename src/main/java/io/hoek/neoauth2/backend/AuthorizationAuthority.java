@@ -14,7 +14,27 @@ public interface AuthorizationAuthority {
     // Returns `null` if the code is invalid.
     UserAuthorization readAndVerifyAuthorizationCode(AuthorizationCodePayload payload);
 
-    UserAuthorization readAndVerifyRefreshToken(RefreshTokenPayload token);
+    // Returns `null` if this authority does not issue refresh tokens.
+    default RefreshTokenPayload issueRefreshToken(UserAuthorization order, Instant expiry) {
+        return null;
+    }
+
+    // Returns `null` if the token is invalid. Refresh tokens are single use: a token is spent once it has been verified,
+    // and is replaced by `rotateRefreshToken()`.
+    default UserAuthorization readAndVerifyRefreshToken(RefreshTokenPayload token) {
+        return null;
+    }
+
+    // Issues the successor of `token`, which has just been verified by `readAndVerifyRefreshToken()`. Returns `null` if
+    // the token has been revoked in the meantime.
+    default RefreshTokenPayload rotateRefreshToken(RefreshTokenPayload token, Instant expiry) {
+        return null;
+    }
+
+    // Undoes the spending of `token`, which has just been verified by `readAndVerifyRefreshToken()` but not rotated, so
+    // that it may be presented again. Does nothing if the token has been revoked in the meantime.
+    default void restoreRefreshToken(RefreshTokenPayload token) {
+    }
 
     class Disabled implements AuthorizationAuthority {
 
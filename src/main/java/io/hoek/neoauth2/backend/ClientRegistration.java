@@ -1,5 +1,7 @@
 package io.hoek.neoauth2.backend;
 
+import io.hoek.neoauth2.model.ScopeSet;
+
 import javax.validation.constraints.NotNull;
 import java.net.URI;
 import java.util.Collection;
@@ -15,11 +17,31 @@ public interface ClientRegistration {
 
     Collection<URI> getAllowedRedirectUris();
 
+    // A token which changes (by `equals()`) whenever `getAllowedRedirectUris()` does, so that the redirect URIs need
+    // only be indexed once per version. Returns `null` (the default) if the client doesn't track versions, in which case
+    // they are indexed afresh on every request.
+    default Object getAllowedRedirectUrisVersion() {
+        return null;
+    }
+
     // Returns null if validation of the scopes fails.
     String validateScopesAndGetAudience(@NotNull List<String> scopes);
 
-    // SPEC NOTE: Expiry should be less than 10 min.
-    default @NotNull String getClientSecret() {
+    // Returns null if validation of the scopes fails. Implementations should override this if they can make use of
+    // `ScopeSet`'s cheap set operations.
+    default String validateScopesAndGetAudience(@NotNull ScopeSet scopes) {
+        return validateScopesAndGetAudience(scopes.toList());
+    }
+
+    // Confidential clients must authenticate at the token endpoint with the secret returned by this method, or the one
+    // hashed by `getClientSecretHash()`, which takes precedence. Returns `null` for public clients.
+    default String getClientSecret() {
+        return null;
+    }
+
+    // A hash of the client's secret, as made by `ClientSecretHash.hash()`. Prefer this to `getClientSecret()`, so that
+    // the secret itself need not be stored.
+    default String getClientSecretHash() {
         return null;
     }
 
@@ -29,4 +51,16 @@ public interface ClientRegistration {
     }
 
     long getAccessTokenLifetimeSeconds();
+
+    // Refresh tokens are only issued to the client if this is positive (and the `AuthorizationAuthority` supports them).
+    default long getRefreshTokenLifetimeSeconds() {
+        return 0L;
+    }
+
+    // The device authorization grant is only available to the client if this is positive (and the `IssuerBundle` has a
+    // `DeviceAuthorizationAuthority`). SPEC NOTE: Device codes are held in a `DataStore`, so longer lifetimes than
+    // `DataStore.MAX_EXPIRES_IN_SECS` (10 min) are cut to that.
+    default long getDeviceCodeLifetimeSeconds() {
+        return 0L;
+    }
 }
@@ -0,0 +1,11 @@
+package io.hoek.neoauth2.backend;
+
+/**
+ * Resolves the {@code client_id} of a request to the registration of that client. The parsers call {@link #lookup}
+ * once per request, so implementations should be cheap and safe to call from any thread.
+ */
+public interface ClientRegistry {
+
+    // Returns null if there is no such client.
+    ClientRegistration lookup(String clientId);
+}
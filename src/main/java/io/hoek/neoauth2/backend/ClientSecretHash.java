@@ -0,0 +1,80 @@
+package io.hoek.neoauth2.backend;
+
+import io.hoek.neoauth2.internal.Hashing;
+import lombok.SneakyThrows;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.SecureRandom;
+
+/**
+ * Hashes client secrets for storage, see {@link ClientRegistration#getClientSecretHash()}. A hash has the form
+ * {@code pbkdf2-sha256$<iterations>$<salt>$<derived key>}, with the salt and key base64url-encoded, so the iteration
+ * count can be raised over time without invalidating the hashes already stored.
+ * <p>
+ * Verifying a hash deliberately takes tens of milliseconds. The token endpoint caches successful verifications for a
+ * few minutes, so only the first request of a client in that time pays for it.
+ */
+public final class ClientSecretHash {
+
+    // The OWASP recommendation for PBKDF2-HMAC-SHA256 as of 2023.
+    public static final int DEFAULT_ITERATIONS = 600_000;
+
+    private static final String ALGORITHM = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private ClientSecretHash() {
+    }
+
+    public static String hash(String secret) {
+        return hash(secret, DEFAULT_ITERATIONS);
+    }
+
+    public static String hash(String secret, int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive: " + iterations);
+        }
+
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+
+        return ALGORITHM + "$" + iterations + "$" + Hashing.encodeBase64Url(salt) + "$"
+                + Hashing.encodeBase64Url(derive(secret, salt, iterations, KEY_BITS));
+    }
+
+    // Returns `false` if `secret` does not match, or if `hash` is malformed.
+    public static boolean verify(String secret, String hash) {
+        String[] parts = hash.split("\\$", -1);
+        if (parts.length != 4 || !ALGORITHM.equals(parts[0])) {
+            return false;
+        }
+
+        int iterations;
+        try {
+            iterations = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        byte[] salt = Hashing.decodeBase64Url(parts[2]);
+        byte[] expected = Hashing.decodeBase64Url(parts[3]);
+        if (iterations < 1 || salt == null || expected == null || expected.length == 0) {
+            return false;
+        }
+
+        return Hashing.constantTimeEquals(derive(secret, salt, iterations, expected.length * 8), expected);
+    }
+
+    @SneakyThrows
+    private static byte[] derive(String secret, byte[] salt, int iterations, int keyBits) {
+        PBEKeySpec spec = new PBEKeySpec(secret.toCharArray(), salt, iterations, keyBits);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
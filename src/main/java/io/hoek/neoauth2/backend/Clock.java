@@ -0,0 +1,29 @@
+package io.hoek.neoauth2.backend;
+
+import java.time.Instant;
+
+/**
+ * The source of the current time for expiry calculations and checks. Unlike {@code java.time.Clock} the time is read
+ * as a plain {@code long}, so that checks on the request path need not allocate.
+ */
+public interface Clock {
+
+    Clock SYSTEM = System::currentTimeMillis;
+
+    static Clock system() {
+        return SYSTEM;
+    }
+
+    /**
+     * @return the current time in milliseconds since the epoch
+     */
+    long millis();
+
+    default Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+
+    default boolean isAfter(Instant instant) {
+        return millis() > instant.toEpochMilli();
+    }
+}
@@ -0,0 +1,27 @@
+package io.hoek.neoauth2.backend;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// A device authorization awaiting the user's decision, as shown to them on the verification page.
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceAuthorization {
+    private String deviceCode;
+    private String userCode;
+
+    private String clientId;
+    private List<String> scopes;
+
+    // Set once the user has decided: `authorization` if they approved, otherwise `denied`.
+    private UserAuthorization authorization;
+    private boolean denied;
+
+    public DeviceAuthorization withDecision(UserAuthorization authorization) {
+        return new DeviceAuthorization(deviceCode, userCode, clientId, scopes, authorization, authorization == null);
+    }
+}
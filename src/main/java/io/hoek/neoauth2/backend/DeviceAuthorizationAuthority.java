@@ -0,0 +1,38 @@
+package io.hoek.neoauth2.backend;
+
+import io.hoek.neoauth2.internal.InvalidRequestException;
+import io.hoek.neoauth2.model.DeviceAuthorizationPayload;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+// Implements the device authorization grant of RFC 8628, see `IssuerBundle.withDeviceAuthorization()`.
+public interface DeviceAuthorizationAuthority {
+
+    // The `scopes` have already been validated with the client.
+    DeviceAuthorizationPayload startDeviceAuthorization(String clientId, List<String> scopes, Instant expiry);
+
+    // For the verification page. Returns `null` if the user code is invalid, expired or already decided.
+    DeviceAuthorization lookupUserCode(String userCode);
+
+    // Records the user's decision, `null` meaning that they denied access. Returns `false` if the user code is invalid,
+    // expired or already decided.
+    boolean decide(String userCode, UserAuthorization authorization);
+
+    // Returns the authorization the user granted, at most once. Otherwise throws with the error the token endpoint
+    // should report: `authorization_pending`, `slow_down`, `access_denied`, `expired_token` or `invalid_grant`.
+    UserAuthorization poll(String clientId, String deviceCode) throws InvalidRequestException;
+
+    // Like `poll()`, but may wait for the user's decision instead of reporting `authorization_pending` at once, without
+    // blocking the calling thread. The stage completes exceptionally with the `InvalidRequestException` which `poll()`
+    // would throw.
+    default CompletionStage<UserAuthorization> pollAsync(String clientId, String deviceCode) {
+        try {
+            return CompletableFuture.completedFuture(poll(clientId, deviceCode));
+        } catch (InvalidRequestException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -5,15 +5,21 @@ import io.hoek.neoauth2.model.AuthorizationCodePayload;
 import io.hoek.neoauth2.model.RefreshTokenPayload;
 
 import java.time.Instant;
+import java.util.Objects;
 
 public final class IssuerBundle implements AuthorizationAuthority, AccessTokenIssuer {
 
     private final AuthorizationAuthority auth;
     private final AccessTokenIssuer access;
+    private final Clock clock;
+    // Optional, the device authorization grant is unsupported if this is `null`.
+    private final DeviceAuthorizationAuthority device;
 
-    private IssuerBundle(AuthorizationAuthority auth, AccessTokenIssuer access) {
+    private IssuerBundle(AuthorizationAuthority auth, AccessTokenIssuer access, Clock clock, DeviceAuthorizationAuthority device) {
         this.auth = auth;
         this.access = access;
+        this.clock = Objects.requireNonNull(clock);
+        this.device = device;
     }
 
     public static IssuerBundle withoutAuthorization(AccessTokenIssuer access) {
@@ -25,7 +31,25 @@ public final class IssuerBundle implements AuthorizationAuthority, AccessTokenIs
     }
 
     public static IssuerBundle with(AuthorizationAuthority auth, AccessTokenIssuer access) {
-        return new IssuerBundle(auth, access);
+        return new IssuerBundle(auth, access, Clock.system(), null);
+    }
+
+    // The clock should be shared with the `AuthorizationAuthority`, `AccessTokenIssuer` and any `DataStore`s in use.
+    public IssuerBundle withClock(Clock clock) {
+        return new IssuerBundle(auth, access, clock, device);
+    }
+
+    public IssuerBundle withDeviceAuthorization(DeviceAuthorizationAuthority device) {
+        return new IssuerBundle(auth, access, clock, device);
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    // Returns `null` if the device authorization grant is unsupported.
+    public DeviceAuthorizationAuthority getDeviceAuthorization() {
+        return device;
     }
 
     @Override
@@ -38,11 +62,26 @@ public final class IssuerBundle implements AuthorizationAuthority, AccessTokenIs
         return auth.readAndVerifyAuthorizationCode(payload);
     }
 
+    @Override
+    public RefreshTokenPayload issueRefreshToken(UserAuthorization order, Instant expiry) {
+        return auth.issueRefreshToken(order, expiry);
+    }
+
     @Override
     public UserAuthorization readAndVerifyRefreshToken(RefreshTokenPayload payload) {
         return auth.readAndVerifyRefreshToken(payload);
     }
 
+    @Override
+    public RefreshTokenPayload rotateRefreshToken(RefreshTokenPayload token, Instant expiry) {
+        return auth.rotateRefreshToken(token, expiry);
+    }
+
+    @Override
+    public void restoreRefreshToken(RefreshTokenPayload token) {
+        auth.restoreRefreshToken(token);
+    }
+
     @Override
     public AccessTokenPayload issueAccessToken(AccessTokenOrder order) {
         return access.issueAccessToken(order);
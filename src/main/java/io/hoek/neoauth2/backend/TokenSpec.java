@@ -1,18 +1,20 @@
 package io.hoek.neoauth2.backend;
 
-import com.google.common.collect.Streams;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.hoek.neoauth2.internal.InvalidRequestException;
 import io.hoek.neoauth2.model.ErrorResponse;
-import lombok.AllArgsConstructor;
+import io.hoek.neoauth2.model.ScopeSet;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.Objects;
 
 @Getter
-@AllArgsConstructor
 @NoArgsConstructor
 public class TokenSpec {
     // FIXME FIXME How to make final?
@@ -21,27 +23,81 @@ public class TokenSpec {
     private List<String> scopes;
     private Map<String, String> claims;
 
-    @SuppressWarnings("unchecked")
+    // Derived from `scopes` on demand.
+    @Getter(AccessLevel.NONE)
+    private ScopeSet scopeSet;
+
+    public TokenSpec(String clientId, List<String> scopes, Map<String, String> claims) {
+        this.clientId = clientId;
+        this.scopes = scopes;
+        this.claims = claims;
+    }
+
+    private TokenSpec(String clientId, ScopeSet scopes, Map<String, String> claims) {
+        this(clientId, scopes.toList(), claims);
+
+        this.scopeSet = scopes;
+    }
+
+    @JsonIgnore
+    public ScopeSet getScopeSet() {
+        if (scopeSet == null) {
+            scopeSet = ScopeSet.of(scopes);
+        }
+
+        return scopeSet;
+    }
+
+    // Returns a copy of this spec with its claims replaced.
+    public TokenSpec withClaims(Map<String, String> claims) {
+        return new TokenSpec(clientId, getScopeSet(), claims);
+    }
+
+    // Returns a copy of this spec narrowed to `scopes`, which the client has validated to obtain `aud`.
+    public TokenSpec withScopes(ScopeSet scopes, String aud) {
+        Map<String, String> narrowed = new HashMap<>(claims);
+        narrowed.put("aud", Objects.requireNonNull(aud));
+        return new TokenSpec(clientId, scopes, Collections.unmodifiableMap(narrowed));
+    }
+
     public static TokenSpec from(ClientRegistration client, UserRegistration user, String clientId, List<String> scopes, String nonce) throws InvalidRequestException {
+        return from(client, user, clientId, ScopeSet.of(scopes), nonce);
+    }
+
+    public static TokenSpec from(ClientRegistration client, UserRegistration user, String clientId, ScopeSet scopes, String nonce) throws InvalidRequestException {
         String aud = client.validateScopesAndGetAudience(scopes);
         if (aud == null) {
             throw new InvalidRequestException(ErrorResponse.DESC_INVALID_SCOPE, "scopes not authorized");
         }
 
-        return new TokenSpec(clientId, scopes,
-                Map.ofEntries(
-                        Streams.concat(
-                                Stream.of(
-                                        Map.entry("aud", aud),
-                                        Map.entry("sub", user.getSub())),
-                                // SPEC NOTE: Nonstandard OIDC extension
-                                nonce == null
-                                        ? Stream.of() : Stream.of(Map.entry("nonce", nonce)),
-                                // Custom claims:
-                                user.getGroups().isEmpty()
-                                        ? Stream.of() : Stream.of("groups", String.join(" ", user.getGroups())),
-                                user.getCustomClaims().isEmpty()
-                                        ? Stream.of() : user.getCustomClaims().entrySet().stream()
-                        ).toArray(Map.Entry[]::new)));
+        return withAudience(user, clientId, scopes, aud, nonce);
+    }
+
+    // For callers which have already validated `scopes` with the client, obtaining `aud`.
+    public static TokenSpec withAudience(UserRegistration user, String clientId, ScopeSet scopes, String aud, String nonce) {
+        Map<String, String> customClaims = user.getCustomClaims();
+
+        Map<String, String> claims = new HashMap<>();
+        putClaim(claims, "aud", aud);
+        putClaim(claims, "sub", user.getSub());
+        // SPEC NOTE: Nonstandard OIDC extension
+        if (nonce != null) {
+            putClaim(claims, "nonce", nonce);
+        }
+        // Custom claims:
+        if (!user.getGroups().isEmpty()) {
+            putClaim(claims, "groups", String.join(" ", user.getGroups()));
+        }
+        for (Map.Entry<String, String> claim : customClaims.entrySet()) {
+            putClaim(claims, claim.getKey(), claim.getValue());
+        }
+
+        return new TokenSpec(clientId, scopes, Collections.unmodifiableMap(claims));
+    }
+
+    private static void putClaim(Map<String, String> claims, String name, String value) {
+        if (claims.put(name, Objects.requireNonNull(value)) != null) {
+            throw new IllegalArgumentException("duplicate claim: " + name);
+        }
     }
 }
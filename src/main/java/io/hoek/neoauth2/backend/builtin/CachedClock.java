@@ -0,0 +1,50 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A coarse-grained {@code Clock} which reads a cached time, refreshed every {@code resolution} by a background daemon
+ * thread. Reading the time is then a single volatile load. Expiry checks in this library are all at a granularity of
+ * seconds, so a resolution of a few milliseconds is sufficient.
+ */
+public final class CachedClock implements Clock, AutoCloseable {
+
+    public static final Duration DEFAULT_RESOLUTION = Duration.ofMillis(10);
+
+    private final ScheduledExecutorService ticker;
+    private volatile long now = System.currentTimeMillis();
+
+    public CachedClock() {
+        this(DEFAULT_RESOLUTION);
+    }
+
+    public CachedClock(Duration resolution) {
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "neoauth2-clock-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        long period = resolution.toMillis();
+        if (period <= 0) {
+            throw new IllegalArgumentException("resolution must be at least 1ms");
+        }
+
+        ticker.scheduleAtFixedRate(() -> now = System.currentTimeMillis(), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,156 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.Clock;
+import io.hoek.neoauth2.backend.UserRegistration;
+import io.hoek.neoauth2.model.ScopeSet;
+import io.hoek.util.function.Throw;
+
+import javax.validation.constraints.NotNull;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a {@code ClientRegistration} whose scope validation is expensive (e.g. because it consults a policy service),
+ * remembering the audience (or rejection) for each set of scopes for a bounded time. Scope sets which differ only in
+ * order or duplicates share an entry. All other methods are passed through.
+ * <p>
+ * If the wrapped client is also a {@code UserRegistration} then so is the wrapper, so that the {@code
+ * client_credentials} grant keeps working.
+ */
+public class CachingClientRegistration implements ClientRegistration {
+
+    private final ClientRegistration delegate;
+    private final Cache<ScopeSet, Optional<String>> audiences;
+
+    private CachingClientRegistration(ClientRegistration delegate, Duration ttl, long maximumSize, Clock clock) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.audiences = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+                .maximumSize(maximumSize)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                    }
+                })
+                .build();
+    }
+
+    public static CachingClientRegistration wrap(ClientRegistration delegate, Duration ttl, long maximumSize) {
+        return wrap(delegate, ttl, maximumSize, Clock.system());
+    }
+
+    public static CachingClientRegistration wrap(ClientRegistration delegate, Duration ttl, long maximumSize, Clock clock) {
+        if (delegate instanceof UserRegistration) {
+            return new WithUser(delegate, ttl, maximumSize, clock);
+        }
+
+        return new CachingClientRegistration(delegate, ttl, maximumSize, clock);
+    }
+
+    public ClientRegistration getDelegate() {
+        return delegate;
+    }
+
+    public void invalidate(ScopeSet scopes) {
+        audiences.invalidate(scopes);
+    }
+
+    public void invalidateAll() {
+        audiences.invalidateAll();
+    }
+
+    @Override
+    public List<String> getDefaultScopes() {
+        return delegate.getDefaultScopes();
+    }
+
+    @Override
+    public @NotNull Collection<URI> getAllowedRedirectUris() {
+        return delegate.getAllowedRedirectUris();
+    }
+
+    @Override
+    public Object getAllowedRedirectUrisVersion() {
+        return delegate.getAllowedRedirectUrisVersion();
+    }
+
+    // Returns null if validation of the scopes fails.
+    @Override
+    public String validateScopesAndGetAudience(@NotNull List<String> scopes) {
+        return validateScopesAndGetAudience(ScopeSet.of(scopes));
+    }
+
+    // Returns null if validation of the scopes fails.
+    @Override
+    public String validateScopesAndGetAudience(@NotNull ScopeSet scopes) {
+        return Throw.asRuntime(() -> audiences.get(scopes,
+                () -> Optional.ofNullable(delegate.validateScopesAndGetAudience(scopes)))).orElse(null);
+    }
+
+    @Override
+    public String getClientSecret() {
+        return delegate.getClientSecret();
+    }
+
+    @Override
+    public String getClientSecretHash() {
+        return delegate.getClientSecretHash();
+    }
+
+    @Override
+    public long getAuthorizationCodeLifetimeSeconds() {
+        return delegate.getAuthorizationCodeLifetimeSeconds();
+    }
+
+    @Override
+    public long getAccessTokenLifetimeSeconds() {
+        return delegate.getAccessTokenLifetimeSeconds();
+    }
+
+    @Override
+    public long getRefreshTokenLifetimeSeconds() {
+        return delegate.getRefreshTokenLifetimeSeconds();
+    }
+
+    @Override
+    public long getDeviceCodeLifetimeSeconds() {
+        return delegate.getDeviceCodeLifetimeSeconds();
+    }
+
+    private static final class WithUser extends CachingClientRegistration implements UserRegistration {
+
+        private final UserRegistration user;
+
+        private WithUser(ClientRegistration delegate, Duration ttl, long maximumSize, Clock clock) {
+            super(delegate, ttl, maximumSize, clock);
+
+            this.user = (UserRegistration) delegate;
+        }
+
+        @Override
+        public String getSub() {
+            return user.getSub();
+        }
+
+        @Override
+        public List<String> getGroups() {
+            return user.getGroups();
+        }
+
+        @Override
+        public Map<String, String> getCustomClaims() {
+            return user.getCustomClaims();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.AccessTokenIssuer;
+import io.hoek.neoauth2.backend.AccessTokenOrder;
+import io.hoek.neoauth2.backend.Clock;
+import io.hoek.neoauth2.backend.TokenSpec;
+import io.hoek.neoauth2.model.AccessTokenPayload;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Wraps an {@code AccessTokenIssuer}, bounding the size of the claims taken from each token's {@code TokenSpec} (e.g. a
+ * {@code groups} claim listing thousands of groups). If the claims of a spec are over budget, the largest of them are
+ * moved to a {@code ClaimOverflowStore} and replaced with a {@value #CLAIM_OVERFLOW_REFERENCE} claim referencing them.
+ * The {@code aud}, {@code sub} and {@code nonce} claims are never moved.
+ * <p>
+ * Sizes are measured in characters of the claim names and values, plus a few for the JSON punctuation of each claim;
+ * escaping is not accounted for.
+ */
+public class ClaimBudgetAccessTokenIssuer implements AccessTokenIssuer {
+
+    public static final String CLAIM_OVERFLOW_REFERENCE = "claims_ref";
+
+    private static final Set<String> PINNED = Set.of("aud", "sub", "nonce");
+
+    // The quotes around the name and value, the colon and the comma.
+    private static final int CLAIM_OVERHEAD = 6;
+
+    // Assuming a reference as long as those of `MemoryClaimOverflowStore`.
+    private static final int REFERENCE_SIZE = CLAIM_OVERFLOW_REFERENCE.length() + 22 + CLAIM_OVERHEAD;
+
+    private static final Comparator<Map.Entry<String, String>> BY_SIZE =
+            Comparator.<Map.Entry<String, String>>comparingInt(ClaimBudgetAccessTokenIssuer::size)
+                    .thenComparing(Map.Entry::getKey);
+
+    private final AccessTokenIssuer delegate;
+    private final int maxClaimsSize;
+    private final ClaimOverflowStore store;
+    private final Clock clock;
+
+    private ClaimBudgetAccessTokenIssuer(AccessTokenIssuer delegate, int maxClaimsSize, ClaimOverflowStore store, Clock clock) {
+        if (maxClaimsSize <= 0) {
+            throw new IllegalArgumentException("claim budget must be positive");
+        }
+
+        this.delegate = Objects.requireNonNull(delegate);
+        this.maxClaimsSize = maxClaimsSize;
+        this.store = Objects.requireNonNull(store);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    public static ClaimBudgetAccessTokenIssuer wrap(AccessTokenIssuer delegate, int maxClaimsSize, ClaimOverflowStore store) {
+        return wrap(delegate, maxClaimsSize, store, Clock.system());
+    }
+
+    public static ClaimBudgetAccessTokenIssuer wrap(AccessTokenIssuer delegate, int maxClaimsSize, ClaimOverflowStore store, Clock clock) {
+        return new ClaimBudgetAccessTokenIssuer(delegate, maxClaimsSize, store, clock);
+    }
+
+    public AccessTokenIssuer getDelegate() {
+        return delegate;
+    }
+
+    private static int size(Map.Entry<String, String> claim) {
+        return claim.getKey().length() + claim.getValue().length() + CLAIM_OVERHEAD;
+    }
+
+    // Returns `claims` itself if no claims have to be moved.
+    Map<String, String> applyBudget(Map<String, String> claims, Instant expiry) {
+        int total = 0;
+        for (Map.Entry<String, String> claim : claims.entrySet()) {
+            total += size(claim);
+        }
+
+        if (total <= maxClaimsSize) {
+            return claims;
+        }
+
+        Map<String, String> kept = new HashMap<>();
+        List<Map.Entry<String, String>> movable = new ArrayList<>();
+        int remaining = maxClaimsSize - REFERENCE_SIZE;
+        for (Map.Entry<String, String> claim : claims.entrySet()) {
+            if (PINNED.contains(claim.getKey())) {
+                kept.put(claim.getKey(), claim.getValue());
+                remaining -= size(claim);
+            } else {
+                movable.add(claim);
+            }
+        }
+
+        // Keep as many claims as fit, smallest first, so that the fewest claims have to be looked up.
+        movable.sort(BY_SIZE);
+        Map<String, String> overflow = new HashMap<>();
+        for (Map.Entry<String, String> claim : movable) {
+            if (size(claim) <= remaining) {
+                kept.put(claim.getKey(), claim.getValue());
+                remaining -= size(claim);
+            } else {
+                overflow.put(claim.getKey(), claim.getValue());
+            }
+        }
+
+        // Only the pinned claims are over budget, and there is nothing we can do about them.
+        if (overflow.isEmpty()) {
+            return claims;
+        }
+
+        kept.put(CLAIM_OVERFLOW_REFERENCE, store.put(overflow, expiry));
+        return kept;
+    }
+
+    @Override
+    public AccessTokenPayload issueAccessToken(AccessTokenOrder order) {
+        TokenSpec spec = order.getSpec();
+        Instant expiry = Instant.ofEpochMilli(clock.millis()).plusSeconds(order.getExpiresInSecs());
+
+        Map<String, String> claims = applyBudget(spec.getClaims(), expiry);
+        if (claims != spec.getClaims()) {
+            order = new AccessTokenOrder(spec.withClaims(claims), order.getExpiresInSecs());
+        }
+
+        return delegate.issueAccessToken(order);
+    }
+}
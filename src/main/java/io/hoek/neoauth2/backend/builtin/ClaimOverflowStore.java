@@ -0,0 +1,39 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the claims which did not fit in the budget of an access token, see {@code ClaimBudgetAccessTokenIssuer}. The
+ * token carries only a short reference to them, which resource servers resolve through {@link #get} or, for many tokens
+ * at once, {@link #getAll} (e.g. behind a userinfo-style endpoint).
+ * <p>
+ * Implementations must be safe to call concurrently.
+ */
+public interface ClaimOverflowStore {
+
+    /**
+     * @param claims the claims to store
+     * @param expiry the claims must be kept at least until this time, the expiry of the token referencing them
+     * @return a short, unguessable, URL-safe reference to the claims
+     */
+    String put(Map<String, String> claims, Instant expiry);
+
+    // Returns null if there are no claims with the given reference, or they have expired.
+    Map<String, String> get(String reference);
+
+    // Omits from the result any references for which `get()` would return null.
+    default Map<String, Map<String, String>> getAll(Collection<String> references) {
+        Map<String, Map<String, String>> result = new HashMap<>();
+        for (String reference : references) {
+            Map<String, String> claims = get(reference);
+            if (claims != null) {
+                result.put(reference, claims);
+            }
+        }
+
+        return result;
+    }
+}
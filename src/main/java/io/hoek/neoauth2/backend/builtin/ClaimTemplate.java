@@ -0,0 +1,107 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.hoek.neoauth2.model.ScopeSet;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The claims of an access token which are the same for every token issued to a client for one audience and set of
+ * scopes, serialized once as the start of a JSON object. Rendering a token's claims then only has to append the claims
+ * which vary per token: {@code jti}, {@code iat}, {@code nbf}, {@code exp}, and the subject's claims from its {@code
+ * TokenSpec} ({@code sub}, and maybe {@code nonce}, {@code groups} or custom claims).
+ * <p>
+ * The claims set by the issuer take precedence: a spec claim with any of their names is not rendered.
+ */
+final class ClaimTemplate {
+
+    static final String CLAIM_ISSUER = "iss";
+    static final String CLAIM_AUDIENCE = "aud";
+    static final String CLAIM_JWT_ID = "jti";
+    static final String CLAIM_ISSUED_AT = "iat";
+    static final String CLAIM_NOT_BEFORE = "nbf";
+    static final String CLAIM_EXPIRATION_TIME = "exp";
+
+    static final Set<String> RESERVED = Set.of(
+            CLAIM_ISSUER, CLAIM_AUDIENCE, Rfc9068JwtAccessTokenIssuer.CLAIM_CLIENT_ID,
+            Rfc9068JwtAccessTokenIssuer.CLAIM_SCOPE, CLAIM_JWT_ID, CLAIM_ISSUED_AT, CLAIM_NOT_BEFORE,
+            CLAIM_EXPIRATION_TIME);
+
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    // An opening brace followed by the static claims, without a trailing comma or closing brace.
+    private final byte[] prefix;
+    private final boolean empty;
+
+    private ClaimTemplate(byte[] prefix, boolean empty) {
+        this.prefix = prefix;
+        this.empty = empty;
+    }
+
+    // Any of the arguments may be null, in which case that claim is left out.
+    static ClaimTemplate compile(String issuer, String clientId, String audience, ScopeSet scopes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write('{');
+
+        boolean empty = true;
+        empty &= !writeClaim(out, empty, CLAIM_ISSUER, issuer);
+        empty &= !writeClaim(out, empty, Rfc9068JwtAccessTokenIssuer.CLAIM_CLIENT_ID, clientId);
+        empty &= !writeClaim(out, empty, CLAIM_AUDIENCE, audience);
+        empty &= !writeClaim(out, empty, Rfc9068JwtAccessTokenIssuer.CLAIM_SCOPE, scopes == null ? null : scopes.toString());
+
+        return new ClaimTemplate(out.toByteArray(), empty);
+    }
+
+    byte[] render(String jwtId, long issuedAt, long notBefore, long expirationTime, Map<String, String> claims) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(prefix.length + 128 + 64 * claims.size());
+        out.writeBytes(prefix);
+
+        writeClaim(out, empty, CLAIM_JWT_ID, Objects.requireNonNull(jwtId));
+        writeNumericClaim(out, CLAIM_ISSUED_AT, issuedAt);
+        writeNumericClaim(out, CLAIM_NOT_BEFORE, notBefore);
+        writeNumericClaim(out, CLAIM_EXPIRATION_TIME, expirationTime);
+
+        for (Map.Entry<String, String> claim : claims.entrySet()) {
+            if (!RESERVED.contains(claim.getKey())) {
+                writeClaim(out, false, claim.getKey(), claim.getValue());
+            }
+        }
+
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private static void writeName(ByteArrayOutputStream out, boolean first, String name) {
+        if (!first) {
+            out.write(',');
+        }
+
+        out.write('"');
+        out.writeBytes(ENCODER.quoteAsUTF8(name));
+        out.write('"');
+        out.write(':');
+    }
+
+    // Returns whether the claim was written, i.e. whether `value` was not null.
+    private static boolean writeClaim(ByteArrayOutputStream out, boolean first, String name, String value) {
+        if (value == null) {
+            return false;
+        }
+
+        writeName(out, first, name);
+        out.write('"');
+        out.writeBytes(ENCODER.quoteAsUTF8(value));
+        out.write('"');
+        return true;
+    }
+
+    // Always follows the `jti`, so is never the first claim.
+    private static void writeNumericClaim(ByteArrayOutputStream out, String name, long value) {
+        writeName(out, false, name);
+        out.writeBytes(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+    }
+}
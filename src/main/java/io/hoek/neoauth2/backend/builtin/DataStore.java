@@ -1,5 +1,6 @@
 package io.hoek.neoauth2.backend.builtin;
 
+import io.hoek.neoauth2.backend.Clock;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.With;
@@ -7,6 +8,10 @@ import lombok.With;
 import java.time.Instant;
 
 public interface DataStore<T> {
+
+    // SPEC NOTE: Authorization codes should expire in less than 10 min, so there is never any need to keep them longer.
+    long MAX_EXPIRES_IN_SECS = 10 * 60;
+
     /**
      * Returns an {@code Entry} previously assigned to {@code key} or {@code null} if no such value exists/the value has
      * expired. The returned {@code Entry}'s access count is updated and is {@code AccessCount.SUBSEQUENT} upon all
@@ -19,13 +24,13 @@ public interface DataStore<T> {
      * @param key the key to look up in the store
      * @return an {@code Entry} representing the value assigned to {@code key}
      */
-    default Entry get(String key) {
-        Entry e = getUncheckedExpiry(key);
+    default Entry<T> get(String key) {
+        Entry<T> e = getUncheckedExpiry(key);
         if (e == null) {
             return null;
         }
 
-        if (e.getExpiry().isBefore(Instant.now())) {
+        if (getClock().isAfter(e.getExpiry())) {
             remove(key);
             return null;
         }
@@ -44,33 +49,82 @@ public interface DataStore<T> {
      * @param key the key to look up in the store
      * @return a {@code Hit} representing the value assigned to {@code key}
      */
-    Entry getUncheckedExpiry(String key);
+    Entry<T> getUncheckedExpiry(String key);
 
     /**
      * @param key   the key to use
      * @param value the value to assign to the {@code key}, but {@code value} may be deleted earlier if
      *              {@code value.getExpiry()} is more than {@code DataStore.MAX_EXPIRES_IN_SECS} seconds in the future
      */
-    void put(String key, Entry value);
+    void put(String key, Entry<T> value);
 
     /**
      * @param key the key to remove
      */
     void remove(String key);
 
+    /**
+     * @return the {@code Clock} against which the expiry of entries is checked
+     */
+    default Clock getClock() {
+        return Clock.system();
+    }
+
+    /**
+     * Returns a view of a {@code DataStore} which holds values in their encoded form, translating every value through
+     * {@code codec}. This is the way to plug a value type into a store which can only hold strings (e.g. because it is
+     * shared between multiple authorization server instances); in-process stores should hold values directly instead.
+     *
+     * @param store the underlying store of encoded values
+     * @param codec the codec used to translate values to and from their encoded form
+     * @return a {@code DataStore} of decoded values
+     */
+    static <T, E> DataStore<T> encoded(DataStore<E> store, Codec<T, E> codec) {
+        return new EncodedDataStore<>(store, codec);
+    }
+
+    /**
+     * Returns a view of a {@code DataStore} holding only the keys which start with {@code namespace + ":"}, with that
+     * prefix stripped. This is the way for many tenants to share one store: the views of different namespaces never
+     * see each other's keys, and since the entries live in the shared store, a view may be dropped and recreated (e.g.
+     * when an idle tenant is evicted) without losing them.
+     *
+     * @param store     the underlying store shared by all namespaces
+     * @param namespace the namespace of this view, which must not contain {@code ":"}
+     * @return a {@code DataStore} of the keys in {@code namespace}
+     */
+    static <T> DataStore<T> prefixed(DataStore<T> store, String namespace) {
+        if (namespace.indexOf(':') >= 0) {
+            throw new IllegalArgumentException("namespace contains ':': " + namespace);
+        }
+
+        return new PrefixedDataStore<>(store, namespace + ":");
+    }
+
+    /**
+     * Translates values to and from an encoded representation {@code E} which some {@code DataStore} can hold.
+     * Implementations must be safe to call concurrently.
+     */
+    interface Codec<T, E> {
+
+        E encode(T value);
+
+        T decode(E encoded);
+    }
+
     @Getter
     @AllArgsConstructor
-    class Entry {
-        private final String value;
+    class Entry<T> {
+        private final T value;
         private final Instant expiry;
         @With
         private final AccessCount accessCount;
 
-        public Entry(String value, Instant expiry) {
+        public Entry(T value, Instant expiry) {
             this(value, expiry, AccessCount.FIRST);
         }
 
-        enum AccessCount {
+        public enum AccessCount {
             FIRST,
             SUBSEQUENT,
             ;
@@ -0,0 +1,50 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+
+import java.util.Objects;
+
+final class EncodedDataStore<T, E> implements DataStore<T> {
+
+    private final DataStore<E> store;
+    private final Codec<T, E> codec;
+
+    EncodedDataStore(DataStore<E> store, Codec<T, E> codec) {
+        this.store = Objects.requireNonNull(store);
+        this.codec = Objects.requireNonNull(codec);
+    }
+
+    private Entry<T> decode(Entry<E> e) {
+        if (e == null) {
+            return null;
+        }
+
+        return new Entry<>(codec.decode(e.getValue()), e.getExpiry(), e.getAccessCount());
+    }
+
+    @Override
+    public Entry<T> get(String key) {
+        // Delegate so that the underlying store's own expiry handling is respected.
+        return decode(store.get(key));
+    }
+
+    @Override
+    public Entry<T> getUncheckedExpiry(String key) {
+        return decode(store.getUncheckedExpiry(key));
+    }
+
+    @Override
+    public void put(String key, Entry<T> value) {
+        store.put(key, new Entry<>(codec.encode(value.getValue()), value.getExpiry(), value.getAccessCount()));
+    }
+
+    @Override
+    public void remove(String key) {
+        store.remove(key);
+    }
+
+    @Override
+    public Clock getClock() {
+        return store.getClock();
+    }
+}
@@ -0,0 +1,36 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@code Clock} which only moves when told to, for tests and for simulating expiry without real waiting.
+ */
+public final class FakeClock implements Clock {
+
+    private final AtomicLong now;
+
+    public FakeClock() {
+        this(Instant.now());
+    }
+
+    public FakeClock(Instant start) {
+        this.now = new AtomicLong(start.toEpochMilli());
+    }
+
+    @Override
+    public long millis() {
+        return now.get();
+    }
+
+    public void set(Instant instant) {
+        now.set(instant.toEpochMilli());
+    }
+
+    public void advance(Duration duration) {
+        now.addAndGet(duration.toMillis());
+    }
+}
@@ -0,0 +1,86 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.ClientRegistry;
+import io.hoek.neoauth2.internal.Serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@code ClientRegistry} loaded from a local file holding a JSON array of {@code StaticClientRegistration}s.
+ * <p>
+ * Lookups read an immutable snapshot of the clients through a single volatile field, so they take no locks. A reload
+ * builds a complete new snapshot off to the side and then swaps it in, so requests never see a half-loaded registry
+ * and are never blocked by one. If a reload fails the previous snapshot stays in place.
+ */
+public final class FileClientRegistry implements ClientRegistry {
+
+    private static final ObjectReader READER = Serialization.readerFor(StaticClientRegistration.class);
+
+    private final Path path;
+
+    private volatile Map<String, StaticClientRegistration> clients;
+    private volatile FileTime lastModified;
+
+    private FileClientRegistry(Path path) {
+        this.path = Objects.requireNonNull(path);
+    }
+
+    public static FileClientRegistry load(Path path) throws IOException {
+        FileClientRegistry registry = new FileClientRegistry(path);
+        registry.reload();
+        return registry;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    @Override
+    public ClientRegistration lookup(String clientId) {
+        return clientId == null ? null : clients.get(clientId);
+    }
+
+    // Reloads are serialized with each other, but not with lookups.
+    public synchronized void reload() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(path);
+
+        Map<String, StaticClientRegistration> next = new HashMap<>();
+        try (InputStream in = Files.newInputStream(path);
+             MappingIterator<StaticClientRegistration> it = READER.readValues(in)) {
+            while (it.hasNextValue()) {
+                StaticClientRegistration client = it.nextValue();
+                if (next.putIfAbsent(client.getClientId(), client) != null) {
+                    throw new IOException("duplicate client_id '" + client.getClientId() + "' in " + path);
+                }
+            }
+        }
+
+        clients = Collections.unmodifiableMap(next);
+        lastModified = modified;
+    }
+
+    // Returns true if the file had changed and was reloaded.
+    public synchronized boolean reloadIfModified() throws IOException {
+        if (Files.getLastModifiedTime(path).equals(lastModified)) {
+            return false;
+        }
+
+        reload();
+        return true;
+    }
+}
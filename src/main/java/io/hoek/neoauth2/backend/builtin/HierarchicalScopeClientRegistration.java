@@ -0,0 +1,41 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.model.ScopeSet;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Objects;
+
+// Accepts any scopes granted by a `ScopePolicy`, so long as they all share an audience.
+public abstract class HierarchicalScopeClientRegistration implements ClientRegistration {
+
+    private final ScopePolicy policy;
+    private final List<String> defaultScopes;
+
+    public HierarchicalScopeClientRegistration(ScopePolicy policy, List<String> defaultScopes) {
+        this.policy = Objects.requireNonNull(policy);
+        this.defaultScopes = defaultScopes == null ? null : List.copyOf(defaultScopes);
+    }
+
+    public final ScopePolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public final List<String> getDefaultScopes() {
+        return defaultScopes;
+    }
+
+    // Returns null if validation of the scopes fails.
+    @Override
+    public final String validateScopesAndGetAudience(@NotNull List<String> scopes) {
+        return policy.getAudience(scopes);
+    }
+
+    // Returns null if validation of the scopes fails.
+    @Override
+    public final String validateScopesAndGetAudience(@NotNull ScopeSet scopes) {
+        return policy.getAudience(scopes.toList());
+    }
+}
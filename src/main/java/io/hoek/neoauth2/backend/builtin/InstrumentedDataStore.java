@@ -0,0 +1,235 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code DataStore} decorator which records hit, miss, expiry and replay counts and per-operation latency
+ * histograms for the wrapped store, readable at any time through {@link #snapshot()}.
+ * <p>
+ * Lookups go through the wrapped store's own {@code get()}. Expiries can only be told apart from misses for stores
+ * which inherit the default {@code get()} (e.g. {@code SimpleMemoryDataStore}), since then we know how it handles them;
+ * for other stores an expired entry is counted as a miss.
+ * <p>
+ * Recording costs two {@code System.nanoTime()} calls and a few uncontended {@code LongAdder}/atomic increments per
+ * operation, and allocates nothing.
+ */
+public final class InstrumentedDataStore<T> implements DataStore<T> {
+
+    public enum Operation {
+        GET,
+        PUT,
+        REMOVE,
+    }
+
+    private final DataStore<T> delegate;
+    // Whether `delegate` relies on the default `DataStore.get()`, rather than handling expiry itself.
+    private final boolean inheritsGet;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder liveEntries = new LongAdder();
+    private final EnumMap<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+
+    public InstrumentedDataStore(DataStore<T> delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.inheritsGet = inheritsGet(delegate);
+
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new LatencyHistogram());
+        }
+    }
+
+    private static boolean inheritsGet(DataStore<?> store) {
+        try {
+            return store.getClass().getMethod("get", String.class).getDeclaringClass() == DataStore.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Entry<T> recordLookup(Entry<T> e) {
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        if (!e.getAccessCount().isFirst()) {
+            replayed.increment();
+        }
+
+        return e;
+    }
+
+    @Override
+    public Entry<T> get(String key) {
+        long start = System.nanoTime();
+        try {
+            return inheritsGet ? getAndCountExpiry(key) : recordLookup(delegate.get(key));
+        } finally {
+            latencies.get(Operation.GET).record(System.nanoTime() - start);
+        }
+    }
+
+    // This is exactly what `delegate.get()` does for a store which does not override it, but it lets us see expiries.
+    private Entry<T> getAndCountExpiry(String key) {
+        Entry<T> e = delegate.getUncheckedExpiry(key);
+        if (e != null && delegate.getClock().isAfter(e.getExpiry())) {
+            delegate.remove(key);
+            expired.increment();
+            liveEntries.decrement();
+            misses.increment();
+            return null;
+        }
+
+        return recordLookup(e);
+    }
+
+    @Override
+    public Entry<T> getUncheckedExpiry(String key) {
+        long start = System.nanoTime();
+        try {
+            return recordLookup(delegate.getUncheckedExpiry(key));
+        } finally {
+            latencies.get(Operation.GET).record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void put(String key, Entry<T> value) {
+        long start = System.nanoTime();
+        try {
+            delegate.put(key, value);
+            liveEntries.increment();
+        } finally {
+            latencies.get(Operation.PUT).record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        long start = System.nanoTime();
+        try {
+            delegate.remove(key);
+            liveEntries.decrement();
+        } finally {
+            latencies.get(Operation.REMOVE).record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Clock getClock() {
+        return delegate.getClock();
+    }
+
+    public Snapshot snapshot() {
+        EnumMap<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        latencies.forEach((op, h) -> histograms.put(op, h.snapshot()));
+
+        return new Snapshot(hits.sum(), misses.sum(), expired.sum(), replayed.sum(),
+                Math.max(0, liveEntries.sum()), histograms);
+    }
+
+    @Getter
+    public static final class Snapshot {
+        private final long hits;
+        private final long misses;
+        // Only counted for stores which inherit the default `DataStore.get()`, see above.
+        private final long expired;
+        private final long replayed;
+        // This is an estimate: entries which the underlying store evicts on its own are not observed, and overwriting
+        // an existing key counts as an additional entry.
+        private final long liveEntries;
+        private final Map<Operation, Histogram> latencies;
+
+        private Snapshot(long hits, long misses, long expired, long replayed, long liveEntries, Map<Operation, Histogram> latencies) {
+            this.hits = hits;
+            this.misses = misses;
+            this.expired = expired;
+            this.replayed = replayed;
+            this.liveEntries = liveEntries;
+            this.latencies = Map.copyOf(latencies);
+        }
+
+        public Histogram getLatency(Operation op) {
+            return latencies.get(op);
+        }
+    }
+
+    // Bucket `i` counts latencies in the range [2^(i-1), 2^i) nanoseconds (bucket 0 counts zero latencies).
+    public static final class Histogram {
+        private final long[] buckets;
+        private final long totalNanos;
+
+        private Histogram(long[] buckets, long totalNanos) {
+            this.buckets = buckets;
+            this.totalNanos = totalNanos;
+        }
+
+        public long getCount() {
+            return Arrays.stream(buckets).sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getBucketCount(int bucket) {
+            return buckets[bucket];
+        }
+
+        public int getNumBuckets() {
+            return buckets.length;
+        }
+
+        // Returns an upper bound for the latency within which a `quantile` fraction of the operations completed.
+        public long getQuantileUpperBoundNanos(double quantile) {
+            long count = getCount();
+            if (count == 0) {
+                return 0;
+            }
+
+            long threshold = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= threshold) {
+                    // Note that for the last bucket this overflows to exactly `Long.MAX_VALUE`.
+                    return (1L << i) - 1;
+                }
+            }
+
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static final class LatencyHistogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+        private final LongAdder totalNanos = new LongAdder();
+
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+            totalNanos.add(nanos);
+        }
+
+        Histogram snapshot() {
+            long[] copy = new long[buckets.length()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = buckets.get(i);
+            }
+
+            return new Histogram(copy, totalNanos.sum());
+        }
+    }
+}
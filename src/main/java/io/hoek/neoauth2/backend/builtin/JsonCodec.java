@@ -0,0 +1,30 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.hoek.neoauth2.internal.Serialization;
+import io.hoek.util.function.Throw;
+
+/**
+ * A {@code DataStore.Codec} which encodes values as JSON strings, for use with stores which can only hold strings.
+ */
+public final class JsonCodec<T> implements DataStore.Codec<T, String> {
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public JsonCodec(Class<T> clazz) {
+        this.reader = Serialization.readerFor(clazz);
+        this.writer = Serialization.writerFor(clazz);
+    }
+
+    @Override
+    public String encode(T value) {
+        return Throw.asRuntime(() -> writer.writeValueAsString(value));
+    }
+
+    @Override
+    public T decode(String encoded) {
+        return Throw.asRuntime(() -> reader.readValue(encoded));
+    }
+}
@@ -0,0 +1,29 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+
+/**
+ * Generates the {@code jti} (JWT ID) claim of access tokens, which must be unique across every token issued by every
+ * node of the authorization server. Implementations must be safe to call from any thread.
+ */
+@FunctionalInterface
+public interface JtiGenerator {
+
+    String generate();
+
+    // 16 bytes of fresh randomness for every token, as generated by jose4j. The default.
+    static JtiGenerator random() {
+        return RandomJtiGenerator.INSTANCE;
+    }
+
+    // A random per-node prefix chosen once, followed by a per-thread-striped counter: no entropy is consumed per token.
+    static JtiGenerator counter() {
+        return new StripedCounterJtiGenerator();
+    }
+
+    // Like `counter()`, but the IDs generated by a node sort (as strings) in the order they were issued, led by the
+    // time of issue, so that they can be indexed efficiently, e.g. by a revocation store.
+    static JtiGenerator timeOrdered(Clock clock) {
+        return new TimeOrderedJtiGenerator(clock);
+    }
+}
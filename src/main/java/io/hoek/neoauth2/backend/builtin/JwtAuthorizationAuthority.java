@@ -1,9 +1,8 @@
 package io.hoek.neoauth2.backend.builtin;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.hoek.neoauth2.backend.AuthorizationAuthority;
 import io.hoek.neoauth2.backend.UserAuthorization;
-import io.hoek.neoauth2.internal.Util;
+import io.hoek.neoauth2.internal.Hashing;
 import io.hoek.neoauth2.model.AuthorizationCodePayload;
 import io.hoek.neoauth2.model.RefreshTokenPayload;
 
@@ -11,15 +10,23 @@ import java.time.Instant;
 
 public class JwtAuthorizationAuthority implements AuthorizationAuthority {
 
-    private final ObjectMapper mapper = new ObjectMapper();
-    private final DataStore dataStore;
+    // Only the access counts of entries are consulted, so the store may hold values of any type.
+    private final DataStore<?> dataStore;
+    private final RefreshTokenStore refreshTokenStore;
 
     public JwtAuthorizationAuthority() {
         this(null);
     }
 
-    public JwtAuthorizationAuthority(DataStore dataStore) {
+    public JwtAuthorizationAuthority(DataStore<?> dataStore) {
+        this(dataStore, null);
+    }
+
+    // Unlike authorization codes, refresh tokens cannot be self-contained: detecting the reuse of a rotated token
+    // requires state. So refresh tokens are only issued if `refreshTokenStore` is not null.
+    public JwtAuthorizationAuthority(DataStore<?> dataStore, RefreshTokenStore refreshTokenStore) {
         this.dataStore = dataStore;
+        this.refreshTokenStore = refreshTokenStore;
     }
 
     private static UserAuthorization verifyAndUnpackJwt(String jwt) {
@@ -65,8 +72,8 @@ public class JwtAuthorizationAuthority implements AuthorizationAuthority {
             return false;
         }
 
-        String key = Util.calculateSha256Base64UrlEncodedWithoutPadding(payload.getCode());
-        DataStore.Entry entry = dataStore.get(key);
+        String key = Hashing.sha256Base64Url(payload.getCode());
+        DataStore.Entry<?> entry = dataStore.get(key);
         if (entry == null) {
             // We should have already checked that this is a valid unexpired code, so this shouldn't have happened.
             throw new IllegalStateException("datastore dropped code  [" + key + "]: " + payload.getCode());
@@ -92,10 +99,25 @@ public class JwtAuthorizationAuthority implements AuthorizationAuthority {
         return order;
     }
 
+    @Override
+    public RefreshTokenPayload issueRefreshToken(UserAuthorization order, Instant expiry) {
+        return refreshTokenStore == null ? null : refreshTokenStore.issue(order, expiry);
+    }
+
     @Override
     public UserAuthorization readAndVerifyRefreshToken(RefreshTokenPayload token) {
-        // FIXME FIXME FXIME basically do the same as the previous, polymorphize
+        return refreshTokenStore == null ? null : refreshTokenStore.readAndVerify(token);
+    }
 
-        return null;
+    @Override
+    public RefreshTokenPayload rotateRefreshToken(RefreshTokenPayload token, Instant expiry) {
+        return refreshTokenStore == null ? null : refreshTokenStore.rotate(token, expiry);
+    }
+
+    @Override
+    public void restoreRefreshToken(RefreshTokenPayload token) {
+        if (refreshTokenStore != null) {
+            refreshTokenStore.restore(token);
+        }
     }
 }
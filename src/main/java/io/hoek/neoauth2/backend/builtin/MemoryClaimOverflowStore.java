@@ -0,0 +1,96 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+import io.hoek.neoauth2.internal.Hashing;
+import io.hoek.neoauth2.internal.Util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@code ClaimOverflowStore} in the memory of this process. References are derived from the content of the claims
+ * (with a secret salt, so that they can't be guessed), so every token issued to a subject with the same overflowing
+ * claims shares one record, which is kept until the last of those tokens expires.
+ * <p>
+ * Expired records are only dropped when looked up or by {@link #purgeExpired()}, which should be called periodically.
+ */
+public class MemoryClaimOverflowStore implements ClaimOverflowStore {
+
+    private static final int REFERENCE_BYTES = 16;
+
+    private final Clock clock;
+    private final String salt = Util.generateRandomBytesBase64UrlEncodedWithoutPadding(new SecureRandom(), 32);
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+
+    public MemoryClaimOverflowStore() {
+        this(Clock.system());
+    }
+
+    public MemoryClaimOverflowStore(Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    private String calculateReference(Map<String, String> claims) {
+        StringBuilder sb = new StringBuilder(salt);
+        for (Map.Entry<String, String> claim : new TreeMap<>(claims).entrySet()) {
+            sb.append(claim.getKey().length()).append(':').append(claim.getKey())
+                    .append(claim.getValue().length()).append(':').append(claim.getValue());
+        }
+
+        byte[] hash = Hashing.sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, REFERENCE_BYTES));
+    }
+
+    @Override
+    public String put(Map<String, String> claims, Instant expiry) {
+        String reference = calculateReference(claims);
+        long expiryMillis = expiry.toEpochMilli();
+
+        records.compute(reference, (k, old) -> old != null && old.expiryMillis >= expiryMillis
+                ? old : new Record(Map.copyOf(claims), expiryMillis));
+
+        return reference;
+    }
+
+    @Override
+    public Map<String, String> get(String reference) {
+        Record record = records.get(reference);
+        if (record == null) {
+            return null;
+        }
+
+        if (clock.millis() > record.expiryMillis) {
+            records.remove(reference, record);
+            return null;
+        }
+
+        return record.claims;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    public void purgeExpired() {
+        long now = clock.millis();
+        records.values().removeIf(record -> now > record.expiryMillis);
+    }
+
+    private static final class Record {
+
+        private final Map<String, String> claims;
+        private final long expiryMillis;
+
+        private Record(Map<String, String> claims, long expiryMillis) {
+            this.claims = claims;
+            this.expiryMillis = expiryMillis;
+        }
+    }
+}
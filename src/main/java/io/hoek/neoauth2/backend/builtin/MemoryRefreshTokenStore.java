@@ -0,0 +1,202 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.internal.Hashing;
+import io.hoek.neoauth2.model.RefreshTokenPayload;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@code RefreshTokenStore} in the memory of this process.
+ * <p>
+ * A token has the form {@code <family>.<generation>.<mac>}, where the MAC is keyed by a secret of the family. A family
+ * is therefore stored as a single record, however many times it has been rotated: its authorization, its key, and the
+ * generation of its one valid token. Any token ever issued in the family can be authenticated against that record, so
+ * a spent token is recognized as such (rather than as garbage) and revokes the family by removing the record.
+ * <p>
+ * Expired families are only dropped when looked up or by {@link #purgeExpired()}, which should be called periodically.
+ */
+public class MemoryRefreshTokenStore implements RefreshTokenStore {
+
+    private static final int FAMILY_ID_BYTES = 16;
+    private static final int KEY_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Clock clock;
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    public MemoryRefreshTokenStore() {
+        this(Clock.system());
+    }
+
+    public MemoryRefreshTokenStore(Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    private static String formatToken(String familyId, byte[] key, int generation) {
+        String prefix = familyId + "." + generation;
+        return prefix + "." + Hashing.encodeBase64Url(Hashing.hmacSha256(key, prefix));
+    }
+
+    private byte[] randomBytes(int numBytes) {
+        byte[] bytes = new byte[numBytes];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Override
+    public RefreshTokenPayload issue(UserAuthorization order, Instant expiry) {
+        String familyId = Hashing.encodeBase64Url(randomBytes(FAMILY_ID_BYTES));
+        Family family = new Family(Objects.requireNonNull(order), randomBytes(KEY_BYTES), 0, expiry.toEpochMilli());
+        families.put(familyId, family);
+
+        return new RefreshTokenPayload(formatToken(familyId, family.key, family.generation));
+    }
+
+    @Override
+    public UserAuthorization readAndVerify(RefreshTokenPayload token) {
+        ParsedToken parsed = ParsedToken.parse(token);
+        if (parsed == null) {
+            return null;
+        }
+
+        while (true) {
+            Family family = families.get(parsed.familyId);
+            if (family == null) {
+                return null;
+            }
+
+            if (clock.millis() > family.expiryMillis) {
+                families.remove(parsed.familyId, family);
+                return null;
+            }
+
+            if (!parsed.isAuthenticBy(family) || parsed.generation > family.generation) {
+                return null;
+            }
+
+            if (parsed.generation < family.generation) {
+                // SPEC NOTE: A spent token has been presented, so one of the tokens of this family has been stolen.
+                families.remove(parsed.familyId);
+                return null;
+            }
+
+            // Spend the token. If we lose the race to another verification of it, we go around again and revoke.
+            if (families.replace(parsed.familyId, family, family.withGeneration(family.generation + 1))) {
+                return family.order;
+            }
+        }
+    }
+
+    @Override
+    public RefreshTokenPayload rotate(RefreshTokenPayload token, Instant expiry) {
+        ParsedToken parsed = Objects.requireNonNull(ParsedToken.parse(token));
+
+        Family family = families.computeIfPresent(parsed.familyId,
+                (id, old) -> old.withExpiryMillis(Math.max(old.expiryMillis, expiry.toEpochMilli())));
+        if (family == null) {
+            return null;
+        }
+
+        return new RefreshTokenPayload(formatToken(parsed.familyId, family.key, family.generation));
+    }
+
+    @Override
+    public void restore(RefreshTokenPayload token) {
+        ParsedToken parsed = Objects.requireNonNull(ParsedToken.parse(token));
+
+        families.computeIfPresent(parsed.familyId, (id, family) -> {
+            boolean spentByToken = parsed.isAuthenticBy(family) && family.generation == parsed.generation + 1;
+            return spentByToken ? family.withGeneration(parsed.generation) : family;
+        });
+    }
+
+    @Override
+    public void revokeFamily(RefreshTokenPayload token) {
+        ParsedToken parsed = ParsedToken.parse(token);
+        if (parsed != null) {
+            families.remove(parsed.familyId);
+        }
+    }
+
+    public int size() {
+        return families.size();
+    }
+
+    public void purgeExpired() {
+        long now = clock.millis();
+        families.values().removeIf(family -> now > family.expiryMillis);
+    }
+
+    private static final class Family {
+
+        private final UserAuthorization order;
+        private final byte[] key;
+        // The generation of the one valid token of this family.
+        private final int generation;
+        private final long expiryMillis;
+
+        private Family(UserAuthorization order, byte[] key, int generation, long expiryMillis) {
+            this.order = order;
+            this.key = key;
+            this.generation = generation;
+            this.expiryMillis = expiryMillis;
+        }
+
+        private Family withGeneration(int generation) {
+            return new Family(order, key, generation, expiryMillis);
+        }
+
+        private Family withExpiryMillis(long expiryMillis) {
+            return new Family(order, key, generation, expiryMillis);
+        }
+    }
+
+    private static final class ParsedToken {
+
+        private final String familyId;
+        private final int generation;
+        private final String prefix;
+        private final byte[] mac;
+
+        private ParsedToken(String familyId, int generation, String prefix, byte[] mac) {
+            this.familyId = familyId;
+            this.generation = generation;
+            this.prefix = prefix;
+            this.mac = mac;
+        }
+
+        // Returns `null` if the token is malformed.
+        private static ParsedToken parse(RefreshTokenPayload token) {
+            String raw = token.getRefreshToken();
+            int first = raw.indexOf('.');
+            int second = raw.indexOf('.', first + 1);
+            if (first <= 0 || second < 0) {
+                return null;
+            }
+
+            int generation;
+            try {
+                generation = Integer.parseInt(raw.substring(first + 1, second));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+
+            byte[] mac = Hashing.decodeBase64Url(raw.substring(second + 1));
+            if (generation < 0 || mac == null) {
+                return null;
+            }
+
+            return new ParsedToken(raw.substring(0, first), generation, raw.substring(0, second), mac);
+        }
+
+        private boolean isAuthenticBy(Family family) {
+            return Hashing.constantTimeEquals(Hashing.hmacSha256(family.key, prefix), mac);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+
+import java.util.Objects;
+
+final class PrefixedDataStore<T> implements DataStore<T> {
+
+    private final DataStore<T> store;
+    private final String prefix;
+
+    PrefixedDataStore(DataStore<T> store, String prefix) {
+        this.store = Objects.requireNonNull(store);
+        this.prefix = Objects.requireNonNull(prefix);
+    }
+
+    @Override
+    public Entry<T> get(String key) {
+        // Delegate so that the underlying store's own expiry handling is respected.
+        return store.get(prefix + key);
+    }
+
+    @Override
+    public Entry<T> getUncheckedExpiry(String key) {
+        return store.getUncheckedExpiry(prefix + key);
+    }
+
+    @Override
+    public void put(String key, Entry<T> value) {
+        store.put(prefix + key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        store.remove(prefix + key);
+    }
+
+    @Override
+    public Clock getClock() {
+        return store.getClock();
+    }
+}
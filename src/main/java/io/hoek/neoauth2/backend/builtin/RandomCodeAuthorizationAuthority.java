@@ -1,11 +1,10 @@
 package io.hoek.neoauth2.backend.builtin;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import io.hoek.util.function.Throw;
 import io.hoek.neoauth2.backend.AuthorizationAuthority;
 import io.hoek.neoauth2.backend.UserAuthorization;
 import io.hoek.neoauth2.internal.Util;
 import io.hoek.neoauth2.model.AuthorizationCodePayload;
+import io.hoek.neoauth2.model.RefreshTokenPayload;
 
 import javax.validation.constraints.NotNull;
 import java.security.SecureRandom;
@@ -16,25 +15,33 @@ public class RandomCodeAuthorizationAuthority implements AuthorizationAuthority
     public static final int NUM_BYTES = 32;
 
     private final SecureRandom random = new SecureRandom();
-    private final ObjectMapper mapper = new ObjectMapper();
-    private final DataStore dataStore;
+    private final DataStore<UserAuthorization> dataStore;
+    private final RefreshTokenStore refreshTokenStore;
 
-    public RandomCodeAuthorizationAuthority(@NotNull DataStore dataStore) {
+    // To back this authority with a store which can only hold strings, wrap it with
+    // `DataStore.encoded(store, new JsonCodec<>(UserAuthorization.class))`.
+    public RandomCodeAuthorizationAuthority(@NotNull DataStore<UserAuthorization> dataStore) {
+        this(dataStore, null);
+    }
+
+    // Refresh tokens are only issued if `refreshTokenStore` is not null.
+    public RandomCodeAuthorizationAuthority(@NotNull DataStore<UserAuthorization> dataStore, RefreshTokenStore refreshTokenStore) {
         this.dataStore = Objects.requireNonNull(dataStore);
+        this.refreshTokenStore = refreshTokenStore;
     }
 
     @Override
     public AuthorizationCodePayload issueAuthorizationCode(UserAuthorization content, Instant expiry) {
         String code = Util.generateRandomBytesBase64UrlEncodedWithoutPadding(random, NUM_BYTES);
 
-        Throw.asRuntime(() -> dataStore.put(code, new DataStore.Entry(mapper.writeValueAsString(content), expiry)));
+        dataStore.put(code, new DataStore.Entry<>(content, expiry));
 
         return new AuthorizationCodePayload(code);
     }
 
     @Override
     public UserAuthorization readAndVerifyAuthorizationCode(AuthorizationCodePayload payload) {
-        DataStore.Entry entry = dataStore.get(payload.getCode());
+        DataStore.Entry<UserAuthorization> entry = dataStore.get(payload.getCode());
         if (entry == null) {
             return null;
         }
@@ -46,6 +53,28 @@ public class RandomCodeAuthorizationAuthority implements AuthorizationAuthority
             return null;
         }
 
-        return Throw.asRuntime(() -> mapper.readValue(entry.getValue(), UserAuthorization.class));
+        return entry.getValue();
+    }
+
+    @Override
+    public RefreshTokenPayload issueRefreshToken(UserAuthorization order, Instant expiry) {
+        return refreshTokenStore == null ? null : refreshTokenStore.issue(order, expiry);
+    }
+
+    @Override
+    public UserAuthorization readAndVerifyRefreshToken(RefreshTokenPayload token) {
+        return refreshTokenStore == null ? null : refreshTokenStore.readAndVerify(token);
+    }
+
+    @Override
+    public RefreshTokenPayload rotateRefreshToken(RefreshTokenPayload token, Instant expiry) {
+        return refreshTokenStore == null ? null : refreshTokenStore.rotate(token, expiry);
+    }
+
+    @Override
+    public void restoreRefreshToken(RefreshTokenPayload token) {
+        if (refreshTokenStore != null) {
+            refreshTokenStore.restore(token);
+        }
     }
 }
@@ -0,0 +1,328 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.hoek.neoauth2.backend.Clock;
+import io.hoek.neoauth2.backend.DeviceAuthorization;
+import io.hoek.neoauth2.backend.DeviceAuthorizationAuthority;
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.internal.InvalidRequestException;
+import io.hoek.neoauth2.internal.Util;
+import io.hoek.neoauth2.model.DeviceAuthorizationPayload;
+import io.hoek.neoauth2.model.ErrorResponse;
+
+import java.net.URI;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code DeviceAuthorizationAuthority} which keeps its device codes in a {@code DataStore}, under four keys per
+ * device authorization: the pending authorization by device code and by user code, a claim on the user code, and the
+ * user's decision by device code. The claim and the decision are written under their own keys, read by nothing else,
+ * so that the store's access count hands each out exactly once: only one decision is accepted per user code, and
+ * only one poll receives it.
+ * <p>
+ * Polling is throttled in this process: a client which polls a device code again before its interval has passed gets
+ * {@code slow_down}, and the interval of that device code grows by 5 seconds (RFC 8628 section 3.5). Optionally,
+ * {@link #pollAsync} may wait up to {@code longPollTimeout} for a decision instead of returning
+ * {@code authorization_pending} at once; it holds no thread while it waits. Only decisions made through this instance
+ * wake a waiting poll early, so with several instances a poll which is not woken simply times out and the client polls
+ * again as usual.
+ */
+public class RandomCodeDeviceAuthorizationAuthority implements DeviceAuthorizationAuthority {
+
+    public static final int NUM_BYTES = 32;
+
+    // SPEC NOTE: RFC 8628 section 6.1 recommends a base-20 alphabet without vowels, so that user codes do not spell
+    //            words, formatted in groups of 4 for readability.
+    private static final String USER_CODE_ALPHABET = "BCDFGHJKLMNPQRSTVWXZ";
+    private static final int USER_CODE_LENGTH = 8;
+
+    private static final long SLOW_DOWN_INCREMENT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private static final String KEY_DEVICE = "device:";
+    private static final String KEY_USER = "user:";
+    private static final String KEY_CLAIM = "claim:";
+    private static final String KEY_DECISION = "decision:";
+
+    private final SecureRandom random = new SecureRandom();
+    private final DataStore<DeviceAuthorization> dataStore;
+    private final URI verificationUri;
+    private final long intervalSeconds;
+    private final Duration longPollTimeout;
+    private final Cache<String, PollState> polls;
+
+    private RandomCodeDeviceAuthorizationAuthority(DataStore<DeviceAuthorization> dataStore, URI verificationUri, long intervalSeconds, Duration longPollTimeout) {
+        this.dataStore = dataStore;
+        this.verificationUri = verificationUri;
+        this.intervalSeconds = intervalSeconds;
+        this.longPollTimeout = longPollTimeout;
+
+        Clock clock = dataStore.getClock();
+        this.polls = CacheBuilder.newBuilder()
+                // No device code outlives its entries in the store.
+                .expireAfterWrite(DataStore.MAX_EXPIRES_IN_SECS, TimeUnit.SECONDS)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                    }
+                })
+                .build();
+    }
+
+    // To back this authority with a store which can only hold strings, wrap it with
+    // `DataStore.encoded(store, new JsonCodec<>(DeviceAuthorization.class))`.
+    public static Builder builder(DataStore<DeviceAuthorization> dataStore, URI verificationUri) {
+        return new Builder(dataStore, verificationUri);
+    }
+
+    // Users type user codes in by hand, so we ignore case and any separators.
+    static String normalizeUserCode(String userCode) {
+        StringBuilder sb = new StringBuilder(USER_CODE_LENGTH);
+        for (int i = 0; i < userCode.length(); i++) {
+            char c = userCode.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private String generateUserCode() {
+        StringBuilder sb = new StringBuilder(USER_CODE_LENGTH + 1);
+        for (int i = 0; i < USER_CODE_LENGTH; i++) {
+            if (i == USER_CODE_LENGTH / 2) {
+                sb.append('-');
+            }
+            sb.append(USER_CODE_ALPHABET.charAt(random.nextInt(USER_CODE_ALPHABET.length())));
+        }
+
+        return sb.toString();
+    }
+
+    private URI completeVerificationUri(String userCode) {
+        String uri = verificationUri.toString();
+        return URI.create(uri + (verificationUri.getRawQuery() == null ? '?' : '&') + "user_code=" + userCode);
+    }
+
+    @Override
+    public DeviceAuthorizationPayload startDeviceAuthorization(String clientId, List<String> scopes, Instant expiry) {
+        String deviceCode = Util.generateRandomBytesBase64UrlEncodedWithoutPadding(random, NUM_BYTES);
+        // User codes are short, so we make sure not to hand out one which is already pending.
+        String userCode;
+        do {
+            userCode = generateUserCode();
+        } while (dataStore.get(KEY_USER + normalizeUserCode(userCode)) != null);
+
+        DeviceAuthorization pending = new DeviceAuthorization(deviceCode, userCode, clientId, List.copyOf(scopes), null, false);
+        dataStore.put(KEY_DEVICE + deviceCode, new DataStore.Entry<>(pending, expiry));
+        dataStore.put(KEY_USER + normalizeUserCode(userCode), new DataStore.Entry<>(pending, expiry));
+        dataStore.put(KEY_CLAIM + normalizeUserCode(userCode), new DataStore.Entry<>(pending, expiry));
+
+        long expiresInSeconds = Math.max(0, TimeUnit.MILLISECONDS.toSeconds(expiry.toEpochMilli() - dataStore.getClock().millis()));
+        return new DeviceAuthorizationPayload(deviceCode, userCode, verificationUri, completeVerificationUri(userCode),
+                expiresInSeconds, intervalSeconds);
+    }
+
+    @Override
+    public DeviceAuthorization lookupUserCode(String userCode) {
+        DataStore.Entry<DeviceAuthorization> entry = dataStore.get(KEY_USER + normalizeUserCode(userCode));
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Override
+    public boolean decide(String userCode, UserAuthorization authorization) {
+        String userKey = KEY_USER + normalizeUserCode(userCode);
+        String claimKey = KEY_CLAIM + normalizeUserCode(userCode);
+        DataStore.Entry<DeviceAuthorization> entry = dataStore.get(claimKey);
+        // The user code is single use: of several racing decisions, only the first to read the claim is accepted.
+        if (entry == null || !entry.getAccessCount().isFirst()) {
+            return false;
+        }
+
+        dataStore.remove(userKey);
+        dataStore.remove(claimKey);
+
+        DeviceAuthorization pending = entry.getValue();
+        dataStore.put(KEY_DECISION + pending.getDeviceCode(), new DataStore.Entry<>(pending.withDecision(authorization), entry.getExpiry()));
+
+        PollState state = polls.getIfPresent(pending.getDeviceCode());
+        if (state != null) {
+            state.decided.complete(null);
+        }
+
+        return true;
+    }
+
+    // Returns `null` if the user has not decided yet.
+    private UserAuthorization redeemDecision(String deviceCode) throws InvalidRequestException {
+        DataStore.Entry<DeviceAuthorization> entry = dataStore.get(KEY_DECISION + deviceCode);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!entry.getAccessCount().isFirst()) {
+            throw new InvalidRequestException(ErrorResponse.DESC_INVALID_GRANT, "device code already used");
+        }
+
+        dataStore.remove(KEY_DEVICE + deviceCode);
+        polls.invalidate(deviceCode);
+
+        DeviceAuthorization decided = entry.getValue();
+        if (decided.isDenied()) {
+            throw new InvalidRequestException(ErrorResponse.DESC_ACCESS_DENIED, "user denied access");
+        }
+
+        return decided.getAuthorization();
+    }
+
+    // Checks the device code and counts the poll against its interval.
+    private PollState startPoll(DataStore.Entry<DeviceAuthorization> entry, String clientId, String deviceCode) throws InvalidRequestException {
+        if (entry == null) {
+            // SPEC NOTE: An unknown device code cannot be told apart from one whose entry has been dropped on expiry,
+            //            and either way the client must start over.
+            throw new InvalidRequestException(ErrorResponse.DESC_EXPIRED_TOKEN, "device code expired");
+        }
+
+        if (!entry.getValue().getClientId().equals(clientId)) {
+            throw new InvalidRequestException(ErrorResponse.DESC_INVALID_GRANT, "mismatched 'client_id' with device code");
+        }
+
+        PollState state = polls.asMap().computeIfAbsent(deviceCode, k -> new PollState(TimeUnit.SECONDS.toMillis(intervalSeconds)));
+        if (!state.tryPoll(dataStore.getClock().millis())) {
+            throw new InvalidRequestException(ErrorResponse.DESC_SLOW_DOWN, "polling too frequently");
+        }
+
+        return state;
+    }
+
+    private static InvalidRequestException pending() {
+        return new InvalidRequestException(ErrorResponse.DESC_AUTHORIZATION_PENDING, "authorization pending");
+    }
+
+    // Never waits, whatever the `longPollTimeout`.
+    @Override
+    public UserAuthorization poll(String clientId, String deviceCode) throws InvalidRequestException {
+        startPoll(dataStore.get(KEY_DEVICE + deviceCode), clientId, deviceCode);
+
+        UserAuthorization authorization = redeemDecision(deviceCode);
+        if (authorization == null) {
+            throw pending();
+        }
+
+        return authorization;
+    }
+
+    @Override
+    public CompletionStage<UserAuthorization> pollAsync(String clientId, String deviceCode) {
+        DataStore.Entry<DeviceAuthorization> entry = dataStore.get(KEY_DEVICE + deviceCode);
+        PollState state;
+        UserAuthorization authorization;
+        try {
+            state = startPoll(entry, clientId, deviceCode);
+            authorization = redeemDecision(deviceCode);
+        } catch (InvalidRequestException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (authorization != null) {
+            return CompletableFuture.completedFuture(authorization);
+        }
+
+        long untilExpiryMillis = entry.getExpiry().toEpochMilli() - dataStore.getClock().millis();
+        long timeoutMillis = Math.min(longPollTimeout.toMillis(), untilExpiryMillis);
+        if (timeoutMillis <= 0) {
+            return CompletableFuture.failedFuture(pending());
+        }
+
+        // Wake on a decision or the timeout, whichever comes first, and check the store either way. We continue on the
+        // common pool rather than on the thread which woke us: that is the one deciding, or the JDK's timer thread.
+        return state.decided.thenApply(decided -> true)
+                .completeOnTimeout(false, timeoutMillis, TimeUnit.MILLISECONDS)
+                .thenComposeAsync(decided -> {
+                    try {
+                        UserAuthorization redeemed = redeemDecision(deviceCode);
+                        // The client waits out its interval from when it receives our response, not from when it sent
+                        // the request.
+                        state.restartInterval(dataStore.getClock().millis());
+
+                        return redeemed == null ? CompletableFuture.failedFuture(pending()) : CompletableFuture.completedFuture(redeemed);
+                    } catch (InvalidRequestException e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                });
+    }
+
+    private static final class PollState {
+
+        private final CompletableFuture<Void> decided = new CompletableFuture<>();
+        private long intervalMillis;
+        private long nextPollMillis = Long.MIN_VALUE;
+
+        private PollState(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+
+        // Returns `false` if the client should slow down.
+        private synchronized boolean tryPoll(long nowMillis) {
+            if (nowMillis < nextPollMillis) {
+                intervalMillis += SLOW_DOWN_INCREMENT_MILLIS;
+                nextPollMillis = nowMillis + intervalMillis;
+                return false;
+            }
+
+            nextPollMillis = nowMillis + intervalMillis;
+            return true;
+        }
+
+        private synchronized void restartInterval(long nowMillis) {
+            nextPollMillis = nowMillis + intervalMillis;
+        }
+    }
+
+    public static final class Builder {
+
+        private final DataStore<DeviceAuthorization> dataStore;
+        private final URI verificationUri;
+        private long intervalSeconds = 5;
+        private Duration longPollTimeout = Duration.ZERO;
+
+        private Builder(DataStore<DeviceAuthorization> dataStore, URI verificationUri) {
+            this.dataStore = Objects.requireNonNull(dataStore);
+            this.verificationUri = Objects.requireNonNull(verificationUri);
+        }
+
+        // SPEC NOTE: RFC 8628 section 3.2 specifies a default polling interval of 5 seconds.
+        public Builder interval(Duration interval) {
+            if (interval.getSeconds() < 1) {
+                throw new IllegalArgumentException("interval must be at least 1 second: " + interval);
+            }
+
+            this.intervalSeconds = interval.getSeconds();
+            return this;
+        }
+
+        // A zero timeout (the default) disables long polling. Only `pollAsync()` long-polls.
+        public Builder longPollTimeout(Duration longPollTimeout) {
+            if (longPollTimeout.isNegative()) {
+                throw new IllegalArgumentException("negative long poll timeout: " + longPollTimeout);
+            }
+
+            this.longPollTimeout = longPollTimeout;
+            return this;
+        }
+
+        public RandomCodeDeviceAuthorizationAuthority build() {
+            return new RandomCodeDeviceAuthorizationAuthority(dataStore, verificationUri, intervalSeconds, longPollTimeout);
+        }
+    }
+}
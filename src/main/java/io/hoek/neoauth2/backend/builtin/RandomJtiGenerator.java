@@ -0,0 +1,24 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+final class RandomJtiGenerator implements JtiGenerator {
+
+    static final RandomJtiGenerator INSTANCE = new RandomJtiGenerator();
+
+    private static final int NUM_BYTES = 16;
+
+    // `SecureRandom` serializes its callers, so we don't share one between threads.
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private RandomJtiGenerator() {
+    }
+
+    @Override
+    public String generate() {
+        byte[] raw = new byte[NUM_BYTES];
+        RANDOM.get().nextBytes(raw);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+}
@@ -0,0 +1,32 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.model.RefreshTokenPayload;
+
+import java.time.Instant;
+
+/**
+ * Issues and verifies rotating refresh tokens, see {@code AuthorizationAuthority}. Each refresh token issued with an
+ * authorization code starts a family, and every rotation replaces the family's one valid token with its successor. If a
+ * token which has already been rotated out is presented again, then either it or its successor must have been stolen,
+ * so the whole family is revoked.
+ * <p>
+ * Implementations must be safe to call concurrently, and must let exactly one of any concurrent verifications of the
+ * same token succeed.
+ */
+public interface RefreshTokenStore {
+
+    RefreshTokenPayload issue(UserAuthorization order, Instant expiry);
+
+    // Returns `null` if the token is invalid, expired or spent, revoking its family if it was spent.
+    UserAuthorization readAndVerify(RefreshTokenPayload token);
+
+    // Returns `null` if the family of `token` has been revoked.
+    RefreshTokenPayload rotate(RefreshTokenPayload token, Instant expiry);
+
+    // Makes `token`, which has been spent by `readAndVerify()` but not yet rotated, valid again. Does nothing if its
+    // family has been revoked or has moved on.
+    void restore(RefreshTokenPayload token);
+
+    void revokeFamily(RefreshTokenPayload token);
+}
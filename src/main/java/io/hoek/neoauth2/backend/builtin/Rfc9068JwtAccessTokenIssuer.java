@@ -1,18 +1,24 @@
 package io.hoek.neoauth2.backend.builtin;
 
-import io.hoek.util.function.Catch;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.hoek.neoauth2.backend.AccessTokenIssuer;
 import io.hoek.neoauth2.backend.AccessTokenOrder;
+import io.hoek.neoauth2.backend.Clock;
+import io.hoek.neoauth2.backend.TokenSpec;
 import io.hoek.neoauth2.model.AccessTokenPayload;
+import io.hoek.neoauth2.model.ScopeSet;
 import io.hoek.util.function.Throw;
+import lombok.Value;
 import org.jose4j.jws.AlgorithmIdentifiers;
 import org.jose4j.jws.JsonWebSignature;
-import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwx.HeaderParameterNames;
-import org.jose4j.lang.JoseException;
 
 import java.security.PrivateKey;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 
 public class Rfc9068JwtAccessTokenIssuer implements AccessTokenIssuer {
 
@@ -20,31 +26,64 @@ public class Rfc9068JwtAccessTokenIssuer implements AccessTokenIssuer {
     public static final String CLAIM_CLIENT_ID = "client_id";
     public static final String CLAIM_SCOPE = "scope";
 
+    public static final long NOT_BEFORE_LEEWAY_SECS = 60;
+
+    // Enough for every (client, audience, scopes) combination in use at once in all but the largest deployments; a
+    // miss only costs recompiling the template.
+    private static final long MAX_TEMPLATES = 10_000;
+
     private final String selfIssuerUri;
     private final String privateKeyId;
     private final PrivateKey privateKey;
+    private final Clock clock;
+    private final JtiGenerator jtiGenerator;
+
+    private final Cache<TemplateKey, ClaimTemplate> templates = CacheBuilder.newBuilder()
+            .maximumSize(MAX_TEMPLATES)
+            .build();
 
     public Rfc9068JwtAccessTokenIssuer(String selfIssuerUri, String privateKeyId, PrivateKey privateKey) {
+        this(selfIssuerUri, privateKeyId, privateKey, Clock.system());
+    }
+
+    public Rfc9068JwtAccessTokenIssuer(String selfIssuerUri, String privateKeyId, PrivateKey privateKey, Clock clock) {
+        this(selfIssuerUri, privateKeyId, privateKey, clock, JtiGenerator.random());
+    }
+
+    public Rfc9068JwtAccessTokenIssuer(String selfIssuerUri, String privateKeyId, PrivateKey privateKey, Clock clock, JtiGenerator jtiGenerator) {
         this.selfIssuerUri = selfIssuerUri;
         this.privateKeyId = privateKeyId;
         this.privateKey = privateKey;
+        this.clock = Objects.requireNonNull(clock);
+        this.jtiGenerator = Objects.requireNonNull(jtiGenerator);
+    }
+
+    private ClaimTemplate getTemplate(TokenSpec spec) {
+        String audience = spec.getClaims().get(ClaimTemplate.CLAIM_AUDIENCE);
+        TemplateKey key = new TemplateKey(spec.getClientId(), audience, spec.getScopeSet());
+
+        // Look up first, as Guava's `asMap().computeIfAbsent()` takes the segment lock even on a hit.
+        ClaimTemplate template = templates.getIfPresent(key);
+        if (template != null) {
+            return template;
+        }
+
+        try {
+            return templates.get(key,
+                    () -> ClaimTemplate.compile(selfIssuerUri, key.getClientId(), key.getAudience(), key.getScopes()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
     }
 
     @Override
     public AccessTokenPayload issueAccessToken(AccessTokenOrder order) {
-        JwtClaims claims = new JwtClaims();
-
-        claims.setGeneratedJwtId();
-        claims.setIssuedAtToNow();
-        claims.setNotBeforeMinutesInThePast(1);
-        claims.setExpirationTimeMinutesInTheFuture(((float) order.getExpiresInSecs()) / 60.f);
-
-        claims.setIssuer(selfIssuerUri);
-        claims.setClaim(CLAIM_CLIENT_ID, order.getSpec().getClientId());
-        claims.setClaim(CLAIM_SCOPE, String.join(" ", order.getSpec().getScopes()));
-        for (Map.Entry<String, String> claim : order.getSpec().getClaims().entrySet()) {
-            claims.setClaim(claim.getKey(), claim.getValue());
-        }
+        TokenSpec spec = order.getSpec();
+
+        long now = clock.millis() / 1000;
+        byte[] claims = getTemplate(spec).render(jtiGenerator.generate(), now, now - NOT_BEFORE_LEEWAY_SECS,
+                now + order.getExpiresInSecs(), spec.getClaims());
 
         JsonWebSignature jws = new JsonWebSignature();
         jws.setHeader(HeaderParameterNames.TYPE, JWT_TYPE);
@@ -52,7 +91,7 @@ public class Rfc9068JwtAccessTokenIssuer implements AccessTokenIssuer {
         jws.setKeyIdHeaderValue(privateKeyId);
 
         jws.setKey(privateKey);
-        jws.setPayload(claims.toJson());
+        jws.setPayloadBytes(claims);
 
         String accessToken = Throw.asRuntime(jws::getCompactSerialization);
 
@@ -60,7 +99,13 @@ public class Rfc9068JwtAccessTokenIssuer implements AccessTokenIssuer {
                 accessToken,
                 AccessTokenPayload.TOKEN_TYPE_BEARER,
                 order.getExpiresInSecs(),
-                order.getSpec()
-                        .getScopes());
+                spec.getScopeSet());
+    }
+
+    @Value
+    private static class TemplateKey {
+        String clientId;
+        String audience;
+        ScopeSet scopes;
     }
 }
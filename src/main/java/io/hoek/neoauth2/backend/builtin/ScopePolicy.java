@@ -0,0 +1,137 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.model.ScopeSet;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A compiled set of scope rules, each granting an audience to either a single scope (e.g. {@code orders:read}) or every
+ * scope with a given prefix (e.g. {@code orders:*}, {@code admin/*}, or just {@code *}). A scope matching an exact rule
+ * gets that rule's audience; otherwise the longest matching prefix rule applies. The rules are compiled into a trie, so
+ * looking up a scope takes time linear in its length no matter how many rules there are.
+ * <p>
+ * Instances are immutable, and can be shared between clients with the same policy. Compiling a policy registers the
+ * scopes of its exact rules with {@code ScopeSet}.
+ */
+public final class ScopePolicy {
+
+    public static final char WILDCARD = '*';
+
+    private static final class Node {
+        // Sorted, and parallel to `children`.
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+
+        private String exactAudience;
+        private String wildcardAudience;
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+
+    private static final class Builder {
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private String exactAudience;
+        private String wildcardAudience;
+
+        private Node build() {
+            Node node = new Node();
+            node.exactAudience = exactAudience;
+            node.wildcardAudience = wildcardAudience;
+            node.keys = new char[children.size()];
+            node.children = new Node[children.size()];
+
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : children.entrySet()) {
+                node.keys[i] = child.getKey();
+                node.children[i] = child.getValue().build();
+                i++;
+            }
+
+            return node;
+        }
+    }
+
+    private final Node root;
+
+    private ScopePolicy(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param rules maps each rule (a scope, or a scope prefix followed by {@code *}) to the audience it grants
+     * @throws IllegalArgumentException if a rule has a {@code *} anywhere but at its end
+     */
+    public static ScopePolicy compile(Map<String, String> rules) {
+        Builder root = new Builder();
+        for (Map.Entry<String, String> rule : rules.entrySet()) {
+            String pattern = rule.getKey();
+            String audience = Objects.requireNonNull(rule.getValue());
+
+            int wildcard = pattern.indexOf(WILDCARD);
+            if (wildcard >= 0 && wildcard != pattern.length() - 1) {
+                throw new IllegalArgumentException("wildcard not at end of scope rule '" + pattern + "'");
+            }
+
+            String prefix = wildcard >= 0 ? pattern.substring(0, wildcard) : pattern;
+
+            Builder node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Builder());
+            }
+
+            if (wildcard >= 0) {
+                node.wildcardAudience = audience;
+            } else {
+                node.exactAudience = audience;
+                ScopeSet.register(pattern);
+            }
+        }
+
+        return new ScopePolicy(root.build());
+    }
+
+    // Returns the audience granted to `scope`, or `null` if no rule matches.
+    public String getAudience(String scope) {
+        Node node = root;
+        String wildcardAudience = null;
+        for (int i = 0; i < scope.length(); i++) {
+            if (node.wildcardAudience != null) {
+                wildcardAudience = node.wildcardAudience;
+            }
+
+            node = node.child(scope.charAt(i));
+            if (node == null) {
+                return wildcardAudience;
+            }
+        }
+
+        if (node.exactAudience != null) {
+            return node.exactAudience;
+        }
+
+        return node.wildcardAudience != null ? node.wildcardAudience : wildcardAudience;
+    }
+
+    // Returns the audience granted to all of `scopes`, or `null` if some scope is not granted, if they are granted
+    // different audiences (since a token only has one), or if there are no scopes.
+    public String getAudience(Collection<String> scopes) {
+        String audience = null;
+        for (String scope : scopes) {
+            String scopeAudience = getAudience(scope);
+            if (scopeAudience == null || (audience != null && !audience.equals(scopeAudience))) {
+                return null;
+            }
+
+            audience = scopeAudience;
+        }
+
+        return audience;
+    }
+}
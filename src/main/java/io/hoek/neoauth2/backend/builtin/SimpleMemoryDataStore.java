@@ -1,40 +1,66 @@
 package io.hoek.neoauth2.backend.builtin;
 
+import com.google.common.base.Ticker;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import io.hoek.neoauth2.backend.Clock;
 
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
-public class SimpleMemoryDataStore implements DataStore {
-    private final Cache<String, Entry> entries = CacheBuilder.newBuilder()
-            .expireAfterWrite(MAX_EXPIRES_IN_SECS, TimeUnit.SECONDS)
-            .build();
+// Values are held by reference and are never encoded, so they should be immutable.
+public class SimpleMemoryDataStore<T> implements DataStore<T> {
+    private final Clock clock;
+    private final Cache<String, Entry<T>> entries;
 
     public SimpleMemoryDataStore() {
         this(false);
     }
 
     public SimpleMemoryDataStore(boolean silent) {
+        this(Clock.system(), silent);
+    }
+
+    public SimpleMemoryDataStore(Clock clock, boolean silent) {
         if (!silent) {
             Logger.getLogger(SimpleMemoryDataStore.class.getName())
                     .warning("This datastore cannot be shared by multiple authorization server instances --- do not use in production!");
         }
+
+        this.clock = Objects.requireNonNull(clock);
+        this.entries = CacheBuilder.newBuilder()
+                .expireAfterWrite(MAX_EXPIRES_IN_SECS, TimeUnit.SECONDS)
+                // Drive eviction from the same clock as expiry checks, so that a `FakeClock` can also age entries out.
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                    }
+                })
+                .build();
     }
 
     @Override
-    public Entry getUncheckedExpiry(String key) {
-        Entry e = entries.getIfPresent(key);
-        if (e == null) {
-            return null;
-        }
+    public Entry<T> getUncheckedExpiry(String key) {
+        ConcurrentMap<String, Entry<T>> map = entries.asMap();
+        while (true) {
+            Entry<T> e = map.get(key);
+            if (e == null || !e.getAccessCount().isFirst()) {
+                return e;
+            }
 
-        entries.put(key, e.withAccessCount(Entry.AccessCount.SUBSEQUENT));
-        return e;
+            // Only the reader whose swap succeeds sees `FIRST`, so that single-use entries are used once even under
+            // races.
+            if (map.replace(key, e, e.withAccessCount(Entry.AccessCount.SUBSEQUENT))) {
+                return e;
+            }
+        }
     }
 
     @Override
-    public void put(String key, Entry value) {
+    public void put(String key, Entry<T> value) {
         entries.put(key, value);
     }
 
@@ -42,4 +68,9 @@ public class SimpleMemoryDataStore implements DataStore {
     public void remove(String key) {
         entries.invalidate(key);
     }
-}
\ No newline at end of file
+
+    @Override
+    public Clock getClock() {
+        return clock;
+    }
+}
@@ -1,7 +1,7 @@
 package io.hoek.neoauth2.backend.builtin;
 
 import io.hoek.neoauth2.backend.ClientRegistration;
-import org.apache.commons.collections4.CollectionUtils;
+import io.hoek.neoauth2.model.ScopeSet;
 
 import javax.validation.constraints.NotNull;
 import java.util.List;
@@ -10,9 +10,11 @@ import java.util.Objects;
 public abstract class SingleScopeClientRegistration implements ClientRegistration {
 
     private final String scope;
+    private final ScopeSet scopeSet;
 
     public SingleScopeClientRegistration(String scope) {
         this.scope = Objects.requireNonNull(scope);
+        this.scopeSet = ScopeSet.of(List.of(scope));
     }
 
     @Override
@@ -22,7 +24,13 @@ public abstract class SingleScopeClientRegistration implements ClientRegistratio
 
     // Returns null if validation of the scopes fails.
     public final String validateScopesAndGetAudience(@NotNull List<String> scopes) {
-        if(!CollectionUtils.isEqualCollection(scopes, List.of(scope))) {
+        return validateScopesAndGetAudience(ScopeSet.of(scopes));
+    }
+
+    // Returns null if validation of the scopes fails.
+    @Override
+    public final String validateScopesAndGetAudience(@NotNull ScopeSet scopes) {
+        if (!scopes.equals(scopeSet)) {
             return null;
         }
 
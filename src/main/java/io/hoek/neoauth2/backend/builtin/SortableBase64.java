@@ -0,0 +1,47 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+// A URL-safe base64 alphabet in ASCII order, so that fixed-width encodings of numbers sort as strings in numeric order.
+final class SortableBase64 {
+
+    private static final char[] ALPHABET = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    // The number of characters needed to encode any `long`.
+    static final int LONG_CHARS = 11;
+
+    private SortableBase64() {
+    }
+
+    // Writes the low `6 * chars` bits of `value`, most significant first, to `out[offset .. offset + chars)`.
+    static void encode(char[] out, int offset, long value, int chars) {
+        for (int i = offset + chars - 1; i >= offset; i--) {
+            out[i] = ALPHABET[(int) (value & 0x3f)];
+            value >>>= 6;
+        }
+    }
+
+    // Returns the 6-bit value of `c`, which must be in the alphabet.
+    static int decode(char c) {
+        int value = Arrays.binarySearch(ALPHABET, c);
+        if (value < 0) {
+            throw new IllegalArgumentException("not a base64 character: '" + c + "'");
+        }
+
+        return value;
+    }
+
+    // A random node ID of `chars` characters, to tell apart the IDs generated by different nodes (or restarts).
+    static char[] randomNodeId(int chars) {
+        byte[] raw = new byte[chars];
+        new SecureRandom().nextBytes(raw);
+
+        char[] out = new char[chars];
+        for (int i = 0; i < chars; i++) {
+            out[i] = ALPHABET[raw[i] & 0x3f];
+        }
+
+        return out;
+    }
+}
@@ -0,0 +1,151 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.hoek.neoauth2.backend.UserRegistration;
+import io.hoek.neoauth2.model.GrantType;
+
+import javax.validation.constraints.NotNull;
+import java.net.URI;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A client whose registration is plain data, as read by {@code FileClientRegistry}. The {@code scopes} rules are
+ * compiled into a {@code ScopePolicy} once, when the registration is constructed.
+ * <p>
+ * A confidential client has a {@code client_secret_hash}, made by {@code ClientSecretHash.hash()}; secrets themselves
+ * are never read from the file.
+ * <p>
+ * The {@code client_credentials} grant is off unless the client lists it in {@code grant_types}, which is only allowed
+ * for a confidential client. The client then acts on its own behalf, so it is also a {@code UserRegistration} whose
+ * {@code sub} is its {@code client_id}. Other grants are governed by the redirect URIs and lifetimes as before.
+ */
+public class StaticClientRegistration extends HierarchicalScopeClientRegistration {
+
+    private final String clientId;
+    private final List<URI> allowedRedirectUris;
+    private final long accessTokenLifetimeSeconds;
+    private final long authorizationCodeLifetimeSeconds;
+    private final long refreshTokenLifetimeSeconds;
+    private final long deviceCodeLifetimeSeconds;
+    private final String clientSecretHash;
+    private final Set<GrantType> grantTypes;
+
+    private StaticClientRegistration(String clientId, List<URI> allowedRedirectUris, Map<String, String> scopes,
+                                     List<String> defaultScopes, long accessTokenLifetimeSeconds,
+                                     Long authorizationCodeLifetimeSeconds, long refreshTokenLifetimeSeconds,
+                                     long deviceCodeLifetimeSeconds, String clientSecretHash, Set<GrantType> grantTypes) {
+        super(ScopePolicy.compile(scopes), defaultScopes);
+
+        this.clientId = Objects.requireNonNull(clientId);
+        this.allowedRedirectUris = allowedRedirectUris == null ? List.of() : List.copyOf(allowedRedirectUris);
+        this.accessTokenLifetimeSeconds = accessTokenLifetimeSeconds;
+        this.authorizationCodeLifetimeSeconds = authorizationCodeLifetimeSeconds == null
+                ? 60L : authorizationCodeLifetimeSeconds;
+        this.refreshTokenLifetimeSeconds = refreshTokenLifetimeSeconds;
+        this.deviceCodeLifetimeSeconds = deviceCodeLifetimeSeconds;
+        this.clientSecretHash = clientSecretHash;
+        this.grantTypes = grantTypes;
+    }
+
+    @JsonCreator
+    public static StaticClientRegistration create(@JsonProperty(value = "client_id", required = true) String clientId,
+                                                  @JsonProperty("redirect_uris") List<URI> allowedRedirectUris,
+                                                  @JsonProperty(value = "scopes", required = true) Map<String, String> scopes,
+                                                  @JsonProperty("default_scopes") List<String> defaultScopes,
+                                                  @JsonProperty(value = "access_token_lifetime_seconds", required = true) long accessTokenLifetimeSeconds,
+                                                  @JsonProperty("authorization_code_lifetime_seconds") Long authorizationCodeLifetimeSeconds,
+                                                  @JsonProperty("refresh_token_lifetime_seconds") long refreshTokenLifetimeSeconds,
+                                                  @JsonProperty("device_code_lifetime_seconds") long deviceCodeLifetimeSeconds,
+                                                  @JsonProperty("client_secret_hash") String clientSecretHash,
+                                                  @JsonProperty("grant_types") List<String> grantTypes) {
+        Set<GrantType> parsed = EnumSet.noneOf(GrantType.class);
+        for (String grantType : grantTypes == null ? List.<String>of() : grantTypes) {
+            GrantType value = GrantType.fromValue(grantType);
+            if (value == null) {
+                throw new IllegalArgumentException("unknown grant type '" + grantType + "' for client '" + clientId + "'");
+            }
+            parsed.add(value);
+        }
+
+        if (!parsed.contains(GrantType.CLIENT_CREDENTIALS)) {
+            return new StaticClientRegistration(clientId, allowedRedirectUris, scopes, defaultScopes, accessTokenLifetimeSeconds,
+                    authorizationCodeLifetimeSeconds, refreshTokenLifetimeSeconds, deviceCodeLifetimeSeconds, clientSecretHash,
+                    Set.copyOf(parsed));
+        }
+
+        if (clientSecretHash == null) {
+            throw new IllegalArgumentException("'client_credentials' grant requires a 'client_secret_hash' for client '" + clientId + "'");
+        }
+
+        return new WithClientCredentials(clientId, allowedRedirectUris, scopes, defaultScopes, accessTokenLifetimeSeconds,
+                authorizationCodeLifetimeSeconds, refreshTokenLifetimeSeconds, deviceCodeLifetimeSeconds, clientSecretHash,
+                Set.copyOf(parsed));
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public Set<GrantType> getGrantTypes() {
+        return grantTypes;
+    }
+
+    @Override
+    public @NotNull Collection<URI> getAllowedRedirectUris() {
+        return allowedRedirectUris;
+    }
+
+    // The list is immutable, so it can stand for its own version.
+    @Override
+    public Object getAllowedRedirectUrisVersion() {
+        return allowedRedirectUris;
+    }
+
+    @Override
+    public long getAccessTokenLifetimeSeconds() {
+        return accessTokenLifetimeSeconds;
+    }
+
+    @Override
+    public long getAuthorizationCodeLifetimeSeconds() {
+        return authorizationCodeLifetimeSeconds;
+    }
+
+    @Override
+    public long getRefreshTokenLifetimeSeconds() {
+        return refreshTokenLifetimeSeconds;
+    }
+
+    @Override
+    public long getDeviceCodeLifetimeSeconds() {
+        return deviceCodeLifetimeSeconds;
+    }
+
+    @Override
+    public String getClientSecretHash() {
+        return clientSecretHash;
+    }
+
+    private static final class WithClientCredentials extends StaticClientRegistration implements UserRegistration {
+
+        private WithClientCredentials(String clientId, List<URI> allowedRedirectUris, Map<String, String> scopes,
+                                      List<String> defaultScopes, long accessTokenLifetimeSeconds,
+                                      Long authorizationCodeLifetimeSeconds, long refreshTokenLifetimeSeconds,
+                                      long deviceCodeLifetimeSeconds, String clientSecretHash, Set<GrantType> grantTypes) {
+            super(clientId, allowedRedirectUris, scopes, defaultScopes, accessTokenLifetimeSeconds,
+                    authorizationCodeLifetimeSeconds, refreshTokenLifetimeSeconds, deviceCodeLifetimeSeconds,
+                    clientSecretHash, grantTypes);
+        }
+
+        @Override
+        public String getSub() {
+            return getClientId();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.Clock;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates IDs made of a 64-bit timestamp then a random node ID, chosen once. The timestamp holds the time of issue in
+ * milliseconds in its high bits and a sequence number in its low {@value #SEQUENCE_BITS}, and strictly increases, even
+ * if the clock goes backwards: IDs generated by one node therefore sort (as strings) in the order they were issued. IDs
+ * generated by different nodes sort by time, to the millisecond.
+ * <p>
+ * If more than {@code 2^}{@value #SEQUENCE_BITS} IDs are generated in one millisecond the timestamp runs ahead of the
+ * clock until it catches up.
+ */
+public final class TimeOrderedJtiGenerator implements JtiGenerator {
+
+    static final int SEQUENCE_BITS = 12;
+
+    private static final int NODE_ID_CHARS = 10;
+
+    private final Clock clock;
+    private final char[] nodeId;
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedJtiGenerator(Clock clock) {
+        this(clock, SortableBase64.randomNodeId(NODE_ID_CHARS));
+    }
+
+    TimeOrderedJtiGenerator(Clock clock, char[] nodeId) {
+        this.clock = Objects.requireNonNull(clock);
+        this.nodeId = nodeId.clone();
+    }
+
+    private long nextTimestamp() {
+        long now = clock.millis() << SEQUENCE_BITS;
+        return last.updateAndGet(prev -> Math.max(now, prev + 1));
+    }
+
+    // Returns the time of issue encoded in an ID generated by this class, in milliseconds since the epoch.
+    public static long getMillis(String jti) {
+        long timestamp = 0;
+        for (int i = 0; i < SortableBase64.LONG_CHARS; i++) {
+            timestamp = (timestamp << 6) | SortableBase64.decode(jti.charAt(i));
+        }
+
+        return timestamp >>> SEQUENCE_BITS;
+    }
+
+    @Override
+    public String generate() {
+        char[] out = new char[SortableBase64.LONG_CHARS + nodeId.length];
+        SortableBase64.encode(out, 0, nextTimestamp(), SortableBase64.LONG_CHARS);
+        System.arraycopy(nodeId, 0, out, SortableBase64.LONG_CHARS, nodeId.length);
+        return new String(out);
+    }
+}
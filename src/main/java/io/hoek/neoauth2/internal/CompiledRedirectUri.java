@@ -0,0 +1,71 @@
+package io.hoek.neoauth2.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The serialized form of a redirect URI, split into the pieces which a {@code RedirectParamWriter} reassembles. Redirect
+ * URIs are drawn from client registrations, so in practice there are few distinct ones and we cache them.
+ */
+final class CompiledRedirectUri {
+
+    private static final long MAX_CACHED = 10_000;
+
+    private static final Cache<URI, CompiledRedirectUri> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED)
+            .build();
+
+    // Everything before the query (or fragment, if there is no query).
+    final String base;
+    // Everything before the fragment.
+    final String withoutFragment;
+    // The fragment including its leading '#', or the empty string.
+    final String fragment;
+    // The raw `name=value` pairs of the query, and their raw names.
+    final String[] queryPairs;
+    final String[] queryNames;
+
+    private CompiledRedirectUri(String uri) {
+        int hash = uri.indexOf('#');
+        withoutFragment = hash < 0 ? uri : uri.substring(0, hash);
+        fragment = hash < 0 ? "" : uri.substring(hash);
+
+        int question = withoutFragment.indexOf('?');
+        if (question < 0) {
+            base = withoutFragment;
+            queryPairs = new String[0];
+            queryNames = new String[0];
+            return;
+        }
+
+        base = withoutFragment.substring(0, question);
+
+        List<String> pairs = new ArrayList<>();
+        for (String pair : withoutFragment.substring(question + 1).split("&")) {
+            if (!pair.isEmpty()) {
+                pairs.add(pair);
+            }
+        }
+
+        queryPairs = pairs.toArray(new String[0]);
+        queryNames = new String[queryPairs.length];
+        for (int i = 0; i < queryPairs.length; i++) {
+            int eq = queryPairs[i].indexOf('=');
+            queryNames[i] = eq < 0 ? queryPairs[i] : queryPairs[i].substring(0, eq);
+        }
+    }
+
+    static CompiledRedirectUri of(URI uri) {
+        CompiledRedirectUri compiled = CACHE.getIfPresent(uri);
+        if (compiled == null) {
+            compiled = new CompiledRedirectUri(uri.toString());
+            CACHE.put(uri, compiled);
+        }
+
+        return compiled;
+    }
+}
@@ -0,0 +1,158 @@
+package io.hoek.neoauth2.internal;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.hoek.neoauth2.model.ErrorResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes {@code ErrorResponse}s as UTF-8 JSON bodies without going through a JSON tree or {@code ObjectMapper}. The
+ * bodies of the most common (static) error responses are pre-encoded, and all other bodies are built by splicing
+ * escaped values into pre-encoded fragments. The output is identical to that of serializing the {@code ErrorResponse}
+ * with Jackson.
+ * <p>
+ * Only errors known in advance are cached: messages may contain user input, so caching on demand would let clients
+ * grow the cache without bound.
+ */
+public final class ErrorResponseEncoder {
+
+    private static final List<String> ERRORS = List.of(
+            ErrorResponse.DESC_INVALID_REQUEST,
+            ErrorResponse.DESC_INVALID_GRANT,
+            ErrorResponse.DESC_INVALID_CLIENT,
+            ErrorResponse.DESC_UNAUTHORIZED_CLIENT,
+            ErrorResponse.DESC_ACCESS_DENIED,
+            ErrorResponse.DESC_UNSUPPORTED_RESPONSE_TYPE,
+            ErrorResponse.DESC_UNSUPPORTED_GRANT_TYPE,
+            ErrorResponse.DESC_INVALID_SCOPE,
+            ErrorResponse.DESC_SERVER_ERROR,
+            ErrorResponse.DESC_TEMPORARILY_UNAVAILABLE,
+            ErrorResponse.DESC_AUTHORIZATION_PENDING,
+            ErrorResponse.DESC_SLOW_DOWN,
+            ErrorResponse.DESC_EXPIRED_TOKEN);
+
+    // The failures we see most often, none of which depend on the request.
+    private static final List<ErrorResponse> COMMON_ERRORS = List.of(
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing param 'client_id'", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing param 'code'", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing param 'response_type'", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing 'grant_type'", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing 'redirect_uri'", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing 'code_verifier'", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing 'code_challenge'", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing 'code_challenge' from authorization", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "code challenge validation failed", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "challenge code method 'plain' disallowed", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "response type 'token' disallowed", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "malformed redirect URI", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "malformed 'redirect_uri'", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "redirect URI not registered", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing redirect URI and no default registered", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "requesting a scope not originally authorized", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "invalid code", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "mismatched 'client_id' with authorization code", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "mismatched 'redirect_uri' with authorization code", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "'redirect_uri' does not match registered default", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_SCOPE, "scopes not authorized", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_SCOPE, "no 'scope' specified", null),
+            new ErrorResponse(ErrorResponse.DESC_ACCESS_DENIED, "resource owner denied access", null),
+            new ErrorResponse(ErrorResponse.DESC_ACCESS_DENIED, "server denied access", null),
+            new ErrorResponse(ErrorResponse.DESC_AUTHORIZATION_PENDING, "authorization pending", null),
+            new ErrorResponse(ErrorResponse.DESC_SLOW_DOWN, "polling too frequently", null),
+            new ErrorResponse(ErrorResponse.DESC_EXPIRED_TOKEN, "device code expired", null),
+            new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "device code already used", null),
+            new ErrorResponse(ErrorResponse.DESC_ACCESS_DENIED, "user denied access", null));
+
+    private static final byte[] FIELD_ERROR_MESSAGE = utf8(",\"error_message\":\"");
+    private static final byte[] FIELD_STATE = utf8(",\"state\":\"");
+    private static final byte[] QUOTE = utf8("\"");
+    private static final byte[] END = utf8("}");
+
+    // Encodings of `{"error":"<error>"`, keyed by error.
+    private static final Map<String, byte[]> ERROR_PREFIXES = new HashMap<>();
+    // Encodings of `{"error":"<error>","error_message":"<message>"`, keyed by error and then message.
+    private static final Map<String, Map<String, byte[]>> MESSAGE_PREFIXES = new HashMap<>();
+    // Complete bodies of the `COMMON_ERRORS`, keyed by error and then message.
+    private static final Map<String, Map<String, byte[]>> BODIES = new HashMap<>();
+
+    static {
+        for (String error : ERRORS) {
+            ERROR_PREFIXES.put(error, encodeErrorPrefix(error));
+        }
+
+        for (ErrorResponse er : COMMON_ERRORS) {
+            byte[] prefix = encodeMessagePrefix(er.getError(), er.getErrorMessage());
+            MESSAGE_PREFIXES.computeIfAbsent(er.getError(), k -> new HashMap<>()).put(er.getErrorMessage(), prefix);
+            BODIES.computeIfAbsent(er.getError(), k -> new HashMap<>()).put(er.getErrorMessage(), concat(prefix, END));
+        }
+    }
+
+    private ErrorResponseEncoder() {
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] escape(String s) {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(s);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeErrorPrefix(String error) {
+        return concat(utf8("{\"error\":\""), escape(error), QUOTE);
+    }
+
+    private static byte[] encodeMessagePrefix(String error, String errorMessage) {
+        byte[] errorPrefix = ERROR_PREFIXES.get(error);
+        if (errorPrefix == null) {
+            errorPrefix = encodeErrorPrefix(error);
+        }
+
+        if (errorMessage == null) {
+            return errorPrefix;
+        }
+
+        return concat(errorPrefix, FIELD_ERROR_MESSAGE, escape(errorMessage), QUOTE);
+    }
+
+    private static byte[] lookup(Map<String, Map<String, byte[]>> map, String error, String errorMessage) {
+        Map<String, byte[]> byMessage = map.get(error);
+        return byMessage == null ? null : byMessage.get(errorMessage);
+    }
+
+    /**
+     * @param er the error response to encode
+     * @return the UTF-8 JSON encoding of {@code er}, which may be shared and so must not be modified
+     */
+    public static byte[] encode(ErrorResponse er) {
+        if (er.getState() == null) {
+            byte[] body = lookup(BODIES, er.getError(), er.getErrorMessage());
+            if (body != null) {
+                return body;
+            }
+        }
+
+        byte[] prefix = lookup(MESSAGE_PREFIXES, er.getError(), er.getErrorMessage());
+        if (prefix == null) {
+            prefix = encodeMessagePrefix(er.getError(), er.getErrorMessage());
+        }
+
+        if (er.getState() == null) {
+            return concat(prefix, END);
+        }
+
+        return concat(prefix, FIELD_STATE, escape(er.getState()), QUOTE, END);
+    }
+}
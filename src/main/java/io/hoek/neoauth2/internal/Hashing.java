@@ -0,0 +1,79 @@
+package io.hoek.neoauth2.internal;
+
+import lombok.SneakyThrows;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// `MessageDigest.getInstance()` and `Mac.getInstance()` are provider lookups, so each thread keeps its own instances and
+// resets them between uses.
+public final class Hashing {
+
+    public static final int SHA256_LENGTH = 32;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(Hashing::newSha256);
+    private static final ThreadLocal<Mac> HMAC_SHA256 = ThreadLocal.withInitial(Hashing::newHmacSha256);
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+
+    private Hashing() {
+    }
+
+    @SneakyThrows
+    private static MessageDigest newSha256() {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    @SneakyThrows
+    private static Mac newHmacSha256() {
+        return Mac.getInstance("HmacSHA256");
+    }
+
+    @SneakyThrows(InvalidKeyException.class)
+    public static byte[] hmacSha256(byte[] key, String data) {
+        Mac mac = HMAC_SHA256.get();
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] sha256(byte[] bytes) {
+        // `digest()` resets the digest when it is done, and a previous use can only have been abandoned part way by
+        // an exception, which `update()` and `digest()` don't throw.
+        return SHA256.get().digest(bytes);
+    }
+
+    public static byte[] sha256(String raw) {
+        return sha256(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256Base64Url(byte[] bytes) {
+        return BASE64_URL.encodeToString(sha256(bytes));
+    }
+
+    public static String sha256Base64Url(String raw) {
+        return BASE64_URL.encodeToString(sha256(raw));
+    }
+
+    public static String encodeBase64Url(byte[] bytes) {
+        return BASE64_URL.encodeToString(bytes);
+    }
+
+    // Returns null if `encoded` is not valid unpadded (or padded) base64url.
+    public static byte[] decodeBase64Url(String encoded) {
+        try {
+            return BASE64_URL_DECODER.decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Takes time depending only on the lengths of `a` and `b`, not their contents. Returns false if either is null.
+    public static boolean constantTimeEquals(byte[] a, byte[] b) {
+        return a != null && b != null && MessageDigest.isEqual(a, b);
+    }
+}
@@ -7,7 +7,10 @@ public final class InvalidRequestException extends Exception {
     private final String error;
     private final String errorMessage;
 
+    // These are thrown for every malformed request, so they must be cheap: no stack trace is captured.
     public InvalidRequestException(String error, String errorMessage) {
+        super(null, null, false, false);
+
         this.error = error;
         this.errorMessage = errorMessage;
     }
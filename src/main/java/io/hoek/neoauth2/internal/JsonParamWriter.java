@@ -1,28 +1,80 @@
 package io.hoek.neoauth2.internal;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import lombok.SneakyThrows;
 
-public final class JsonParamWriter extends ParamWriter<String> {
-    private final ObjectMapper mapper = new ObjectMapper();
-    private final ObjectNode root = mapper.createObjectNode();
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streams parameters as the fields of a JSON object straight into UTF-8 bytes, without building a tree or an
+ * intermediate {@code String}. Each parameter must be set at most once.
+ */
+public final class JsonParamWriter extends ParamWriter<byte[]> {
+
+    // `null` when writing to a caller-supplied stream.
+    private final ByteArrayBuilder buffer;
+    private final JsonGenerator generator;
+
+    @SneakyThrows
+    private JsonParamWriter(ByteArrayBuilder buffer, OutputStream out) {
+        this.buffer = buffer;
+        this.generator = Serialization.FACTORY.createGenerator(out, JsonEncoding.UTF8);
+
+        generator.writeStartObject();
+    }
+
+    private JsonParamWriter(ByteArrayBuilder buffer) {
+        this(buffer, buffer);
+    }
 
     public JsonParamWriter() {
+        this(new ByteArrayBuilder());
+    }
+
+    // Writes into an existing generator, as part of a larger document.
+    private JsonParamWriter(JsonGenerator generator) {
+        this.buffer = null;
+        this.generator = generator;
+    }
+
+    public static byte[] encode(ParamWriter.Writable writable) {
+        return new JsonParamWriter().buildWith(writable);
+    }
+
+    // Writes the encoding of `writable` to `out`, which is flushed but not closed.
+    public static void encode(ParamWriter.Writable writable, OutputStream out) {
+        new JsonParamWriter(null, out).buildWith(writable);
+    }
+
+    // Writes the encoding of `writable` as the next value of `generator`.
+    static void encode(ParamWriter.Writable writable, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writable.writeTo(new JsonParamWriter(generator));
+        generator.writeEndObject();
     }
 
     @Override
+    @SneakyThrows
     public void set(String param, String value) {
-        root.put(param, value);
+        generator.writeStringField(param, value);
     }
 
     @Override
+    @SneakyThrows
     public void set(String param, long value) {
-        root.put(param, value);
+        generator.writeNumberField(param, value);
     }
 
+    // Returns the encoded bytes, or `null` if this writer wrote to a caller-supplied stream.
+    @Override
     @SneakyThrows
-    public String build() {
-        return mapper.writeValueAsString(root);
+    public byte[] build() {
+        generator.writeEndObject();
+        generator.close();
+
+        return buffer == null ? null : buffer.toByteArray();
     }
-}
\ No newline at end of file
+}
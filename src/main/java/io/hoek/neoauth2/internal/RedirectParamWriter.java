@@ -0,0 +1,127 @@
+package io.hoek.neoauth2.internal;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes parameters into a redirect URI, producing the {@code Location} header value directly as a string. Parameter
+ * names and values are percent-encoded as per RFC 3986, leaving only unreserved characters as-is. Setting a parameter
+ * which has already been set replaces the earlier value.
+ */
+public abstract class RedirectParamWriter extends ParamWriter<URI> {
+
+    private static final int MAX_POOLED_CAPACITY = 8 * 1024;
+
+    private static final ThreadLocal<StringBuilder> POOL = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    final CompiledRedirectUri uri;
+
+    private final List<String> names = new ArrayList<>(8);
+    private final List<String> values = new ArrayList<>(8);
+
+    RedirectParamWriter(URI uri) {
+        this.uri = CompiledRedirectUri.of(uri);
+    }
+
+    @Override
+    public final void set(String param, String value) {
+        int existing = names.indexOf(param);
+        if (existing >= 0) {
+            names.remove(existing);
+            values.remove(existing);
+        }
+
+        names.add(param);
+        values.add(value);
+    }
+
+    @Override
+    public final void set(String param, long value) {
+        set(param, String.valueOf(value));
+    }
+
+    protected final boolean hasParams() {
+        return !names.isEmpty();
+    }
+
+    protected final boolean isSet(String encodedName) {
+        for (String name : names) {
+            if (encodedName.equals(encode(name))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    static void appendEncoded(StringBuilder sb, String s) {
+        int i = 0;
+        while (i < s.length() && isUnreserved(s.charAt(i))) {
+            i++;
+        }
+
+        if (i == s.length()) {
+            sb.append(s);
+            return;
+        }
+
+        sb.append(s, 0, i);
+        for (byte b : s.substring(i).getBytes(StandardCharsets.UTF_8)) {
+            if (b >= 0 && isUnreserved((char) b)) {
+                sb.append((char) b);
+            } else {
+                sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+        }
+    }
+
+    static String encode(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        appendEncoded(sb, s);
+        return sb.toString();
+    }
+
+    protected final void appendParams(StringBuilder sb, boolean first) {
+        for (int i = 0; i < names.size(); i++) {
+            if (!first) {
+                sb.append('&');
+            }
+            first = false;
+
+            appendEncoded(sb, names.get(i));
+            sb.append('=');
+            appendEncoded(sb, values.get(i));
+        }
+    }
+
+    protected abstract void appendTo(StringBuilder sb);
+
+    public final String buildLocation() {
+        StringBuilder sb = POOL.get();
+        sb.setLength(0);
+
+        appendTo(sb);
+        String location = sb.toString();
+
+        // Don't hang on to the memory of unusually long URIs.
+        if (sb.capacity() > MAX_POOLED_CAPACITY) {
+            POOL.remove();
+        }
+
+        return location;
+    }
+
+    @Override
+    public final URI build() {
+        return URI.create(buildLocation());
+    }
+}
@@ -0,0 +1,88 @@
+package io.hoek.neoauth2.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.hoek.neoauth2.backend.ClientRegistration;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches requested redirect URIs against those registered by a client in constant time, with the same semantics as
+ * {@link Util#doUrisMatch(URI, URI)}. A matcher indexes a snapshot of the redirect URIs, so later changes to the
+ * collection it was built from are not seen.
+ * <p>
+ * {@link #forClient} keeps the matcher of a client for as long as the client reports the same
+ * {@code getAllowedRedirectUrisVersion()}. A client which reports no version gets no matcher, since only the client
+ * can tell whether its redirect URIs have changed, and rebuilding the index on every request would cost more than
+ * scanning the URIs with {@code Util.doUrisMatch()}.
+ */
+public final class RedirectUriMatcher {
+
+    private static final Cache<ClientRegistration, RedirectUriMatcher> CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final Object version;
+
+    // Registered URIs by their exact string form, so that the common case doesn't even need to parse the candidate.
+    private final Map<String, URI> byString = new HashMap<>();
+    // Registered URIs, as compared by `URI.equals()`.
+    private final Map<URI, URI> byUri = new HashMap<>();
+    // Registered loopback URIs, by their `Util.loopbackKey()`.
+    private final Map<String, URI> byLoopbackKey = new HashMap<>();
+
+    private RedirectUriMatcher(Collection<URI> allowedUris, Object version) {
+        this.version = version;
+
+        for (URI uri : List.copyOf(allowedUris)) {
+            byString.putIfAbsent(uri.toString(), uri);
+            byUri.putIfAbsent(uri, uri);
+
+            if (uri.getHost() != null && Util.isLoopbackHost(uri.getHost())) {
+                byLoopbackKey.putIfAbsent(Util.loopbackKey(uri), uri);
+            }
+        }
+    }
+
+    public static RedirectUriMatcher of(Collection<URI> allowedUris) {
+        return new RedirectUriMatcher(allowedUris, null);
+    }
+
+    // Returns `null` if the client does not version its redirect URIs.
+    public static RedirectUriMatcher forClient(ClientRegistration client) {
+        // Read the version first, so that a change racing with us at worst leaves behind a matcher which is newer than
+        // its version, and so is rebuilt next time.
+        Object version = client.getAllowedRedirectUrisVersion();
+        if (version == null) {
+            return null;
+        }
+
+        RedirectUriMatcher matcher = CACHE.getIfPresent(client);
+        if (matcher == null || !version.equals(matcher.version)) {
+            matcher = new RedirectUriMatcher(client.getAllowedRedirectUris(), version);
+            CACHE.put(client, matcher);
+        }
+
+        return matcher;
+    }
+
+    // Returns the registered URI whose string form is exactly `candidate`, or `null` if there is none.
+    public URI matchExact(String candidate) {
+        return byString.get(candidate);
+    }
+
+    public boolean matches(URI candidate) {
+        if (byUri.containsKey(candidate)) {
+            return true;
+        }
+
+        return !byLoopbackKey.isEmpty()
+                && candidate.getHost() != null
+                && Util.isLoopbackHost(candidate.getHost())
+                && byLoopbackKey.containsKey(Util.loopbackKey(candidate));
+    }
+}
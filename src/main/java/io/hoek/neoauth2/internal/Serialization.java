@@ -0,0 +1,88 @@
+package io.hoek.neoauth2.internal;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.model.AccessTokenPayload;
+import io.hoek.neoauth2.model.CodeChallengeMethod;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.neoauth2.model.GrantType;
+import io.hoek.neoauth2.model.ResponseType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The library-wide JSON machinery. {@code ObjectMapper}s build their serializer caches per-instance, so we keep exactly
+ * one, and hand out {@code ObjectReader}s and {@code ObjectWriter}s (which are immutable and fetch their
+ * (de)serializers when created) from it. Those for the types we serialize ourselves are created when this class is
+ * initialized; call {@link #warmUp()} at startup so that no request pays for the Jackson introspection.
+ */
+public final class Serialization {
+
+    // We only ever write to streams which belong to the caller, so don't close them.
+    public static final JsonFactory FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder(FACTORY)
+            .addModule(new SimpleModule()
+                    .addSerializer(AccessTokenPayload.class, new WritableSerializer<>(AccessTokenPayload.class)))
+            .build();
+
+    private static final List<Class<?>> PREBUILT = List.of(
+            UserAuthorization.class,
+            ErrorResponse.class,
+            AccessTokenPayload.class,
+            ResponseType.class,
+            GrantType.class,
+            CodeChallengeMethod.class);
+
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    static {
+        for (Class<?> clazz : PREBUILT) {
+            readerFor(clazz);
+            writerFor(clazz);
+        }
+    }
+
+    private Serialization() {
+    }
+
+    // Forces the prebuilt readers and writers to be created, if they haven't been already.
+    public static void warmUp() {
+    }
+
+    public static ObjectReader readerFor(Class<?> clazz) {
+        return READERS.computeIfAbsent(clazz, MAPPER::readerFor);
+    }
+
+    public static ObjectWriter writerFor(Class<?> clazz) {
+        return WRITERS.computeIfAbsent(clazz, MAPPER::writerFor);
+    }
+
+    // Serializes a `Writable` with no Jackson annotations of its own in its wire format, as given by `writeTo()`.
+    private static final class WritableSerializer<T extends ParamWriter.Writable> extends StdSerializer<T> {
+
+        private WritableSerializer(Class<T> clazz) {
+            super(clazz);
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            JsonParamWriter.encode(value, gen);
+        }
+    }
+}
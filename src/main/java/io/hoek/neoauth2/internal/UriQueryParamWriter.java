@@ -1,27 +1,33 @@
 package io.hoek.neoauth2.internal;
 
-import javax.ws.rs.core.UriBuilder;
 import java.net.URI;
 
-public final class UriQueryParamWriter extends ParamWriter<URI> {
-
-    private final UriBuilder builder;
+public final class UriQueryParamWriter extends RedirectParamWriter {
 
     public UriQueryParamWriter(URI uri) {
-        this.builder = UriBuilder.fromUri(uri);
+        super(uri);
     }
 
     @Override
-    public void set(String param, String value) {
-        builder.replaceQueryParam(param, value);
-    }
+    protected void appendTo(StringBuilder sb) {
+        sb.append(uri.base);
 
-    @Override
-    public void set(String param, long value) {
-        builder.replaceQueryParam(param, value);
-    }
+        // Parameters we write replace any of the same name already present in the redirect URI.
+        boolean first = true;
+        for (int i = 0; i < uri.queryPairs.length; i++) {
+            if (isSet(uri.queryNames[i])) {
+                continue;
+            }
+
+            sb.append(first ? '?' : '&').append(uri.queryPairs[i]);
+            first = false;
+        }
+
+        if (first && hasParams()) {
+            sb.append('?');
+        }
 
-    public URI build() {
-        return builder.build();
+        appendParams(sb, first);
+        sb.append(uri.fragment);
     }
 }
@@ -1,12 +1,7 @@
 package io.hoek.neoauth2.internal;
 
-import lombok.SneakyThrows;
-
 import javax.ws.rs.core.Response;
-import javax.ws.rs.core.UriBuilder;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.*;
 
@@ -34,10 +29,38 @@ public class Util {
 
         return isLoopbackHost(a.getHost())
                 && isLoopbackHost(b.getHost())
-                && UriBuilder.fromUri(a)
-                .host(b.getHost())
-                .port(b.getPort())
-                .build().equals(b);
+                && loopbackKey(a).equals(loopbackKey(b));
+    }
+
+    // Percent-escapes compare case-insensitively in `URI.equals()`, so we normalize them to upper case.
+    private static String normalizeEscapes(String s) {
+        if (s.indexOf('%') < 0) {
+            return s;
+        }
+
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == '%') {
+                for (int j = i + 1; j <= i + 2 && j < chars.length; j++) {
+                    chars[j] = Character.toUpperCase(chars[j]);
+                }
+            }
+        }
+
+        return new String(chars);
+    }
+
+    private static String keyPart(String raw) {
+        return raw == null ? "-" : "=" + normalizeEscapes(raw);
+    }
+
+    // The parts of a (hierarchical) URI which must agree for two loopback URIs to match, i.e. all but the host and port.
+    static String loopbackKey(URI uri) {
+        return keyPart(uri.getScheme() == null ? null : uri.getScheme().toLowerCase()) + '|'
+                + keyPart(uri.getRawUserInfo()) + '|'
+                + keyPart(uri.getRawPath()) + '|'
+                + keyPart(uri.getRawQuery()) + '|'
+                + keyPart(uri.getRawFragment());
     }
 
     public static String generateRandomBytesBase64UrlEncodedWithoutPadding(SecureRandom random, int numBytes) {
@@ -47,14 +70,11 @@ public class Util {
     }
 
     public static String calculateSha256Base64UrlEncodedWithoutPadding(String raw) {
-        return calculateSha256Base64UrlEncodedWithoutPadding(raw.getBytes(StandardCharsets.UTF_8));
+        return Hashing.sha256Base64Url(raw);
     }
 
-    @SneakyThrows
     public static String calculateSha256Base64UrlEncodedWithoutPadding(byte[] bytes) {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(bytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        return Hashing.sha256Base64Url(bytes);
     }
 
     public static Response.ResponseBuilder addSecurityCacheControlHeaders(Response.ResponseBuilder builder) {
@@ -0,0 +1,33 @@
+package io.hoek.neoauth2.jaxrs;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A response entity holding an already encoded UTF-8 JSON body, which is written out as-is.
+ */
+public final class JsonEntity implements StreamingOutput {
+
+    private final byte[] body;
+
+    public JsonEntity(byte[] body) {
+        this.body = body;
+    }
+
+    // The returned array may be shared and must not be modified.
+    public byte[] getBytes() {
+        return body;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        output.write(body);
+    }
+
+    @Override
+    public String toString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,20 @@
+package io.hoek.neoauth2.jaxrs;
+
+import io.hoek.neoauth2.OAuthReponse;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Serves any {@code OAuthReponse} thrown from a resource method, e.g. by {@code Outcome.getOrThrow()} or
+ * {@code parse()}.
+ */
+@Provider
+public final class OAuthReponseMapper implements ExceptionMapper<OAuthReponse> {
+
+    @Override
+    public Response toResponse(OAuthReponse exception) {
+        return OAuthWebApplicationException.toResponse(exception);
+    }
+}
@@ -0,0 +1,45 @@
+package io.hoek.neoauth2.jaxrs;
+
+import io.hoek.neoauth2.HttpResponse;
+import io.hoek.neoauth2.OAuthReponse;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Adapts an {@code OAuthReponse} to JAX-RS, for resource methods which report it by throwing a
+ * {@code WebApplicationException}. Alternatively, register {@link OAuthReponseMapper} to throw {@code OAuthReponse}s
+ * directly.
+ */
+public final class OAuthWebApplicationException extends WebApplicationException {
+
+    private final OAuthReponse oauthResponse;
+
+    public OAuthWebApplicationException(OAuthReponse oauthResponse) {
+        super(oauthResponse.getMessage(), oauthResponse, toResponse(oauthResponse));
+
+        this.oauthResponse = oauthResponse;
+    }
+
+    public OAuthReponse getOAuthResponse() {
+        return oauthResponse;
+    }
+
+    public static Response toResponse(OAuthReponse oauthResponse) {
+        HttpResponse http = oauthResponse.getHttpResponse();
+
+        Response.ResponseBuilder builder = Response.status(http.getStatus());
+        http.getHeaders().forEach(builder::header);
+        if (http.getBody().length != 0) {
+            builder.entity(new JsonEntity(http.getBody()));
+        }
+
+        return builder.build();
+    }
+
+    // As with the `OAuthReponse` it wraps, this is an ordinary response, so there is no use for a stack trace.
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
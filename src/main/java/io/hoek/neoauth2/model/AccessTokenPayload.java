@@ -1,13 +1,12 @@
 package io.hoek.neoauth2.model;
 
 import io.hoek.neoauth2.internal.ParamWriter;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.List;
 
 @Getter
-@AllArgsConstructor
 public final class AccessTokenPayload implements ParamWriter.Writable {
 
     public static final String TOKEN_TYPE_BEARER = "Bearer";
@@ -15,13 +14,47 @@ public final class AccessTokenPayload implements ParamWriter.Writable {
     private final String accessToken;
     private final String tokenType;
     private final long expireInSeconds;
-    private final List<String> scopes;
+    @Getter(AccessLevel.NONE)
+    private final ScopeSet scopes;
+    // Optional, the refresh token issued alongside the access token.
+    private final RefreshTokenPayload refreshToken;
+
+    public AccessTokenPayload(String accessToken, String tokenType, long expireInSeconds, ScopeSet scopes) {
+        this(accessToken, tokenType, expireInSeconds, scopes, null);
+    }
+
+    private AccessTokenPayload(String accessToken, String tokenType, long expireInSeconds, ScopeSet scopes, RefreshTokenPayload refreshToken) {
+        this.accessToken = accessToken;
+        this.tokenType = tokenType;
+        this.expireInSeconds = expireInSeconds;
+        this.scopes = scopes;
+        this.refreshToken = refreshToken;
+    }
+
+    public AccessTokenPayload(String accessToken, String tokenType, long expireInSeconds, List<String> scopes) {
+        this(accessToken, tokenType, expireInSeconds, ScopeSet.of(scopes));
+    }
+
+    public List<String> getScopes() {
+        return scopes.toList();
+    }
+
+    public ScopeSet getScopeSet() {
+        return scopes;
+    }
+
+    public AccessTokenPayload withRefreshToken(RefreshTokenPayload refreshToken) {
+        return new AccessTokenPayload(accessToken, tokenType, expireInSeconds, scopes, refreshToken);
+    }
 
     @Override
     public void writeTo(ParamWriter<?> writer) {
         writer.set("access_token", accessToken);
         writer.set("token_type", tokenType);
         writer.set("expires_in", expireInSeconds);
-        writer.set("scope", String.join(" ", scopes));
+        writer.set("scope", scopes.toString());
+        if (refreshToken != null) {
+            refreshToken.writeTo(writer);
+        }
     }
 }
@@ -1,18 +1,42 @@
 package io.hoek.neoauth2.model;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.hoek.neoauth2.internal.Hashing;
 import io.hoek.neoauth2.internal.Util;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 public enum CodeChallengeMethod {
 
     // Default according to the PKCE spec
-    @JsonProperty("plain")
-    PLAIN,
+    PLAIN("plain"),
     // SHA-256
-    @JsonProperty("S256")
-    S256,
+    S256("S256"),
     ;
 
+    private static final Map<String, CodeChallengeMethod> BY_VALUE = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(CodeChallengeMethod::getValue, Function.identity()));
+
+    private final String value;
+
+    CodeChallengeMethod(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+
+    // Returns `null` if `value` does not name a code challenge method.
+    public static CodeChallengeMethod fromValue(String value) {
+        return value == null ? null : BY_VALUE.get(value);
+    }
+
     public String calculateChallenge(String codeVerifier) {
         switch (this) {
             case PLAIN:
@@ -23,4 +47,33 @@ public enum CodeChallengeMethod {
                 throw new UnsupportedOperationException();
         }
     }
+
+    // Returns the raw bytes which a verifier must reproduce to match `challenge`, or `null` if `challenge` is malformed.
+    public byte[] decodeChallenge(String challenge) {
+        switch (this) {
+            case PLAIN:
+                return challenge.getBytes(StandardCharsets.UTF_8);
+            case S256:
+                byte[] hash = Hashing.decodeBase64Url(challenge);
+                return hash == null || hash.length != Hashing.SHA256_LENGTH ? null : hash;
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
+
+    // Compares in constant time, so that the comparison leaks nothing about how much of the challenge was matched.
+    public boolean verify(String codeVerifier, byte[] decodedChallenge) {
+        if (decodedChallenge == null) {
+            return false;
+        }
+
+        switch (this) {
+            case PLAIN:
+                return Hashing.constantTimeEquals(codeVerifier.getBytes(StandardCharsets.UTF_8), decodedChallenge);
+            case S256:
+                return Hashing.constantTimeEquals(Hashing.sha256(codeVerifier), decodedChallenge);
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
 }
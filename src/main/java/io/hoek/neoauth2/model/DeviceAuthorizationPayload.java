@@ -0,0 +1,31 @@
+package io.hoek.neoauth2.model;
+
+import io.hoek.neoauth2.internal.ParamWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.net.URI;
+
+// The response of the device authorization endpoint, see RFC 8628 section 3.2.
+@Getter
+@AllArgsConstructor
+public class DeviceAuthorizationPayload implements ParamWriter.Writable {
+    private final String deviceCode;
+    private final String userCode;
+    private final URI verificationUri;
+    private final URI verificationUriComplete;
+    private final long expiresInSeconds;
+    private final long intervalSeconds;
+
+    @Override
+    public void writeTo(ParamWriter<?> writer) {
+        writer.set("device_code", deviceCode);
+        writer.set("user_code", userCode);
+        writer.set("verification_uri", verificationUri.toString());
+        if (verificationUriComplete != null) {
+            writer.set("verification_uri_complete", verificationUriComplete.toString());
+        }
+        writer.set("expires_in", expiresInSeconds);
+        writer.set("interval", intervalSeconds);
+    }
+}
@@ -29,6 +29,12 @@ public class ErrorResponse implements ParamWriter.Writable {
     public static final String DESC_INVALID_SCOPE = "invalid_scope";
     public static final String DESC_SERVER_ERROR = "server_error";
     public static final String DESC_TEMPORARILY_UNAVAILABLE = "temporarily_unavailable";
+    // RFC 9101 (JWT-secured authorization requests), also used for pushed authorization requests:
+    public static final String DESC_INVALID_REQUEST_URI = "invalid_request_uri";
+    // RFC 8628 (device authorization grant):
+    public static final String DESC_AUTHORIZATION_PENDING = "authorization_pending";
+    public static final String DESC_SLOW_DOWN = "slow_down";
+    public static final String DESC_EXPIRED_TOKEN = "expired_token";
 
     @NotNull
     public String error;
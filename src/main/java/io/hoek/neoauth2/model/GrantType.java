@@ -1,12 +1,39 @@
 package io.hoek.neoauth2.model;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public enum GrantType {
 
-    @JsonProperty("authorization_code")
-    AUTHORIZATION_CODE,
+    AUTHORIZATION_CODE("authorization_code"),
+
+    CLIENT_CREDENTIALS("client_credentials"),
+
+    REFRESH_TOKEN("refresh_token"),
+
+    DEVICE_CODE("urn:ietf:params:oauth:grant-type:device_code"),
+    ;
+
+    private static final Map<String, GrantType> BY_VALUE = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(GrantType::getValue, Function.identity()));
+
+    private final String value;
+
+    GrantType(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
 
-    @JsonProperty("client_credentials")
-    CLIENT_CREDENTIALS,
+    // Returns `null` if `value` does not name a grant type.
+    public static GrantType fromValue(String value) {
+        return value == null ? null : BY_VALUE.get(value);
+    }
 }
@@ -1,13 +1,46 @@
 package io.hoek.neoauth2.model;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class PkceInfo {
     private CodeChallengeMethod method;
     private String challenge;
+
+    // Derived from `method` and `challenge` on demand.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient byte[] decodedChallenge;
+
+    public PkceInfo(CodeChallengeMethod method, String challenge) {
+        this.method = method;
+        this.challenge = challenge;
+    }
+
+    public void setMethod(CodeChallengeMethod method) {
+        this.method = method;
+        this.decodedChallenge = null;
+    }
+
+    public void setChallenge(String challenge) {
+        this.challenge = challenge;
+        this.decodedChallenge = null;
+    }
+
+    public boolean verify(String codeVerifier) {
+        if (decodedChallenge == null) {
+            decodedChallenge = method.decodeChallenge(challenge);
+        }
+
+        return method.verify(codeVerifier, decodedChallenge);
+    }
 }
@@ -0,0 +1,19 @@
+package io.hoek.neoauth2.model;
+
+import io.hoek.neoauth2.internal.ParamWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// The response of the pushed authorization request endpoint, see RFC 9126 section 2.2.
+@Getter
+@AllArgsConstructor
+public class PushedAuthorizationPayload implements ParamWriter.Writable {
+    private final String requestUri;
+    private final long expiresInSeconds;
+
+    @Override
+    public void writeTo(ParamWriter<?> writer) {
+        writer.set("request_uri", requestUri);
+        writer.set("expires_in", expiresInSeconds);
+    }
+}
@@ -1,22 +1,43 @@
 package io.hoek.neoauth2.model;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
 import io.hoek.neoauth2.internal.ParamWriter;
 import io.hoek.neoauth2.internal.UriFragmentParamWriter;
 import io.hoek.neoauth2.internal.UriQueryParamWriter;
 
 import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public enum ResponseType {
 
-    @JsonProperty("code")
-    AUTHORIZATION_CODE,
+    AUTHORIZATION_CODE("code"),
 
     // Not allowed by OAuth 2.1, support must be explicitly enabled using `BackwardsCompat`.
-    @JsonProperty("token")
-    IMPLICIT,
+    IMPLICIT("token"),
     ;
 
+    private static final Map<String, ResponseType> BY_VALUE = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(ResponseType::getValue, Function.identity()));
+
+    private final String value;
+
+    ResponseType(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+
+    // Returns `null` if `value` does not name a response type.
+    public static ResponseType fromValue(String value) {
+        return value == null ? null : BY_VALUE.get(value);
+    }
+
     // We don't allow the "hybrid" flow.
 
     public ParamWriter<URI> getWriter(URI redirectUri) {
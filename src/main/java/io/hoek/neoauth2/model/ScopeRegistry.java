@@ -0,0 +1,40 @@
+package io.hoek.neoauth2.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The IDs of the registered scopes, see {@link ScopeSet}. Deployments share the one registry behind
+ * {@link ScopeSet#register(String...)}; tests make their own so that they need not touch it.
+ */
+final class ScopeRegistry {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // Written only while holding the lock on `this`, after the ID is in `ids`.
+    private volatile int size = 0;
+
+    int size() {
+        return size;
+    }
+
+    // Returns the ID of `scope` if it was registered before the registry reached `generation` scopes, else `-1`.
+    int lookup(String scope, int generation) {
+        Integer id = ids.get(scope);
+        return id != null && id < generation ? id : -1;
+    }
+
+    void register(String... scopes) {
+        for (String scope : scopes) {
+            if (!scope.isEmpty()) {
+                register(scope);
+            }
+        }
+    }
+
+    private synchronized void register(String scope) {
+        if (size < ScopeSet.MAX_INTERNED && !ids.containsKey(scope)) {
+            ids.put(scope, size);
+            size++;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package io.hoek.neoauth2.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * An immutable set of scopes. Registered scopes have small integer IDs, so that a set of them is just a bitset and
+ * equality and subset tests take a few {@code long} operations.
+ * <p>
+ * Scopes only get IDs through {@link #register(String...)}, which deployments should call at startup with their known
+ * scopes (compiled client policies do so for their exact rules). Scopes which merely arrive in requests are never
+ * registered, so that requests cannot fill the registry; they are stored by name alongside the bitset. This is only
+ * slower, never wrong. The registry is bounded, and once it is full further scopes are stored by name as well.
+ * <p>
+ * A set records how many scopes were registered when it was made, and only uses the IDs below that, so a scope
+ * registered later does not change what the set holds. Sets made at different times compare by name if either holds
+ * scopes by name.
+ * <p>
+ * Empty scope tokens are ignored and duplicates are dropped. The order in which the scopes were first given is
+ * preserved by {@link #toList()} and {@link #toString()} (the space-separated form, as sent on the wire), but not
+ * considered by {@link #equals(Object)}.
+ */
+public final class ScopeSet {
+
+    public static final int MAX_INTERNED = 4096;
+
+    private static final ScopeRegistry REGISTRY = new ScopeRegistry();
+
+    public static final ScopeSet EMPTY = new ScopeSet(REGISTRY, 0, new long[0], new String[0], List.of());
+
+    private final ScopeRegistry setRegistry;
+    private final int generation;
+    // Trimmed so that there are no trailing zero words, which makes equal sets have equal arrays.
+    private final long[] bits;
+    // The scopes which did not get IDs, sorted.
+    private final String[] extras;
+    private final List<String> ordered;
+
+    private String string;
+    private int hash;
+
+    private ScopeSet(ScopeRegistry setRegistry, int generation, long[] bits, String[] extras, List<String> ordered) {
+        this.setRegistry = setRegistry;
+        this.generation = generation;
+        this.bits = bits;
+        this.extras = extras;
+        this.ordered = ordered;
+    }
+
+    public static void register(String... scopes) {
+        REGISTRY.register(scopes);
+    }
+
+    public static ScopeSet of(Collection<String> scopes) {
+        return of(REGISTRY, scopes);
+    }
+
+    static ScopeSet of(ScopeRegistry registry, Collection<String> scopes) {
+        if (scopes.isEmpty()) {
+            return EMPTY;
+        }
+
+        int generation = registry.size();
+
+        long[] bits = new long[0];
+        TreeSet<String> extras = null;
+        List<String> ordered = new ArrayList<>(scopes.size());
+
+        for (String scope : scopes) {
+            if (scope.isEmpty()) {
+                continue;
+            }
+
+            int id = registry.lookup(scope, generation);
+            if (id >= 0) {
+                int word = id >>> 6;
+                if (word >= bits.length) {
+                    bits = Arrays.copyOf(bits, word + 1);
+                }
+
+                if ((bits[word] & (1L << id)) != 0) {
+                    continue;
+                }
+
+                bits[word] |= 1L << id;
+            } else {
+                if (extras == null) {
+                    extras = new TreeSet<>();
+                }
+
+                if (!extras.add(scope)) {
+                    continue;
+                }
+            }
+
+            ordered.add(scope);
+        }
+
+        return new ScopeSet(registry, generation, bits, extras == null ? new String[0] : extras.toArray(new String[0]),
+                Collections.unmodifiableList(ordered));
+    }
+
+    // Parses a space-separated list of scopes, as in the `scope` parameter.
+    public static ScopeSet parse(String scopes) {
+        return parse(REGISTRY, scopes);
+    }
+
+    static ScopeSet parse(ScopeRegistry registry, String scopes) {
+        return of(registry, Arrays.asList(scopes.split(" ")));
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    public boolean isEmpty() {
+        return ordered.isEmpty();
+    }
+
+    private long word(int i) {
+        return i < bits.length ? bits[i] : 0;
+    }
+
+    public boolean contains(String scope) {
+        int id = setRegistry.lookup(scope, generation);
+        if (id >= 0) {
+            return (word(id >>> 6) & (1L << id)) != 0;
+        }
+
+        return Arrays.binarySearch(extras, scope) >= 0;
+    }
+
+    // True if both sets store each scope the same way, by ID or by name, so that they can be compared bit by bit.
+    private boolean isComparableTo(ScopeSet other) {
+        return setRegistry == other.setRegistry
+                && (generation == other.generation || (extras.length == 0 && other.extras.length == 0));
+    }
+
+    public boolean containsAll(ScopeSet other) {
+        if (!isComparableTo(other)) {
+            for (String scope : other.ordered) {
+                if (!contains(scope)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        if (other.bits.length > bits.length || other.extras.length > extras.length) {
+            return false;
+        }
+
+        for (int i = 0; i < other.bits.length; i++) {
+            if ((other.bits[i] & ~bits[i]) != 0) {
+                return false;
+            }
+        }
+
+        for (String extra : other.extras) {
+            if (Arrays.binarySearch(extras, extra) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // The scopes, in the order they were first given.
+    public List<String> toList() {
+        return ordered;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof ScopeSet)) {
+            return false;
+        }
+
+        ScopeSet other = (ScopeSet) o;
+        if (!isComparableTo(other)) {
+            return size() == other.size() && containsAll(other);
+        }
+
+        return Arrays.equals(bits, other.bits) && Arrays.equals(extras, other.extras);
+    }
+
+    // By name, so that it agrees with `equals()` between sets which store their scopes differently.
+    @Override
+    public int hashCode() {
+        if (hash == 0) {
+            int h = 0;
+            for (String scope : ordered) {
+                h += scope.hashCode();
+            }
+            hash = h;
+        }
+
+        return hash;
+    }
+
+    // The space-separated scopes, in the order they were first given.
+    @Override
+    public String toString() {
+        if (string == null) {
+            string = String.join(" ", ordered);
+        }
+
+        return string;
+    }
+}
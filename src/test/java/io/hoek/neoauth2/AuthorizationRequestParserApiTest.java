@@ -3,6 +3,7 @@ package io.hoek.neoauth2;
 import io.hoek.neoauth2.extension.OAuth21SpecViolation;
 import io.hoek.neoauth2.internal.Util;
 import io.hoek.neoauth2.model.CodeChallengeMethod;
+import io.hoek.neoauth2.model.ErrorResponse;
 import io.hoek.neoauth2.model.PkceInfo;
 import io.hoek.neoauth2.test.MockCredentials;
 import io.hoek.neoauth2.test.TestUtil;
@@ -20,7 +21,7 @@ public class AuthorizationRequestParserApiTest {
     @Test
     public void testEnforceSealedExtensionClasses() {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
-                AuthorizationRequest.parser().addExtension(new MySuperDuperSpecialExtension()));
+                AuthorizationRequest.parser().withExtension(new MySuperDuperSpecialExtension()));
 
         assertEquals(ex.getMessage(), "Custom extensions are not supported! (" + MySuperDuperSpecialExtension.class + ")");
     }
@@ -29,12 +30,41 @@ public class AuthorizationRequestParserApiTest {
     public void testNoDuplciateExtensions() {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
                 AuthorizationRequest.parser()
-                        .addExtension(OAuth21SpecViolation.allowImplicit())
-                        .addExtension(OAuth21SpecViolation.allowImplicit()));
+                        .withExtension(OAuth21SpecViolation.allowImplicit())
+                        .withExtension(OAuth21SpecViolation.allowImplicit()));
 
         assertEquals(ex.getMessage(), "duplicate extension: " + OAuth21SpecViolation.AllowImplicit.class);
     }
 
+    @Test
+    public void testParsersAreImmutable() {
+        AuthorizationRequestParser parser = AuthorizationRequest.parser();
+        AuthorizationRequestParser withImplicit = parser.withExtension(OAuth21SpecViolation.allowImplicit());
+
+        assertNotSame(parser, withImplicit);
+        assertSame(parser, AuthorizationRequest.parser());
+
+        // The original parser must still refuse the implicit flow.
+        ErrorResponse er = (ErrorResponse) assertThrows(OAuthReponse.Redirect.class, () -> parser.parse(
+                MockCredentials.DEFAULT_CLIENT_REGISTRATION, new ResteasyUriInfo(
+                        UriBuilder.fromUri("https://auth.example.com/authorization")
+                                .queryParam("response_type", "token")
+                                .queryParam("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID)
+                                .queryParam("redirect_uri", MockCredentials.DEFAULT_REDIRECT_URI.toString())
+                                .queryParam("nonce", TestUtil.getRandom32Bytes())
+                                .build()))).getContent();
+        assertEquals(new ErrorResponse("invalid_request", "response type 'token' disallowed", null), er);
+
+        assertDoesNotThrow(() -> withImplicit.parse(
+                MockCredentials.DEFAULT_CLIENT_REGISTRATION, new ResteasyUriInfo(
+                        UriBuilder.fromUri("https://auth.example.com/authorization")
+                                .queryParam("response_type", "token")
+                                .queryParam("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID)
+                                .queryParam("redirect_uri", MockCredentials.DEFAULT_REDIRECT_URI.toString())
+                                .queryParam("nonce", TestUtil.getRandom32Bytes())
+                                .build())));
+    }
+
     private static class MySuperDuperSpecialExtension extends AuthorizationRequestParser.Extension {
         @Override
         public String toString() {
@@ -66,4 +96,47 @@ public class AuthorizationRequestParserApiTest {
                         new PkceInfo(CodeChallengeMethod.S256, codeChallenge)),
                 request);
     }
+
+    @Test
+    public void testTryParse() {
+        String codeChallenge = TestUtil.getRandom32Bytes() + TestUtil.getRandom32Bytes();
+
+        Outcome<AuthorizationRequestGranter> success = AuthorizationRequest.parser()
+                .tryParse(MockCredentials.DEFAULT_CLIENT_REGISTRATION, new ResteasyUriInfo(
+                        UriBuilder.fromUri("https://auth.example.com/authorization")
+                                .queryParam("response_type", "code")
+                                .queryParam("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID)
+                                .queryParam("redirect_uri", MockCredentials.DEFAULT_REDIRECT_URI.toString())
+                                .queryParam("code_challenge_method", "S256")
+                                .queryParam("code_challenge", codeChallenge)
+                                .build()));
+        assertTrue(success.isSuccess());
+        assertEquals(MockCredentials.DEFAULT_CLAIM_CLIENT_ID, success.getOrThrow().getRequest().getClientId());
+
+        Outcome<AuthorizationRequestGranter> badRedirect = AuthorizationRequest.parser()
+                .tryParse(MockCredentials.DEFAULT_CLIENT_REGISTRATION, new ResteasyUriInfo(
+                        UriBuilder.fromUri("https://auth.example.com/authorization")
+                                .queryParam("response_type", "code")
+                                .queryParam("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID)
+                                .queryParam("redirect_uri", "https://evil.example.com")
+                                .queryParam("state", "xyz")
+                                .build()));
+        assertFalse(badRedirect.isSuccess());
+        assertFalse(((Outcome.Failure<AuthorizationRequestGranter>) badRedirect).isRedirect());
+        assertEquals(new ErrorResponse("invalid_request", "redirect URI not registered", "xyz"),
+                ((Outcome.Failure<AuthorizationRequestGranter>) badRedirect).getError());
+        assertEquals(HttpResponse.STATUS_BAD_REQUEST,
+                ((Outcome.Failure<AuthorizationRequestGranter>) badRedirect).toResponse().getStatus());
+
+        Outcome<AuthorizationRequestGranter> badType = AuthorizationRequest.parser()
+                .tryParse(MockCredentials.DEFAULT_CLIENT_REGISTRATION, new ResteasyUriInfo(
+                        UriBuilder.fromUri("https://auth.example.com/authorization")
+                                .queryParam("response_type", "fancypants")
+                                .queryParam("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID)
+                                .queryParam("redirect_uri", MockCredentials.DEFAULT_REDIRECT_URI.toString())
+                                .build()));
+        assertTrue(((Outcome.Failure<AuthorizationRequestGranter>) badType).isRedirect());
+        assertEquals(new ErrorResponse("unsupported_response_type", "unsupported response type 'fancypants'", null),
+                assertThrows(OAuthReponse.Redirect.class, badType::getOrThrow).getContent());
+    }
 }
@@ -101,7 +101,7 @@ public class AuthorizationRequestParserFlowAuthorizationCodeTest {
         String codeChallenge = TestUtil.getRandom32Bytes();
 
         AuthorizationRequest request = assertDoesNotThrow(() -> AuthorizationRequest.parser()
-                .addExtensions(allowPlain ? List.of(OAuth21SpecOption.allowPlainCodeChallengeMethod()) : List.of())
+                .withExtensions(allowPlain ? List.of(OAuth21SpecOption.allowPlainCodeChallengeMethod()) : List.of())
                 .parse(new MockCredentials.MockClientRegistration() {
                            @Override
                            public @NonNull @lombok.NonNull Collection<URI> getAllowedRedirectUris() {
@@ -137,7 +137,7 @@ public class AuthorizationRequestParserFlowAuthorizationCodeTest {
     @ParameterizedTest
     @MethodSource("getSuccessNoPkceArgs")
     public void testSuccessNoPkce(List<AuthorizationRequestParser.Extension> extensions, String state, String nonce) {
-        AuthorizationRequest request = assertDoesNotThrow(() -> AuthorizationRequest.parser().addExtensions(extensions)
+        AuthorizationRequest request = assertDoesNotThrow(() -> AuthorizationRequest.parser().withExtensions(extensions)
                 .parse(new MockCredentials.MockClientRegistration() {
                            @Override
                            public @NonNull @lombok.NonNull Collection<URI> getAllowedRedirectUris() {
@@ -380,7 +380,7 @@ public class AuthorizationRequestParserFlowAuthorizationCodeTest {
         String nonce = TestUtil.getRandom32Bytes();
 
         ErrorResponse er = (ErrorResponse) assertThrows(OAuthReponse.Redirect.class, () ->
-                AuthorizationRequest.parser().addExtensions(extensions).parse(
+                AuthorizationRequest.parser().withExtensions(extensions).parse(
                         MockCredentials.DEFAULT_CLIENT_REGISTRATION,
                         new Param.MockReader(List.of(new Param("response_type", "code"),
                                 new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
@@ -400,7 +400,7 @@ public class AuthorizationRequestParserFlowAuthorizationCodeTest {
         String nonce = TestUtil.getRandom32Bytes();
 
         ErrorResponse er = (ErrorResponse) assertThrows(OAuthReponse.Redirect.class, () ->
-                AuthorizationRequest.parser().addExtensions(extensions).parse(
+                AuthorizationRequest.parser().withExtensions(extensions).parse(
                         MockCredentials.DEFAULT_CLIENT_REGISTRATION,
                         new Param.MockReader(List.of(new Param("response_type", "code"),
                                 new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
@@ -420,7 +420,7 @@ public class AuthorizationRequestParserFlowAuthorizationCodeTest {
         String nonce = TestUtil.getRandom32Bytes();
 
         ErrorResponse er = (ErrorResponse) assertThrows(OAuthReponse.Redirect.class, () ->
-                AuthorizationRequest.parser().addExtensions(extensions).parse(
+                AuthorizationRequest.parser().withExtensions(extensions).parse(
                         MockCredentials.DEFAULT_CLIENT_REGISTRATION,
                         new Param.MockReader(List.of(new Param("response_type", "code"),
                                 new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
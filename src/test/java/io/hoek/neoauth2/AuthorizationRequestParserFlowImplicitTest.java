@@ -55,7 +55,7 @@ public class AuthorizationRequestParserFlowImplicitTest {
         String state = TestUtil.getRandom32Bytes();
 
         AuthorizationRequest response = assertDoesNotThrow(() ->
-                AuthorizationRequest.parser().addExtension(OAuth21SpecViolation.allowImplicit(false)).parse(
+                AuthorizationRequest.parser().withExtension(OAuth21SpecViolation.allowImplicit(false)).parse(
                         MockCredentials.DEFAULT_CLIENT_REGISTRATION,
                         new Param.MockReader(List.of(new Param("response_type", "token"),
                                 new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
@@ -79,7 +79,7 @@ public class AuthorizationRequestParserFlowImplicitTest {
         String state = TestUtil.getRandom32Bytes();
 
         ErrorResponse er = (ErrorResponse) assertThrows(OAuthReponse.Redirect.class, () ->
-                AuthorizationRequest.parser().addExtensions(extensions).parse(
+                AuthorizationRequest.parser().withExtensions(extensions).parse(
                         MockCredentials.DEFAULT_CLIENT_REGISTRATION,
                         new Param.MockReader(List.of(new Param("response_type", "token"),
                                 new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
@@ -97,7 +97,7 @@ public class AuthorizationRequestParserFlowImplicitTest {
         String nonce = TestUtil.getRandom32Bytes();
 
         AuthorizationRequest response = assertDoesNotThrow(() ->
-                AuthorizationRequest.parser().addExtensions(extensions).parse(
+                AuthorizationRequest.parser().withExtensions(extensions).parse(
                         MockCredentials.DEFAULT_CLIENT_REGISTRATION,
                         new Param.MockReader(List.of(new Param("response_type", "token"),
                                 new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
@@ -139,7 +139,7 @@ public class AuthorizationRequestParserFlowImplicitTest {
         String nonce = TestUtil.getRandom32Bytes();
 
         ErrorResponse er = (ErrorResponse) assertThrows(OAuthReponse.Redirect.class, () ->
-                AuthorizationRequest.parser().addExtensions(extensions).parse(
+                AuthorizationRequest.parser().withExtensions(extensions).parse(
                         MockCredentials.DEFAULT_CLIENT_REGISTRATION,
                         new Param.MockReader(Stream.concat(Stream.of(
                                                 new Param("response_type", "token"),
@@ -0,0 +1,206 @@
+package io.hoek.neoauth2;
+
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.ClientSecretHash;
+import io.hoek.neoauth2.backend.builtin.FakeClock;
+import io.hoek.neoauth2.backend.builtin.SimpleMemoryDataStore;
+import io.hoek.neoauth2.extension.OAuth21SpecOption;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.neoauth2.model.PushedAuthorizationPayload;
+import io.hoek.neoauth2.test.MockCredentials;
+import io.hoek.neoauth2.test.Param;
+import io.hoek.neoauth2.test.TestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthorizationRequestParserPushedTest {
+
+    private final FakeClock clock = new FakeClock();
+    private final AuthorizationRequestParser parser = AuthorizationRequest.parser().toBuilder()
+            .pushedAuthorizationRequests(new SimpleMemoryDataStore<>(clock, true))
+            .build();
+
+    private static List<Param> authorizationParams(Param... extra) {
+        List<Param> params = new ArrayList<>(List.of(
+                new Param("response_type", "code"),
+                new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
+                new Param("redirect_uri", MockCredentials.DEFAULT_REDIRECT_URI.toString()),
+                new Param("scope", "ascope"),
+                new Param("state", "xyz"),
+                new Param("code_challenge_method", "S256"),
+                new Param("code_challenge", TestUtil.getRandom32Bytes())));
+        params.addAll(List.of(extra));
+        return params;
+    }
+
+    private String push(AuthorizationRequestParser parser) {
+        OAuthReponse.JsonPage page = parser.push(MockCredentials.DEFAULT_CLIENT_REGISTRATION, new Param.MockReader(authorizationParams()));
+        assertEquals(201, page.getStatus());
+
+        PushedAuthorizationPayload payload = (PushedAuthorizationPayload) page.getContent();
+        assertTrue(payload.getRequestUri().startsWith(AuthorizationRequestParser.REQUEST_URI_PREFIX));
+        assertEquals(AuthorizationRequestParser.PUSHED_REQUEST_LIFETIME_SECONDS, payload.getExpiresInSeconds());
+        return payload.getRequestUri();
+    }
+
+    private Outcome<AuthorizationRequestGranter> redeem(AuthorizationRequestParser parser, String clientId, String requestUri) {
+        return parser.tryParse(MockCredentials.DEFAULT_CLIENT_REGISTRATION, new Param.MockReader(List.of(
+                new Param("client_id", clientId),
+                new Param("request_uri", requestUri))));
+    }
+
+    private static ErrorResponse error(Outcome<?> outcome) {
+        assertFalse(((Outcome.Failure<?>) outcome).isRedirect());
+        return ((Outcome.Failure<?>) outcome).getError();
+    }
+
+    @Test
+    public void testPushAndRedeem() {
+        String requestUri = push(parser);
+
+        AuthorizationRequest pushed = redeem(parser, MockCredentials.DEFAULT_CLAIM_CLIENT_ID, requestUri).getOrThrow().getRequest();
+        AuthorizationRequest direct = parser.parse(MockCredentials.DEFAULT_CLIENT_REGISTRATION,
+                new Param.MockReader(authorizationParams())).getRequest();
+
+        assertEquals(MockCredentials.DEFAULT_CLAIM_CLIENT_ID, pushed.getClientId());
+        assertEquals(MockCredentials.DEFAULT_REDIRECT_URI, pushed.getRedirectUri());
+        assertEquals(List.of("ascope"), pushed.getScopes());
+        assertEquals("xyz", pushed.state);
+        assertEquals(direct.getClass(), pushed.getClass());
+    }
+
+    @Test
+    public void testRequestUriIsSingleUse() {
+        String requestUri = push(parser);
+
+        assertTrue(redeem(parser, MockCredentials.DEFAULT_CLAIM_CLIENT_ID, requestUri).isSuccess());
+        assertEquals(new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST_URI, "invalid or expired 'request_uri'", null),
+                error(redeem(parser, MockCredentials.DEFAULT_CLAIM_CLIENT_ID, requestUri)));
+    }
+
+    @Test
+    public void testRacingRedeemsAcceptOne() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String requestUri = push(parser);
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return redeem(parser, MockCredentials.DEFAULT_CLAIM_CLIENT_ID, requestUri).isSuccess();
+                    }));
+                }
+                start.countDown();
+
+                int redeemed = 0;
+                for (Future<Boolean> result : results) {
+                    if (result.get()) {
+                        redeemed++;
+                    }
+                }
+                assertEquals(1, redeemed);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRequestUriExpires() {
+        String requestUri = push(parser);
+
+        clock.advance(Duration.ofSeconds(AuthorizationRequestParser.PUSHED_REQUEST_LIFETIME_SECONDS + 1));
+        assertEquals(ErrorResponse.DESC_INVALID_REQUEST_URI,
+                error(redeem(parser, MockCredentials.DEFAULT_CLAIM_CLIENT_ID, requestUri)).getError());
+    }
+
+    @Test
+    public void testRedeemRejects() {
+        String requestUri = push(parser);
+
+        assertEquals(new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "mismatched 'client_id' with 'request_uri'", null),
+                error(redeem(parser, "mallory", requestUri)));
+        assertEquals(ErrorResponse.DESC_INVALID_REQUEST_URI,
+                error(redeem(parser, MockCredentials.DEFAULT_CLAIM_CLIENT_ID, "https://example.com/request")).getError());
+        assertEquals(ErrorResponse.DESC_INVALID_REQUEST_URI,
+                error(redeem(parser, MockCredentials.DEFAULT_CLAIM_CLIENT_ID, AuthorizationRequestParser.REQUEST_URI_PREFIX + "nope")).getError());
+        assertEquals(new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "'request_uri' not supported", null),
+                error(redeem(AuthorizationRequest.parser(), MockCredentials.DEFAULT_CLAIM_CLIENT_ID, requestUri)));
+    }
+
+    @Test
+    public void testPushRejects() {
+        OAuthReponse.JsonPage badRedirect = parser.push(MockCredentials.DEFAULT_CLIENT_REGISTRATION, new Param.MockReader(List.of(
+                new Param("response_type", "code"),
+                new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
+                new Param("redirect_uri", "https://evil.example.com/"),
+                new Param("state", "xyz"))));
+        assertEquals(400, badRedirect.getStatus());
+        assertEquals(new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "redirect URI not registered", null), badRedirect.getContent());
+
+        // Errors which the front channel would redirect with are reported directly, and without the `state`.
+        OAuthReponse.JsonPage badPkce = parser.push(MockCredentials.DEFAULT_CLIENT_REGISTRATION, new Param.MockReader(List.of(
+                new Param("response_type", "code"),
+                new Param("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID),
+                new Param("redirect_uri", MockCredentials.DEFAULT_REDIRECT_URI.toString()),
+                new Param("state", "xyz"))));
+        assertEquals(400, badPkce.getStatus());
+        assertEquals(new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing 'code_challenge'", null), badPkce.getContent());
+
+        OAuthReponse.JsonPage nested = parser.push(MockCredentials.DEFAULT_CLIENT_REGISTRATION,
+                new Param.MockReader(authorizationParams(new Param("request_uri", AuthorizationRequestParser.REQUEST_URI_PREFIX + "x"))));
+        assertEquals(400, nested.getStatus());
+
+        assertThrows(IllegalStateException.class, () -> AuthorizationRequest.parser().push(
+                MockCredentials.DEFAULT_CLIENT_REGISTRATION, new Param.MockReader(authorizationParams())));
+    }
+
+    @Test
+    public void testPushAuthenticatesClient() {
+        String hash = ClientSecretHash.hash("s3cret", 1000);
+        ClientRegistration confidential = new MockCredentials.MockClientRegistration() {
+            @Override
+            public String getClientSecretHash() {
+                return hash;
+            }
+        };
+
+        OAuthReponse.JsonPage anonymous = parser.push(confidential, new Param.MockReader(authorizationParams()));
+        assertEquals(401, anonymous.getStatus());
+        assertEquals("Basic", anonymous.getHttpResponse().getHeader(HttpResponse.HEADER_WWW_AUTHENTICATE));
+        assertEquals(new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "client authentication required", null), anonymous.getContent());
+
+        OAuthReponse.JsonPage wrong = parser.push(confidential,
+                new Param.MockReader(authorizationParams(new Param("client_secret", "wrong"))));
+        assertEquals(401, wrong.getStatus());
+
+        String basic = "Basic " + Base64.getEncoder().encodeToString(
+                (MockCredentials.DEFAULT_CLAIM_CLIENT_ID + ":s3cret").getBytes(StandardCharsets.UTF_8));
+        assertEquals(201, parser.push(confidential, new Param.MockReader(authorizationParams()), basic).getStatus());
+        assertEquals(201, parser.push(confidential,
+                new Param.MockReader(authorizationParams(new Param("client_secret", "s3cret")))).getStatus());
+    }
+
+    @Test
+    public void testStoreSurvivesToBuilder() {
+        AuthorizationRequestParser extended = parser.withExtension(OAuth21SpecOption.allowPlainCodeChallengeMethod());
+        String requestUri = push(extended);
+
+        assertTrue(redeem(extended, MockCredentials.DEFAULT_CLAIM_CLIENT_ID, requestUri).isSuccess());
+    }
+}
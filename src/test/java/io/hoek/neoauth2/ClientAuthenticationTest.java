@@ -0,0 +1,149 @@
+package io.hoek.neoauth2;
+
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.ClientRegistry;
+import io.hoek.neoauth2.backend.ClientSecretHash;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.neoauth2.test.MockCredentials;
+import io.hoek.neoauth2.test.Param;
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientAuthenticationTest {
+
+    private static final String CLIENT_ID = MockCredentials.DEFAULT_CLAIM_CLIENT_ID;
+    private static final String SECRET = "s3cret:with/odd+chars";
+
+    private static ClientRegistration hashedClient(String secret) {
+        String hash = ClientSecretHash.hash(secret, 1000);
+        return new MockCredentials.MockClientRegistration() {
+            @Override
+            public String getClientSecretHash() {
+                return hash;
+            }
+        };
+    }
+
+    private static ClientRegistration plainClient(String secret) {
+        return new MockCredentials.MockClientRegistration() {
+            @Override
+            public String getClientSecret() {
+                return secret;
+            }
+        };
+    }
+
+    private static String basic(String clientId, String secret) {
+        String credentials = URLEncoder.encode(clientId, StandardCharsets.UTF_8) + ":" + URLEncoder.encode(secret, StandardCharsets.UTF_8);
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ParamReader params(Param... extra) {
+        List<Param> params = new ArrayList<>(List.of(new Param("grant_type", "client_credentials")));
+        params.addAll(List.of(extra));
+        return new Param.MockReader(params);
+    }
+
+    private static Outcome<TokenRequestGranter> tryParse(ClientRegistration client, ParamReader params, String authorization) {
+        return TokenRequest.parser().tryParse(MockCredentials.DEFAULT_ISSUER_BUNDLE, client, params, authorization);
+    }
+
+    private static void assertFailure(int status, ErrorResponse error, Outcome<?> outcome) {
+        assertFalse(outcome.isSuccess());
+        HttpResponse response = ((Outcome.Failure<?>) outcome).toResponse().getHttpResponse();
+        assertEquals(status, response.getStatus());
+        assertEquals(status == 401 ? "Basic" : null, response.getHeader(HttpResponse.HEADER_WWW_AUTHENTICATE));
+        assertEquals(error, ((Outcome.Failure<?>) outcome).getError());
+    }
+
+    @Test
+    public void testClientSecretBasic() {
+        ClientRegistration client = hashedClient(SECRET);
+
+        TokenRequest request = tryParse(client, params(), basic(CLIENT_ID, SECRET)).getOrThrow().getRequest();
+        assertEquals(new TokenRequest.ClientCredentials(CLIENT_ID, null), request);
+
+        // The `client_id` may be repeated in the body, but must agree.
+        assertTrue(tryParse(client, params(new Param("client_id", CLIENT_ID)), basic(CLIENT_ID, SECRET)).isSuccess());
+        assertFailure(401, new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "mismatched 'client_id' with credentials", null),
+                tryParse(client, params(new Param("client_id", "mallory")), basic(CLIENT_ID, SECRET)));
+    }
+
+    @Test
+    public void testClientSecretPost() {
+        ClientRegistration client = hashedClient(SECRET);
+
+        assertTrue(tryParse(client, params(new Param("client_id", CLIENT_ID), new Param("client_secret", SECRET)), null).isSuccess());
+        assertFailure(401, new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "client authentication failed", null),
+                tryParse(client, params(new Param("client_id", CLIENT_ID), new Param("client_secret", "wrong")), null));
+    }
+
+    @Test
+    public void testPlainSecret() {
+        ClientRegistration client = plainClient(SECRET);
+
+        assertTrue(tryParse(client, params(), basic(CLIENT_ID, SECRET)).isSuccess());
+        assertFailure(401, new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "client authentication failed", null),
+                tryParse(client, params(), basic(CLIENT_ID, SECRET + "x")));
+    }
+
+    @Test
+    public void testRejects() {
+        ClientRegistration client = hashedClient(SECRET);
+
+        assertFailure(401, new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "client authentication required", null),
+                tryParse(client, params(new Param("client_id", CLIENT_ID)), null));
+        assertFailure(400, new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "multiple client authentication methods", null),
+                tryParse(client, params(new Param("client_secret", SECRET)), basic(CLIENT_ID, SECRET)));
+        assertFailure(401, new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "unsupported authorization scheme", null),
+                tryParse(client, params(new Param("client_id", CLIENT_ID)), "Bearer abc"));
+        assertFailure(400, new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "malformed basic credentials", null),
+                tryParse(client, params(), "Basic !!!"));
+        assertFailure(400, new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "malformed basic credentials", null),
+                tryParse(client, params(), "Basic " + Base64.getEncoder().encodeToString("nocolon".getBytes(StandardCharsets.UTF_8))));
+
+        // A public client has nothing to authenticate with, and so may not use the `client_credentials` grant at all.
+        assertFailure(401, new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "client has no secret", null),
+                tryParse(MockCredentials.DEFAULT_CLIENT_REGISTRATION, params(), basic(CLIENT_ID, SECRET)));
+        assertFailure(400, new ErrorResponse(ErrorResponse.DESC_UNAUTHORIZED_CLIENT, "'client_credentials' grant requires a confidential client", null),
+                tryParse(MockCredentials.DEFAULT_CLIENT_REGISTRATION, params(new Param("client_id", CLIENT_ID)), null));
+    }
+
+    @Test
+    public void testCachedVerificationStillChecksSecret() {
+        ClientRegistration client = hashedClient(SECRET);
+
+        assertTrue(tryParse(client, params(), basic(CLIENT_ID, SECRET)).isSuccess());
+        assertTrue(tryParse(client, params(), basic(CLIENT_ID, SECRET)).isSuccess());
+        assertFalse(tryParse(client, params(), basic(CLIENT_ID, "wrong")).isSuccess());
+        assertTrue(tryParse(client, params(), basic(CLIENT_ID, SECRET)).isSuccess());
+    }
+
+    @Test
+    public void testSecretChangeInvalidatesCache() {
+        assertTrue(tryParse(hashedClient(SECRET), params(), basic(CLIENT_ID, SECRET)).isSuccess());
+
+        ClientRegistration rotated = hashedClient("n3w");
+        assertFalse(tryParse(rotated, params(), basic(CLIENT_ID, SECRET)).isSuccess());
+        assertTrue(tryParse(rotated, params(), basic(CLIENT_ID, "n3w")).isSuccess());
+    }
+
+    @Test
+    public void testRegistryUsesBasicClientId() {
+        ClientRegistration client = hashedClient(SECRET);
+        ClientRegistry registry = clientId -> CLIENT_ID.equals(clientId) ? client : null;
+
+        assertTrue(TokenRequest.parser().tryParse(MockCredentials.DEFAULT_ISSUER_BUNDLE, registry, params(), basic(CLIENT_ID, SECRET)).isSuccess());
+        assertFailure(401, new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "unknown client", null),
+                TokenRequest.parser().tryParse(MockCredentials.DEFAULT_ISSUER_BUNDLE, registry, params(), basic("mallory", SECRET)));
+        assertFailure(401, new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "client authentication required", null),
+                TokenRequest.parser().tryParse(MockCredentials.DEFAULT_ISSUER_BUNDLE, registry, params(new Param("client_id", CLIENT_ID))));
+    }
+}
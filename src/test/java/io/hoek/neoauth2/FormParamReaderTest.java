@@ -0,0 +1,96 @@
+package io.hoek.neoauth2;
+
+import io.hoek.neoauth2.internal.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FormParamReaderTest {
+
+    private static FormParamReader reader(String form) {
+        return FormParamReader.from(form.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testKnownParams() throws InvalidRequestException {
+        FormParamReader params = reader("grant_type=authorization_code&client_id=robert&code=abc");
+
+        assertEquals("authorization_code", params.extractSingletonParam("grant_type"));
+        assertEquals("robert", params.extractSingletonParam("client_id"));
+        assertEquals("abc", params.extractSingletonParam("code"));
+        assertNull(params.maybeExtractSingletonParam("code_verifier"));
+    }
+
+    @Test
+    public void testKnownGrantParams() throws InvalidRequestException {
+        FormParamReader params = reader("refresh_token=rt&device_code=dc&client_secret=s%2Bt&request_uri=urn%3Ax");
+
+        assertEquals("rt", params.extractSingletonParam("refresh_token"));
+        assertEquals("dc", params.extractSingletonParam("device_code"));
+        assertEquals("s+t", params.extractSingletonParam("client_secret"));
+        assertEquals("urn:x", params.extractSingletonParam("request_uri"));
+        assertNull(params.maybeExtractSingletonParam("redirect_uri"));
+    }
+
+    @Test
+    public void testDecoding() throws InvalidRequestException {
+        FormParamReader params = reader("redirect_uri=https%3A%2F%2Fexample.com%2Fcb%3Fa%3Db&scope=ascope+anotherscope&state=%E2%9C%93");
+
+        assertEquals("https://example.com/cb?a=b", params.extractSingletonParam("redirect_uri"));
+        assertEquals("ascope anotherscope", params.extractSingletonParam("scope"));
+        assertEquals("✓", params.extractSingletonParam("state"));
+    }
+
+    @Test
+    public void testMalformedEscapesKeptVerbatim() throws InvalidRequestException {
+        assertEquals("a%zzb%", reader("state=a%zzb%").extractSingletonParam("state"));
+        assertEquals("%4", reader("state=%4").extractSingletonParam("state"));
+    }
+
+    @Test
+    public void testEmptyAndMissingValues() throws InvalidRequestException {
+        FormParamReader params = reader("&state&nonce=&&code=x&");
+
+        assertEquals("", params.extractSingletonParam("state"));
+        assertEquals("", params.extractSingletonParam("nonce"));
+        assertEquals("x", params.extractSingletonParam("code"));
+        assertEquals(List.of(), params.get("scope"));
+    }
+
+    @Test
+    public void testDuplicates() {
+        FormParamReader params = reader("state=a&code=x&state=b");
+
+        assertEquals(List.of("a", "b"), params.get("state"));
+        assertThrows(InvalidRequestException.class, () -> params.maybeExtractSingletonParam("state"));
+    }
+
+    @Test
+    public void testEncodedAndUnknownNames() throws InvalidRequestException {
+        FormParamReader params = reader("client%5Fid=robert&custom+param=v1&other=v2&custom%20param=v3");
+
+        assertEquals("robert", params.extractSingletonParam("client_id"));
+        assertEquals(List.of("v1", "v3"), params.get("custom param"));
+        assertEquals(List.of("v2"), params.get("other"));
+        assertEquals(List.of(), params.get("missing"));
+    }
+
+    @Test
+    public void testByteBufferAndQueryString() throws InvalidRequestException {
+        byte[] raw = "xxxcode=abc&state=s1yyy".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer heap = ByteBuffer.wrap(raw, 3, raw.length - 6);
+        ByteBuffer direct = ByteBuffer.allocateDirect(raw.length - 6).put(raw, 3, raw.length - 6).flip();
+
+        for (ParamReader params : List.of(FormParamReader.from(heap), FormParamReader.from(direct), FormParamReader.from(raw, 3, raw.length - 6))) {
+            assertEquals("abc", params.extractSingletonParam("code"));
+            assertEquals("s1", params.extractSingletonParam("state"));
+        }
+
+        assertEquals("abc", FormParamReader.from("code=abc").extractSingletonParam("code"));
+        assertNull(FormParamReader.from((String) null).maybeExtractSingletonParam("code"));
+    }
+}
@@ -0,0 +1,58 @@
+package io.hoek.neoauth2;
+
+import io.hoek.neoauth2.internal.UriQueryParamWriter;
+import io.hoek.neoauth2.model.AccessTokenPayload;
+import io.hoek.neoauth2.model.ErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OAuthReponseTest {
+
+    @Test
+    public void testJsonPage() {
+        OAuthReponse.JsonPage page = new OAuthReponse.JsonPage(HttpResponse.STATUS_OK,
+                new AccessTokenPayload("token", AccessTokenPayload.TOKEN_TYPE_BEARER, 60, List.of("a", "b")));
+
+        HttpResponse http = page.getHttpResponse();
+        assertSame(http, page.getHttpResponse());
+        assertEquals(200, http.getStatus());
+        assertEquals("no-store", http.getHeader(HttpResponse.HEADER_CACHE_CONTROL));
+        assertEquals("application/json", http.getHeader(HttpResponse.HEADER_CONTENT_TYPE));
+        assertNull(http.getHeader(HttpResponse.HEADER_LOCATION));
+        assertEquals("{\"access_token\":\"token\",\"token_type\":\"Bearer\",\"expires_in\":60,\"scope\":\"a b\"}",
+                new String(http.getBody(), StandardCharsets.UTF_8));
+        assertEquals("HTTP 200 OK", page.getMessage());
+    }
+
+    @Test
+    public void testRedirect() {
+        OAuthReponse.Redirect redirect = new OAuthReponse.Redirect(
+                new UriQueryParamWriter(URI.create("https://example.com/cb")),
+                new ErrorResponse(ErrorResponse.DESC_ACCESS_DENIED, "server denied access", "xyz"));
+
+        assertEquals(302, redirect.getStatus());
+        assertEquals("HTTP 302 Found", redirect.getMessage());
+
+        HttpResponse http = redirect.getHttpResponse();
+        assertEquals(302, http.getStatus());
+        assertEquals("no-store", http.getHeader(HttpResponse.HEADER_CACHE_CONTROL));
+        assertEquals("https://example.com/cb?error=access_denied&error_message=server%20denied%20access&state=xyz",
+                http.getHeader(HttpResponse.HEADER_LOCATION));
+        assertEquals(0, http.getBody().length);
+    }
+
+    @Test
+    public void testUnauthorizedChallenges() {
+        OAuthReponse.JsonPage page = new OAuthReponse.JsonPage(HttpResponse.STATUS_UNAUTHORIZED,
+                new ErrorResponse(ErrorResponse.DESC_INVALID_CLIENT, "client authentication failed", null));
+
+        assertEquals("HTTP 401 Unauthorized", page.getMessage());
+        assertEquals("Basic", page.getHttpResponse().getHeader(HttpResponse.HEADER_WWW_AUTHENTICATE));
+        assertEquals(0, page.getStackTrace().length);
+    }
+}
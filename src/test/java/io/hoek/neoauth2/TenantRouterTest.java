@@ -0,0 +1,105 @@
+package io.hoek.neoauth2;
+
+import io.hoek.neoauth2.backend.IssuerBundle;
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.backend.builtin.DataStore;
+import io.hoek.neoauth2.backend.builtin.FakeClock;
+import io.hoek.neoauth2.backend.builtin.RandomCodeAuthorizationAuthority;
+import io.hoek.neoauth2.backend.builtin.Rfc9068JwtAccessTokenIssuer;
+import io.hoek.neoauth2.backend.builtin.SimpleMemoryDataStore;
+import io.hoek.neoauth2.model.AuthorizationCodePayload;
+import io.hoek.neoauth2.test.MockCredentials;
+import io.hoek.neoauth2.test.TestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TenantRouterTest {
+
+    private static final Set<String> KNOWN = Set.of("acme", "globex");
+
+    private final FakeClock clock = new FakeClock();
+    private final DataStore<UserAuthorization> codes = new SimpleMemoryDataStore<>(clock, true);
+    private final AtomicInteger created = new AtomicInteger();
+
+    private TenantRouter.Tenant createTenant(String id) {
+        if (!KNOWN.contains(id)) {
+            return null;
+        }
+
+        created.incrementAndGet();
+        IssuerBundle bundle = IssuerBundle.with(
+                new RandomCodeAuthorizationAuthority(DataStore.prefixed(codes, id)),
+                new Rfc9068JwtAccessTokenIssuer("https://auth.example.com/" + id, MockCredentials.DEFAULT_KEY_ID,
+                        MockCredentials.DEFAULT_SIGNING_KEY_PRIVATE, clock))
+                .withClock(clock);
+        return new TenantRouter.Tenant(id, bundle, AuthorizationRequest.parser(), null);
+    }
+
+    private TenantRouter router(TenantRouter.Resolver resolver) {
+        return TenantRouter.builder(resolver, this::createTenant)
+                .idleTimeout(Duration.ofMinutes(2))
+                .maxTenants(10)
+                .clock(clock)
+                .build();
+    }
+
+    @Test
+    public void testResolvers() {
+        assertEquals("acme.example.com", TenantRouter.BY_HOST.resolveTenantId(URI.create("https://ACME.example.com/authorize")));
+        assertNull(TenantRouter.BY_HOST.resolveTenantId(URI.create("/authorize")));
+
+        assertEquals("acme", TenantRouter.BY_PATH_PREFIX.resolveTenantId(URI.create("https://auth.example.com/acme/authorize")));
+        assertEquals("acme", TenantRouter.BY_PATH_PREFIX.resolveTenantId(URI.create("https://auth.example.com/acme")));
+        assertNull(TenantRouter.BY_PATH_PREFIX.resolveTenantId(URI.create("https://auth.example.com/")));
+        assertNull(TenantRouter.BY_PATH_PREFIX.resolveTenantId(URI.create("https://auth.example.com")));
+    }
+
+    @Test
+    public void testCachesTenants() {
+        TenantRouter router = router(TenantRouter.BY_PATH_PREFIX);
+
+        TenantRouter.Tenant acme = router.resolve(URI.create("https://auth.example.com/acme/authorize"));
+        assertEquals("acme", acme.getId());
+        assertSame(acme, router.resolve(URI.create("https://auth.example.com/acme/token")));
+        assertNotSame(acme, router.get("globex"));
+        assertEquals(2, created.get());
+
+        // Unknown tenants are not cached.
+        assertNull(router.resolve(URI.create("https://auth.example.com/initech/authorize")));
+        assertNull(router.resolve(URI.create("https://auth.example.com/")));
+        assertEquals(2, router.size());
+
+        router.invalidate("acme");
+        assertNotSame(acme, router.get("acme"));
+        assertEquals(3, created.get());
+    }
+
+    @Test
+    public void testIdleTenantsEvictedWithoutLosingCodes() {
+        TenantRouter router = router(TenantRouter.BY_PATH_PREFIX);
+
+        TenantRouter.Tenant acme = router.get("acme");
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(TestUtil.getRandom32Bytes());
+        AuthorizationCodePayload code = acme.getIssuerBundle().issueAuthorizationCode(order, clock.instant().plusSeconds(600));
+
+        clock.advance(Duration.ofSeconds(30));
+        router.get("globex");
+        clock.advance(Duration.ofSeconds(90));
+        router.get("globex");
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(1, router.size());
+
+        // The code is not valid for other tenants, but the rebuilt tenant still redeems it.
+        assertNull(router.get("globex").getIssuerBundle().readAndVerifyAuthorizationCode(code));
+
+        TenantRouter.Tenant rebuilt = router.get("acme");
+        assertNotSame(acme, rebuilt);
+        assertSame(order, rebuilt.getIssuerBundle().readAndVerifyAuthorizationCode(code));
+    }
+}
@@ -3,6 +3,7 @@ package io.hoek.neoauth2;
 import io.hoek.neoauth2.backend.UserAuthorization;
 import io.hoek.neoauth2.backend.TokenSpec;
 import io.hoek.neoauth2.model.CodeChallengeMethod;
+import io.hoek.neoauth2.model.ErrorResponse;
 import io.hoek.neoauth2.model.PkceInfo;
 import io.hoek.neoauth2.test.MockCredentials;
 import io.hoek.neoauth2.test.TestUtil;
@@ -12,8 +13,7 @@ import org.junit.jupiter.api.Test;
 import javax.ws.rs.core.UriBuilder;
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TokenRequestParserApiTest {
 
@@ -49,4 +49,21 @@ public class TokenRequestParserApiTest {
 
         assertEquals(new TokenRequest.AuthorizationCode(order), response);
     }
+
+    @Test
+    public void testTryParseFailure() {
+        Outcome<TokenRequestGranter> outcome = TokenRequest.parser()
+                .tryParse(TokenRequestParserFlowAuthorizationCodeTest.getMockIssuerBundle(null),
+                        new MockCredentials.MockClientRegistration(),
+                        new ResteasyUriInfo(
+                                UriBuilder.fromUri("https://auth.example.com/token")
+                                        .queryParam("grant_type", "authorization_code")
+                                        .queryParam("client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID)
+                                        .queryParam("code", "not a code")
+                                        .build()));
+
+        assertFalse(outcome.isSuccess());
+        assertEquals(new ErrorResponse("invalid_grant", "invalid code", null), ((Outcome.Failure<TokenRequestGranter>) outcome).getError());
+        assertEquals(400, ((Outcome.Failure<TokenRequestGranter>) outcome).toResponse().getStatus());
+    }
 }
@@ -12,32 +12,33 @@ import io.hoek.neoauth2.test.TestUtil;
 import org.junit.jupiter.api.Test;
 
 import javax.validation.constraints.NotNull;
-import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 public class TokenRequestTest {
 
     @Test
     public void testSuccessGenerateAccessGrantedResponse() {
         String codeVerifier = TestUtil.getRandom32Bytes();
-        Response response = new TokenRequestGranter(
+        HttpResponse response = new TokenRequestGranter(
                 MockCredentials.DEFAULT_ISSUER_BUNDLE,
                 MockCredentials.DEFAULT_CLIENT_REGISTRATION,
                 new TokenRequest.AuthorizationCode(MockCredentials.getDefaultAuthorizationCodeOrder(codeVerifier))
-        ).grant().getResponse();
+        ).grant().getHttpResponse();
 
-        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(response.getEntity().toString());
-        assertEquals("no-store", response.getHeaderString("Cache-Control"));
+        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(new String(response.getBody(), StandardCharsets.UTF_8));
+        assertEquals("no-store", response.getHeader(HttpResponse.HEADER_CACHE_CONTROL));
     }
 
     @Test
     public void testCustomScopeValidationAccept() {
         String codeVerifier = TestUtil.getRandom32Bytes();
-        Response response = new TokenRequestGranter(
+        HttpResponse response = new TokenRequestGranter(
                 MockCredentials.DEFAULT_ISSUER_BUNDLE,
                 new MockCredentials.MockClientRegistration() {
                     @Override
@@ -60,17 +61,16 @@ public class TokenRequestTest {
                 true,
                 MockCredentials.DEFAULT_REDIRECT_URI,
                 new PkceInfo(CodeChallengeMethod.S256, CodeChallengeMethod.S256.calculateChallenge(codeVerifier))
-        ))).grant().getResponse();
+        ))).grant().getHttpResponse();
 
-        assertEquals("no-store", response.getHeaderString("Cache-Control"));
-        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(response.getEntity()
-                .toString(), List.of("31337Haxxor77scopeA"));
+        assertEquals("no-store", response.getHeader(HttpResponse.HEADER_CACHE_CONTROL));
+        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(new String(response.getBody(), StandardCharsets.UTF_8), List.of("31337Haxxor77scopeA"));
     }
 
     @Test
     public void testCustomScopeValidationReject() throws JsonProcessingException {
         String codeVerifier = TestUtil.getRandom32Bytes();
-        Response response = new TokenRequestGranter(
+        TokenRequestGranter granter = new TokenRequestGranter(
                 MockCredentials.DEFAULT_ISSUER_BUNDLE,
                 new MockCredentials.MockClientRegistration() {
                     @Override
@@ -90,11 +90,17 @@ public class TokenRequestTest {
                 true,
                 MockCredentials.DEFAULT_REDIRECT_URI,
                 new PkceInfo(CodeChallengeMethod.S256, CodeChallengeMethod.S256.calculateChallenge(codeVerifier))
-        ))).grant().getResponse();
+        )));
 
-        assertEquals("no-store", response.getHeaderString("Cache-Control"));
+        Outcome<OAuthReponse.JsonPage> outcome = granter.tryGrant();
+        assertFalse(outcome.isSuccess());
+        assertEquals(new ErrorResponse("invalid_scope", "scopes not authorized", null), ((Outcome.Failure<?>) outcome).getError());
 
-        ErrorResponse er = new ObjectMapper().readValue(response.getEntity().toString(), ErrorResponse.class);
+        HttpResponse response = granter.grant().getHttpResponse();
+        assertEquals(HttpResponse.STATUS_BAD_REQUEST, response.getStatus());
+        assertEquals("no-store", response.getHeader(HttpResponse.HEADER_CACHE_CONTROL));
+
+        ErrorResponse er = new ObjectMapper().readValue(new String(response.getBody(), StandardCharsets.UTF_8), ErrorResponse.class);
         assertEquals(new ErrorResponse("invalid_scope", "scopes not authorized", null), er);
     }
 }
@@ -0,0 +1,50 @@
+package io.hoek.neoauth2.backend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientSecretHashTest {
+
+    private static final int ITERATIONS = 1000;
+
+    @Test
+    public void testVerify() {
+        String hash = ClientSecretHash.hash("s3cret", ITERATIONS);
+        assertTrue(hash.startsWith("pbkdf2-sha256$" + ITERATIONS + "$"));
+
+        assertTrue(ClientSecretHash.verify("s3cret", hash));
+        assertFalse(ClientSecretHash.verify("s3cret ", hash));
+        assertFalse(ClientSecretHash.verify("", hash));
+    }
+
+    @Test
+    public void testSalted() {
+        assertNotEquals(ClientSecretHash.hash("s3cret", ITERATIONS), ClientSecretHash.hash("s3cret", ITERATIONS));
+    }
+
+    @Test
+    public void testIterationsAreStored() {
+        String hash = ClientSecretHash.hash("s3cret", ITERATIONS);
+        String[] parts = hash.split("\\$");
+
+        // The same salt and key with a different count verify nothing.
+        assertFalse(ClientSecretHash.verify("s3cret", parts[0] + "$" + (ITERATIONS + 1) + "$" + parts[2] + "$" + parts[3]));
+        assertThrows(IllegalArgumentException.class, () -> ClientSecretHash.hash("s3cret", 0));
+    }
+
+    @Test
+    public void testMalformed() {
+        String hash = ClientSecretHash.hash("s3cret", ITERATIONS);
+        String[] parts = hash.split("\\$");
+
+        assertFalse(ClientSecretHash.verify("s3cret", ""));
+        assertFalse(ClientSecretHash.verify("s3cret", "s3cret"));
+        assertFalse(ClientSecretHash.verify("s3cret", hash + "$"));
+        assertFalse(ClientSecretHash.verify("s3cret", "bcrypt$" + ITERATIONS + "$" + parts[2] + "$" + parts[3]));
+        assertFalse(ClientSecretHash.verify("s3cret", parts[0] + "$x$" + parts[2] + "$" + parts[3]));
+        assertFalse(ClientSecretHash.verify("s3cret", parts[0] + "$0$" + parts[2] + "$" + parts[3]));
+        assertFalse(ClientSecretHash.verify("s3cret", parts[0] + "$" + ITERATIONS + "$!!$" + parts[3]));
+        assertFalse(ClientSecretHash.verify("s3cret", parts[0] + "$" + ITERATIONS + "$" + parts[2] + "$"));
+    }
+}
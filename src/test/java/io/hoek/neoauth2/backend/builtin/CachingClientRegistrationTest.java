@@ -0,0 +1,85 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.UserRegistration;
+import io.hoek.neoauth2.model.ScopeSet;
+import io.hoek.neoauth2.test.MockCredentials;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingClientRegistrationTest {
+
+    private static class CountingClientRegistration extends MockCredentials.MockClientRegistration {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String validateScopesAndGetAudience(List<String> scopes) {
+            calls.incrementAndGet();
+            return scopes.contains("forbidden") ? null : MockCredentials.DEFAULT_AUDIENCE_URI;
+        }
+    }
+
+    @Test
+    public void testMemoizes() {
+        CountingClientRegistration delegate = new CountingClientRegistration();
+        FakeClock clock = new FakeClock();
+        CachingClientRegistration client = CachingClientRegistration.wrap(delegate, Duration.ofMinutes(1), 100, clock);
+
+        assertEquals(MockCredentials.DEFAULT_AUDIENCE_URI, client.validateScopesAndGetAudience(List.of("a", "b")));
+        assertEquals(MockCredentials.DEFAULT_AUDIENCE_URI, client.validateScopesAndGetAudience(ScopeSet.parse("b a a")));
+        assertEquals(1, delegate.calls.get());
+
+        // Rejections are remembered too.
+        assertNull(client.validateScopesAndGetAudience(List.of("forbidden")));
+        assertNull(client.validateScopesAndGetAudience(List.of("forbidden")));
+        assertEquals(2, delegate.calls.get());
+
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(MockCredentials.DEFAULT_AUDIENCE_URI, client.validateScopesAndGetAudience(List.of("a", "b")));
+        assertEquals(3, delegate.calls.get());
+
+        client.invalidate(ScopeSet.parse("a b"));
+        client.validateScopesAndGetAudience(List.of("a", "b"));
+        assertEquals(4, delegate.calls.get());
+
+        client.invalidateAll();
+        client.validateScopesAndGetAudience(List.of("a", "b"));
+        assertEquals(5, delegate.calls.get());
+    }
+
+    @Test
+    public void testPassesThrough() {
+        ClientRegistration delegate = new MockCredentials.MockClientRegistration();
+        CachingClientRegistration client = CachingClientRegistration.wrap(delegate, Duration.ofMinutes(1), 100);
+
+        assertSame(delegate, client.getDelegate());
+        assertEquals(delegate.getDefaultScopes(), client.getDefaultScopes());
+        assertEquals(delegate.getAllowedRedirectUris(), client.getAllowedRedirectUris());
+        assertEquals(delegate.getAccessTokenLifetimeSeconds(), client.getAccessTokenLifetimeSeconds());
+        assertEquals(delegate.getAuthorizationCodeLifetimeSeconds(), client.getAuthorizationCodeLifetimeSeconds());
+
+        assertFalse(client instanceof UserRegistration);
+    }
+
+    private static class MockUserClientRegistration extends MockCredentials.MockClientRegistration implements UserRegistration {
+
+        @Override
+        public String getSub() {
+            return MockCredentials.DEFAULT_CLAIM_SUB;
+        }
+    }
+
+    @Test
+    public void testKeepsUserRegistration() {
+        ClientRegistration client = CachingClientRegistration.wrap(new MockUserClientRegistration(), Duration.ofMinutes(1), 100);
+
+        assertTrue(client instanceof UserRegistration);
+        assertEquals(MockCredentials.DEFAULT_CLAIM_SUB, ((UserRegistration) client).getSub());
+    }
+}
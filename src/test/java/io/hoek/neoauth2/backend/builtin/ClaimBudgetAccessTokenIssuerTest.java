@@ -0,0 +1,94 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.AccessTokenOrder;
+import io.hoek.neoauth2.backend.TokenSpec;
+import io.hoek.neoauth2.model.AccessTokenPayload;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClaimBudgetAccessTokenIssuerTest {
+
+    private static final String GROUPS = String.join(" ", Collections.nCopies(1000, "some-group"));
+
+    private final List<AccessTokenOrder> issued = new ArrayList<>();
+    private final FakeClock clock = new FakeClock();
+    private final MemoryClaimOverflowStore store = new MemoryClaimOverflowStore(clock);
+    private final ClaimBudgetAccessTokenIssuer issuer = ClaimBudgetAccessTokenIssuer.wrap(order -> {
+        issued.add(order);
+        return new AccessTokenPayload("token", AccessTokenPayload.TOKEN_TYPE_BEARER, order.getExpiresInSecs(), order.getSpec().getScopeSet());
+    }, 200, store, clock);
+
+    private Map<String, String> issue(Map<String, String> claims) {
+        issuer.issueAccessToken(new AccessTokenOrder(new TokenSpec("client", List.of("a", "b"), claims), 60));
+        TokenSpec spec = issued.get(issued.size() - 1).getSpec();
+        assertEquals(List.of("a", "b"), spec.getScopes());
+        return spec.getClaims();
+    }
+
+    @Test
+    public void testWithinBudget() {
+        Map<String, String> claims = Map.of("aud", "https://api", "sub", "steve", "groups", "a b c");
+        assertSame(claims, issue(claims));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testOverflow() {
+        Map<String, String> claims = Map.of("aud", "https://api", "sub", "steve", "nonce", "n",
+                "groups", GROUPS, "dept", "eng");
+        Map<String, String> sent = issue(claims);
+
+        assertEquals(Map.of("aud", "https://api", "sub", "steve", "nonce", "n", "dept", "eng",
+                ClaimBudgetAccessTokenIssuer.CLAIM_OVERFLOW_REFERENCE, sent.get(ClaimBudgetAccessTokenIssuer.CLAIM_OVERFLOW_REFERENCE)), sent);
+
+        String reference = sent.get(ClaimBudgetAccessTokenIssuer.CLAIM_OVERFLOW_REFERENCE);
+        assertEquals(22, reference.length());
+        assertEquals(Map.of("groups", GROUPS), store.get(reference));
+        assertEquals(Map.of(reference, Map.of("groups", GROUPS)), store.getAll(List.of(reference, "unknown")));
+    }
+
+    @Test
+    public void testOverflowSharedAndExpires() {
+        Map<String, String> claims = new HashMap<>(Map.of("sub", "steve", "groups", GROUPS));
+        String first = issue(claims).get(ClaimBudgetAccessTokenIssuer.CLAIM_OVERFLOW_REFERENCE);
+
+        clock.advance(Duration.ofSeconds(30));
+        String second = issue(claims).get(ClaimBudgetAccessTokenIssuer.CLAIM_OVERFLOW_REFERENCE);
+        assertEquals(first, second);
+        assertEquals(1, store.size());
+
+        // Kept until the second token expires.
+        clock.advance(Duration.ofSeconds(45));
+        store.purgeExpired();
+        assertNotNull(store.get(first));
+
+        clock.advance(Duration.ofSeconds(30));
+        assertNull(store.get(first));
+        assertEquals(0, store.size());
+
+        claims.put("groups", GROUPS + " another");
+        assertNotEquals(first, issue(claims).get(ClaimBudgetAccessTokenIssuer.CLAIM_OVERFLOW_REFERENCE));
+    }
+
+    @Test
+    public void testReferencesUnguessable() {
+        Map<String, String> claims = Map.of("groups", GROUPS);
+        MemoryClaimOverflowStore other = new MemoryClaimOverflowStore(clock);
+        assertNotEquals(store.put(claims, clock.instant().plusSeconds(60)), other.put(claims, clock.instant().plusSeconds(60)));
+    }
+
+    @Test
+    public void testPinnedOverBudget() {
+        Map<String, String> claims = Map.of("sub", GROUPS);
+        assertSame(claims, issue(claims));
+        assertEquals(0, store.size());
+    }
+}
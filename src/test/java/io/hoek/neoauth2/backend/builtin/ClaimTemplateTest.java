@@ -0,0 +1,80 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.AccessTokenOrder;
+import io.hoek.neoauth2.backend.TokenSpec;
+import io.hoek.neoauth2.internal.JsonParamWriter;
+import io.hoek.neoauth2.model.AccessTokenPayload;
+import io.hoek.neoauth2.model.ScopeSet;
+import io.hoek.neoauth2.test.MockCredentials;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClaimTemplateTest {
+
+    private static JwtClaims parse(byte[] json) throws Exception {
+        return JwtClaims.parse(new String(json, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRender() throws Exception {
+        ClaimTemplate template = ClaimTemplate.compile("https://issuer", "client", "https://aud", ScopeSet.parse("b a"));
+
+        JwtClaims claims = parse(template.render("id1", 100, 40, 400,
+                Map.of("sub", "steve", "aud", "https://ignored", "nonce", "\"quoted\"\n", "groups", "é中😀")));
+
+        assertEquals("https://issuer", claims.getIssuer());
+        assertEquals("client", claims.getClaimValueAsString("client_id"));
+        assertEquals(List.of("https://aud"), claims.getAudience());
+        assertEquals("b a", claims.getClaimValueAsString("scope"));
+        assertEquals("id1", claims.getJwtId());
+        assertEquals(100, claims.getIssuedAt().getValue());
+        assertEquals(40, claims.getNotBefore().getValue());
+        assertEquals(400, claims.getExpirationTime().getValue());
+        assertEquals("steve", claims.getSubject());
+        assertEquals("\"quoted\"\n", claims.getClaimValueAsString("nonce"));
+        assertEquals("é中😀", claims.getClaimValueAsString("groups"));
+    }
+
+    @Test
+    public void testIssuerClaimsTakePrecedence() throws Exception {
+        ClaimTemplate template = ClaimTemplate.compile("https://issuer", "client", null, ScopeSet.parse("a"));
+
+        JwtClaims claims = parse(template.render("id1", 100, 40, 400,
+                Map.of("iss", "https://evil", "exp", "99999999999", "scope", "admin")));
+
+        assertEquals("https://issuer", claims.getIssuer());
+        assertEquals(400, claims.getExpirationTime().getValue());
+        assertEquals("a", claims.getClaimValueAsString("scope"));
+        assertFalse(claims.hasAudience());
+    }
+
+    @Test
+    public void testEmptyTemplate() throws Exception {
+        ClaimTemplate template = ClaimTemplate.compile(null, null, null, null);
+
+        JwtClaims claims = parse(template.render("id1", 100, 40, 400, Map.of()));
+        assertEquals(Map.of("jti", "id1", "iat", 100L, "nbf", 40L, "exp", 400L), claims.getClaimsMap());
+    }
+
+    @Test
+    public void testIssuedTokenValid() {
+        TokenSpec spec = new TokenSpec(MockCredentials.DEFAULT_CLAIM_CLIENT_ID, MockCredentials.DEFAULT_SCOPES,
+                Map.of("aud", MockCredentials.DEFAULT_AUDIENCE_URI, "sub", MockCredentials.DEFAULT_CLAIM_SUB));
+        AccessTokenOrder order = new AccessTokenOrder(spec, MockCredentials.DEFAULT_CLIENT_REGISTRATION.getAccessTokenLifetimeSeconds());
+
+        AccessTokenPayload first = MockCredentials.DEFAULT_ISSUER_BUNDLE.issueAccessToken(order);
+        AccessTokenPayload second = MockCredentials.DEFAULT_ISSUER_BUNDLE.issueAccessToken(order);
+
+        JwtClaims firstClaims = MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(
+                new String(JsonParamWriter.encode(first), StandardCharsets.UTF_8));
+        JwtClaims secondClaims = MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(
+                new String(JsonParamWriter.encode(second), StandardCharsets.UTF_8));
+        assertNotEquals(firstClaims.getClaimValue("jti"), secondClaims.getClaimValue("jti"));
+    }
+}
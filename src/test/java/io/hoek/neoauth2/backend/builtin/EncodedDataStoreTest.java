@@ -0,0 +1,58 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.test.MockCredentials;
+import io.hoek.neoauth2.test.TestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EncodedDataStoreTest {
+
+    @Test
+    public void testValuesAreHeldDirectlyInMemory() {
+        DataStore<UserAuthorization> ds = new SimpleMemoryDataStore<>(true);
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(TestUtil.getRandom32Bytes());
+
+        ds.put("A", new DataStore.Entry<>(order, Instant.now().plus(Duration.ofHours(5000))));
+
+        assertSame(order, ds.get("A").getValue());
+    }
+
+    @Test
+    public void testRoundTripThroughJsonCodec() {
+        DataStore<String> backing = new SimpleMemoryDataStore<>(true);
+        DataStore<UserAuthorization> ds = DataStore.encoded(backing, new JsonCodec<>(UserAuthorization.class));
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(TestUtil.getRandom32Bytes());
+
+        ds.put("A", new DataStore.Entry<>(order, Instant.now().plus(Duration.ofHours(5000))));
+
+        assertTrue(backing.getUncheckedExpiry("A").getValue().startsWith("{"));
+
+        {
+            DataStore.Entry<UserAuthorization> e = ds.get("A");
+            assertEquals(DataStore.Entry.AccessCount.SUBSEQUENT, e.getAccessCount());
+            assertEquals(order.getSpec().getClientId(), e.getValue().getSpec().getClientId());
+            assertEquals(order.getSpec().getScopes(), e.getValue().getSpec().getScopes());
+            assertEquals(order.getSpec().getClaims(), e.getValue().getSpec().getClaims());
+            assertEquals(order.getRedirectUri(), e.getValue().getRedirectUri());
+            assertEquals(order.getPkceInfo(), e.getValue().getPkceInfo());
+        }
+
+        ds.remove("A");
+        assertNull(ds.get("A"));
+    }
+
+    @Test
+    public void testExpiredEntriesAreDropped() {
+        DataStore<UserAuthorization> ds = DataStore.encoded(new SimpleMemoryDataStore<>(true), new JsonCodec<>(UserAuthorization.class));
+
+        ds.put("A", new DataStore.Entry<>(MockCredentials.getDefaultAuthorizationCodeOrder(TestUtil.getRandom32Bytes()),
+                Instant.now().minus(Duration.ofSeconds(1))));
+
+        assertNull(ds.get("A"));
+    }
+}
@@ -0,0 +1,150 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.AuthorizationRequest;
+import io.hoek.neoauth2.AuthorizationRequestGranter;
+import io.hoek.neoauth2.Outcome;
+import io.hoek.neoauth2.ParamReader;
+import io.hoek.neoauth2.TokenRequest;
+import io.hoek.neoauth2.TokenRequestGranter;
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.ClientSecretHash;
+import io.hoek.neoauth2.backend.UserRegistration;
+import io.hoek.neoauth2.model.GrantType;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.neoauth2.test.MockCredentials;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileClientRegistryTest {
+
+    private static final String BOB_SECRET = "bobsecret";
+
+    private static final String CLIENTS = "["
+            + "{\"client_id\": \"alice\", \"redirect_uris\": [\"https://alice.example.com/cb\"],"
+            + " \"scopes\": {\"read\": \"https://api.example.com\", \"files:*\": \"https://files.example.com\"},"
+            + " \"default_scopes\": [\"read\"], \"access_token_lifetime_seconds\": 300},"
+            + "{\"client_id\": \"bob\", \"scopes\": {\"*\": \"https://api.example.com\"},"
+            + " \"access_token_lifetime_seconds\": 60, \"authorization_code_lifetime_seconds\": 30,"
+            + " \"grant_types\": [\"client_credentials\"],"
+            + " \"client_secret_hash\": \"" + ClientSecretHash.hash(BOB_SECRET, 1000) + "\"}"
+            + "]";
+
+    @TempDir
+    Path dir;
+
+    private Path write(String content, Instant modified) throws IOException {
+        Path path = dir.resolve("clients.json");
+        Files.writeString(path, content);
+        Files.setLastModifiedTime(path, FileTime.from(modified));
+        return path;
+    }
+
+    @Test
+    public void testLookup() throws IOException {
+        FileClientRegistry registry = FileClientRegistry.load(write(CLIENTS, Instant.ofEpochSecond(1000)));
+        assertEquals(2, registry.size());
+
+        ClientRegistration alice = registry.lookup("alice");
+        assertNotNull(alice);
+        assertEquals(List.of(URI.create("https://alice.example.com/cb")), alice.getAllowedRedirectUris());
+        assertEquals(List.of("read"), alice.getDefaultScopes());
+        assertEquals(300, alice.getAccessTokenLifetimeSeconds());
+        assertEquals(60, alice.getAuthorizationCodeLifetimeSeconds());
+        assertEquals("https://files.example.com", alice.validateScopesAndGetAudience(List.of("files:x", "files:y")));
+        assertNull(alice.validateScopesAndGetAudience(List.of("read", "files:x")));
+        assertEquals(Set.of(), ((StaticClientRegistration) alice).getGrantTypes());
+        assertFalse(alice instanceof UserRegistration);
+
+        ClientRegistration bob = registry.lookup("bob");
+        assertEquals(List.of(), bob.getAllowedRedirectUris());
+        assertNull(bob.getDefaultScopes());
+        assertEquals(30, bob.getAuthorizationCodeLifetimeSeconds());
+        assertEquals(Set.of(GrantType.CLIENT_CREDENTIALS), ((StaticClientRegistration) bob).getGrantTypes());
+        assertEquals("bob", ((UserRegistration) bob).getSub());
+
+        assertNull(registry.lookup("carol"));
+        assertNull(registry.lookup(null));
+    }
+
+    @Test
+    public void testReloadIfModified() throws IOException {
+        FileClientRegistry registry = FileClientRegistry.load(write(CLIENTS, Instant.ofEpochSecond(1000)));
+        ClientRegistration alice = registry.lookup("alice");
+
+        assertFalse(registry.reloadIfModified());
+        assertSame(alice, registry.lookup("alice"));
+
+        write("[{\"client_id\": \"carol\", \"scopes\": {}, \"access_token_lifetime_seconds\": 60}]", Instant.ofEpochSecond(2000));
+        assertTrue(registry.reloadIfModified());
+        assertEquals(1, registry.size());
+        assertNull(registry.lookup("alice"));
+        assertNotNull(registry.lookup("carol"));
+    }
+
+    @Test
+    public void testFailedReloadKeepsSnapshot() throws IOException {
+        FileClientRegistry registry = FileClientRegistry.load(write(CLIENTS, Instant.ofEpochSecond(1000)));
+
+        write("[{\"client_id\": \"x\", \"scopes\": {}, \"access_token_lifetime_seconds\": 1},"
+                + " {\"client_id\": \"x\", \"scopes\": {}, \"access_token_lifetime_seconds\": 1}]", Instant.ofEpochSecond(2000));
+        assertThrows(IOException.class, registry::reload);
+        assertEquals(2, registry.size());
+
+        write("[{\"client_id\": \"x\", \"scopes\": {\"a*b\": \"aud\"}, \"access_token_lifetime_seconds\": 1}]", Instant.ofEpochSecond(3000));
+        assertThrows(IOException.class, registry::reload);
+        assertNotNull(registry.lookup("alice"));
+
+        write("{", Instant.ofEpochSecond(4000));
+        assertThrows(IOException.class, registry::reload);
+        assertNotNull(registry.lookup("alice"));
+
+        // The `client_credentials` grant needs a secret, and unknown grant types are rejected outright.
+        write("[{\"client_id\": \"x\", \"scopes\": {}, \"access_token_lifetime_seconds\": 1,"
+                + " \"grant_types\": [\"client_credentials\"]}]", Instant.ofEpochSecond(5000));
+        assertThrows(IOException.class, registry::reload);
+        write("[{\"client_id\": \"x\", \"scopes\": {}, \"access_token_lifetime_seconds\": 1,"
+                + " \"grant_types\": [\"password\"]}]", Instant.ofEpochSecond(6000));
+        assertThrows(IOException.class, registry::reload);
+        assertNotNull(registry.lookup("alice"));
+    }
+
+    @Test
+    public void testParsersResolveClient() throws IOException {
+        FileClientRegistry registry = FileClientRegistry.load(write(CLIENTS, Instant.ofEpochSecond(1000)));
+
+        Outcome<AuthorizationRequestGranter> unknown = AuthorizationRequest.parser().tryParse(registry,
+                ParamReader.from(Map.of("client_id", List.of("carol"), "response_type", List.of("code"))::get));
+        assertFalse(unknown.isSuccess());
+        assertFalse(((Outcome.Failure<?>) unknown).isRedirect());
+        assertEquals(ErrorResponse.DESC_INVALID_CLIENT, ((Outcome.Failure<?>) unknown).getError().getError());
+        assertEquals(400, ((Outcome.Failure<?>) unknown).toResponse().getStatus());
+
+        Outcome<AuthorizationRequestGranter> missing = AuthorizationRequest.parser().tryParse(registry,
+                ParamReader.from(Map.of("response_type", List.of("code"))::get));
+        assertEquals(ErrorResponse.DESC_INVALID_REQUEST, ((Outcome.Failure<?>) missing).getError().getError());
+
+        Outcome<TokenRequestGranter> token = TokenRequest.parser().tryParse(MockCredentials.DEFAULT_ISSUER_BUNDLE, registry,
+                ParamReader.from(Map.of("client_id", List.of("carol"), "grant_type", List.of("client_credentials"))::get));
+        assertEquals(ErrorResponse.DESC_INVALID_CLIENT, ((Outcome.Failure<?>) token).getError().getError());
+        assertEquals(401, ((Outcome.Failure<?>) token).toResponse().getStatus());
+
+        String basic = "Basic " + Base64.getEncoder().encodeToString(("bob:" + BOB_SECRET).getBytes(StandardCharsets.UTF_8));
+        Outcome<TokenRequestGranter> known = TokenRequest.parser().tryParse(MockCredentials.DEFAULT_ISSUER_BUNDLE, registry,
+                ParamReader.from(Map.of("grant_type", List.of("client_credentials"), "scope", List.of("anything"))::get), basic);
+        assertTrue(known.isSuccess());
+    }
+}
@@ -0,0 +1,99 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.model.AuthorizationCodePayload;
+import io.hoek.neoauth2.test.MockCredentials;
+import io.hoek.neoauth2.test.TestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedDataStoreTest {
+
+    @Test
+    public void testCounters() {
+        InstrumentedDataStore<String> ds = new InstrumentedDataStore<>(new SimpleMemoryDataStore<>(true));
+
+        assertNull(ds.get("A"));
+        ds.put("A", new DataStore.Entry<>("B1", Instant.now().plus(Duration.ofHours(5000))));
+        ds.put("X", new DataStore.Entry<>("B2", Instant.now().minus(Duration.ofSeconds(1))));
+
+        assertNotNull(ds.get("A"));
+        assertNotNull(ds.get("A"));
+        assertNull(ds.get("X"));
+
+        InstrumentedDataStore.Snapshot s = ds.snapshot();
+        assertEquals(2, s.getHits());
+        assertEquals(2, s.getMisses());
+        assertEquals(1, s.getExpired());
+        assertEquals(1, s.getReplayed());
+        assertEquals(1, s.getLiveEntries());
+
+        ds.remove("A");
+        assertEquals(0, ds.snapshot().getLiveEntries());
+    }
+
+    @Test
+    public void testUsesOverriddenGet() {
+        AtomicInteger gets = new AtomicInteger();
+        InstrumentedDataStore<String> ds = new InstrumentedDataStore<>(new SimpleMemoryDataStore<String>(true) {
+            @Override
+            public Entry<String> get(String key) {
+                gets.incrementAndGet();
+                return super.get(key);
+            }
+        });
+
+        ds.put("A", new DataStore.Entry<>("B1", Instant.now().plus(Duration.ofHours(5000))));
+        ds.put("X", new DataStore.Entry<>("B2", Instant.now().minus(Duration.ofSeconds(1))));
+
+        assertNotNull(ds.get("A"));
+        assertNull(ds.get("X"));
+        assertEquals(2, gets.get());
+
+        // The store handles expiry itself, so the expired entry is only seen as a miss.
+        InstrumentedDataStore.Snapshot s = ds.snapshot();
+        assertEquals(1, s.getHits());
+        assertEquals(1, s.getMisses());
+        assertEquals(0, s.getExpired());
+    }
+
+    @Test
+    public void testLatencyHistograms() {
+        InstrumentedDataStore<String> ds = new InstrumentedDataStore<>(new SimpleMemoryDataStore<>(true));
+
+        for (int i = 0; i < 100; i++) {
+            ds.put("A" + i, new DataStore.Entry<>("B", Instant.now().plus(Duration.ofHours(5000))));
+            ds.get("A" + i);
+        }
+        ds.remove("A0");
+
+        InstrumentedDataStore.Snapshot s = ds.snapshot();
+        assertEquals(100, s.getLatency(InstrumentedDataStore.Operation.GET).getCount());
+        assertEquals(100, s.getLatency(InstrumentedDataStore.Operation.PUT).getCount());
+        assertEquals(1, s.getLatency(InstrumentedDataStore.Operation.REMOVE).getCount());
+
+        InstrumentedDataStore.Histogram h = s.getLatency(InstrumentedDataStore.Operation.GET);
+        assertTrue(h.getQuantileUpperBoundNanos(0.5) <= h.getQuantileUpperBoundNanos(0.99));
+        assertTrue(h.getQuantileUpperBoundNanos(1.0) > 0);
+    }
+
+    @Test
+    public void testCodeReplayIsCounted() {
+        InstrumentedDataStore<UserAuthorization> ds = new InstrumentedDataStore<>(new SimpleMemoryDataStore<>(true));
+        RandomCodeAuthorizationAuthority authority = new RandomCodeAuthorizationAuthority(ds);
+
+        AuthorizationCodePayload code = authority.issueAuthorizationCode(
+                MockCredentials.getDefaultAuthorizationCodeOrder(TestUtil.getRandom32Bytes()),
+                Instant.now().plus(Duration.ofMinutes(1)));
+
+        assertNotNull(authority.readAndVerifyAuthorizationCode(code));
+        assertNull(authority.readAndVerifyAuthorizationCode(code));
+
+        assertEquals(1, ds.snapshot().getReplayed());
+    }
+}
@@ -0,0 +1,100 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JtiGeneratorTest {
+
+    private static final Pattern URL_SAFE = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private static void assertUniqueConcurrently(JtiGenerator generator) throws Exception {
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        String jti = generator.generate();
+                        assertTrue(URL_SAFE.matcher(jti).matches(), jti);
+                        assertTrue(seen.add(jti), jti);
+                    }
+                }));
+            }
+
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(80_000, seen.size());
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        assertEquals(22, JtiGenerator.random().generate().length());
+        assertUniqueConcurrently(JtiGenerator.random());
+    }
+
+    @Test
+    public void testCounter() throws Exception {
+        assertUniqueConcurrently(JtiGenerator.counter());
+
+        // Nodes are told apart by their IDs.
+        assertNotEquals(JtiGenerator.counter().generate(), JtiGenerator.counter().generate());
+    }
+
+    @Test
+    public void testTimeOrdered() throws Exception {
+        FakeClock clock = new FakeClock();
+        assertUniqueConcurrently(JtiGenerator.timeOrdered(clock));
+
+        TimeOrderedJtiGenerator generator = new TimeOrderedJtiGenerator(clock, "node".toCharArray());
+        String previous = generator.generate();
+        assertEquals(clock.millis(), TimeOrderedJtiGenerator.getMillis(previous));
+
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 1000 == 0) {
+                clock.advance(Duration.ofMillis(1));
+            }
+
+            String next = generator.generate();
+            assertTrue(next.compareTo(previous) > 0, previous + " !< " + next);
+            previous = next;
+        }
+        assertEquals(clock.millis(), TimeOrderedJtiGenerator.getMillis(previous));
+
+        // Still increasing if the clock goes backwards.
+        clock.advance(Duration.ofMillis(-100));
+        assertTrue(generator.generate().compareTo(previous) > 0);
+    }
+
+    @Test
+    public void testTimeOrderedAcrossNodes() {
+        FakeClock clock = new FakeClock();
+        JtiGenerator a = new TimeOrderedJtiGenerator(clock, "zzzz".toCharArray());
+        JtiGenerator b = new TimeOrderedJtiGenerator(clock, "aaaa".toCharArray());
+
+        String first = a.generate();
+        clock.advance(Duration.ofMillis(1));
+        String second = b.generate();
+        assertTrue(first.compareTo(second) < 0);
+
+        Set<String> ids = new HashSet<>(List.of(first, second, a.generate(), b.generate()));
+        assertEquals(4, ids.size());
+    }
+}
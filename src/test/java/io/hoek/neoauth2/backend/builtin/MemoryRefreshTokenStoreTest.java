@@ -0,0 +1,283 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.hoek.neoauth2.OAuthReponse;
+import io.hoek.neoauth2.Outcome;
+import io.hoek.neoauth2.ParamReader;
+import io.hoek.neoauth2.TokenRequest;
+import io.hoek.neoauth2.TokenRequestGranter;
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.IssuerBundle;
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.internal.JsonParamWriter;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.neoauth2.model.RefreshTokenPayload;
+import io.hoek.neoauth2.test.MockCredentials;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryRefreshTokenStoreTest {
+
+    private static final String CODE_VERIFIER = "dBjftJeZ4CVP-mJ0z3Nc6Pk4vSd9Wl9TjdWj_BcZ6yp";
+
+    private final FakeClock clock = new FakeClock();
+    private final MemoryRefreshTokenStore store = new MemoryRefreshTokenStore(clock);
+
+    private Instant inMinutes(long minutes) {
+        return clock.instant().plus(Duration.ofMinutes(minutes));
+    }
+
+    private static RefreshTokenPayload tampered(RefreshTokenPayload token, String newGeneration) {
+        String[] parts = token.getRefreshToken().split("\\.");
+        return new RefreshTokenPayload(parts[0] + "." + newGeneration + "." + parts[2]);
+    }
+
+    @Test
+    public void testRotation() {
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER);
+
+        RefreshTokenPayload first = store.issue(order, inMinutes(10));
+        assertSame(order, store.readAndVerify(first));
+        RefreshTokenPayload second = store.rotate(first, inMinutes(10));
+        assertNotEquals(first.getRefreshToken(), second.getRefreshToken());
+
+        assertSame(order, store.readAndVerify(second));
+        RefreshTokenPayload third = store.rotate(second, inMinutes(10));
+        assertSame(order, store.readAndVerify(third));
+
+        // One record per family, however many rotations.
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testReuseRevokesFamily() {
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER);
+        RefreshTokenPayload other = store.issue(order, inMinutes(10));
+
+        RefreshTokenPayload first = store.issue(order, inMinutes(10));
+        assertNotNull(store.readAndVerify(first));
+        RefreshTokenPayload second = store.rotate(first, inMinutes(10));
+
+        // Replaying the spent token revokes its successor too.
+        assertNull(store.readAndVerify(first));
+        assertNull(store.readAndVerify(second));
+        assertNull(store.rotate(second, inMinutes(10)));
+
+        // Other families are unaffected.
+        assertNotNull(store.readAndVerify(other));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testForgedTokensDoNotRevoke() {
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER);
+        RefreshTokenPayload token = store.issue(order, inMinutes(10));
+        String raw = token.getRefreshToken();
+
+        assertNull(store.readAndVerify(tampered(token, "1")));
+        assertNull(store.readAndVerify(tampered(token, "-1")));
+        assertNull(store.readAndVerify(tampered(token, "x")));
+        assertNull(store.readAndVerify(new RefreshTokenPayload(raw.substring(0, raw.length() - 2) + "AA")));
+        assertNull(store.readAndVerify(new RefreshTokenPayload(raw.replace('.', '_'))));
+        assertNull(store.readAndVerify(new RefreshTokenPayload("")));
+
+        assertSame(order, store.readAndVerify(token));
+    }
+
+    @Test
+    public void testExpiry() {
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER);
+        RefreshTokenPayload expiring = store.issue(order, inMinutes(10));
+        RefreshTokenPayload rotated = store.issue(order, inMinutes(10));
+        store.issue(order, inMinutes(10));
+
+        clock.advance(Duration.ofMinutes(5));
+        assertNotNull(store.readAndVerify(rotated));
+        rotated = store.rotate(rotated, inMinutes(10));
+
+        clock.advance(Duration.ofMinutes(6));
+        assertNull(store.readAndVerify(expiring));
+        assertEquals(2, store.size());
+
+        store.purgeExpired();
+        assertEquals(1, store.size());
+        assertSame(order, store.readAndVerify(rotated));
+    }
+
+    @Test
+    public void testConcurrentUseSucceedsOnce() throws Exception {
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER);
+        RefreshTokenPayload token = store.issue(order, inMinutes(10));
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<UserAuthorization>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return store.readAndVerify(token);
+                }));
+            }
+            start.countDown();
+
+            int successes = 0;
+            for (Future<UserAuthorization> result : results) {
+                if (result.get() != null) {
+                    successes++;
+                }
+            }
+
+            // Every loser of the race presented a spent token, so the family is revoked.
+            assertEquals(1, successes);
+            assertEquals(0, store.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ObjectNode grant(IssuerBundle bundle, ClientRegistration client, Map<String, String> params) throws Exception {
+        Map<String, List<String>> multi = new HashMap<>();
+        params.forEach((k, v) -> multi.put(k, List.of(v)));
+
+        Outcome<TokenRequestGranter> outcome = TokenRequest.parser().tryParse(bundle, client, ParamReader.from(multi::get));
+        OAuthReponse page = outcome.isSuccess() ? outcome.getOrThrow().grant() : ((Outcome.Failure<?>) outcome).toResponse();
+        return new ObjectMapper().readValue(JsonParamWriter.encode(page.getContent()), ObjectNode.class);
+    }
+
+    @Test
+    public void testRefreshTokenGrant() throws Exception {
+        IssuerBundle bundle = IssuerBundle.with(
+                new RandomCodeAuthorizationAuthority(new SimpleMemoryDataStore<>(true), store),
+                new Rfc9068JwtAccessTokenIssuer(MockCredentials.DEFAULT_ISSUER_URI, MockCredentials.DEFAULT_KEY_ID, MockCredentials.DEFAULT_SIGNING_KEY_PRIVATE));
+        ClientRegistration client = new MockCredentials.MockClientRegistration() {
+            @Override
+            public long getRefreshTokenLifetimeSeconds() {
+                return 24 * 60 * 60;
+            }
+        };
+
+        String code = bundle.issueAuthorizationCode(MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER), inMinutes(5)).getCode();
+        ObjectNode issued = grant(bundle, client, Map.of(
+                "grant_type", "authorization_code",
+                "client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID,
+                "redirect_uri", MockCredentials.DEFAULT_REDIRECT_URI.toString(),
+                "code", code,
+                "code_verifier", CODE_VERIFIER));
+        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(issued);
+        String first = issued.get("refresh_token").asText();
+
+        // Narrowing the scopes narrows only the access token.
+        ObjectNode refreshed = grant(bundle, client, Map.of(
+                "grant_type", "refresh_token",
+                "client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID,
+                "refresh_token", first,
+                "scope", "ascope"));
+        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(refreshed, List.of("ascope"));
+        String second = refreshed.get("refresh_token").asText();
+        assertNotEquals(first, second);
+
+        ObjectNode widened = grant(bundle, client, Map.of(
+                "grant_type", "refresh_token",
+                "client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID,
+                "refresh_token", second,
+                "scope", "ascope admin"));
+        assertEquals(ErrorResponse.DESC_INVALID_SCOPE, widened.get("error").asText());
+
+        // The rejected request spent `second`, so replaying it revokes the family.
+        ObjectNode replayed = grant(bundle, client, Map.of(
+                "grant_type", "refresh_token",
+                "client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID,
+                "refresh_token", second));
+        assertEquals(ErrorResponse.DESC_INVALID_GRANT, replayed.get("error").asText());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testPolicyChangeDoesNotSpendToken() throws Exception {
+        IssuerBundle bundle = IssuerBundle.with(
+                new RandomCodeAuthorizationAuthority(new SimpleMemoryDataStore<>(true), store),
+                new Rfc9068JwtAccessTokenIssuer(MockCredentials.DEFAULT_ISSUER_URI, MockCredentials.DEFAULT_KEY_ID, MockCredentials.DEFAULT_SIGNING_KEY_PRIVATE));
+        AtomicBoolean revoked = new AtomicBoolean();
+        ClientRegistration client = new MockCredentials.MockClientRegistration() {
+            @Override
+            public long getRefreshTokenLifetimeSeconds() {
+                return 24 * 60 * 60;
+            }
+
+            @Override
+            public String validateScopesAndGetAudience(List<String> scopes) {
+                return revoked.get() ? null : super.validateScopesAndGetAudience(scopes);
+            }
+        };
+
+        RefreshTokenPayload token = store.issue(MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER), inMinutes(10));
+        Map<String, String> params = Map.of(
+                "grant_type", "refresh_token",
+                "client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID,
+                "refresh_token", token.getRefreshToken());
+
+        revoked.set(true);
+        assertEquals(ErrorResponse.DESC_INVALID_SCOPE, grant(bundle, client, params).get("error").asText());
+        assertEquals(1, store.size());
+
+        // Once the policy allows it again, the same token is still good rather than being treated as reuse.
+        revoked.set(false);
+        ObjectNode refreshed = grant(bundle, client, params);
+        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(refreshed);
+        assertNotEquals(token.getRefreshToken(), refreshed.get("refresh_token").asText());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testRestoreOnlyUndoesSpending() {
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER);
+        RefreshTokenPayload first = store.issue(order, inMinutes(10));
+
+        // Restoring an unspent token changes nothing.
+        store.restore(first);
+        assertSame(order, store.readAndVerify(first));
+
+        store.restore(first);
+        assertSame(order, store.readAndVerify(first));
+        RefreshTokenPayload second = store.rotate(first, inMinutes(10));
+
+        // A forged token cannot roll the family back.
+        store.restore(tampered(second, "0"));
+        assertSame(order, store.readAndVerify(second));
+    }
+
+    @Test
+    public void testNoRefreshTokenByDefault() throws Exception {
+        String code = MockCredentials.DEFAULT_ISSUER_BUNDLE.issueAuthorizationCode(
+                MockCredentials.getDefaultAuthorizationCodeOrder(CODE_VERIFIER), inMinutes(5)).getCode();
+        ObjectNode issued = grant(MockCredentials.DEFAULT_ISSUER_BUNDLE, MockCredentials.DEFAULT_CLIENT_REGISTRATION, Map.of(
+                "grant_type", "authorization_code",
+                "client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID,
+                "redirect_uri", MockCredentials.DEFAULT_REDIRECT_URI.toString(),
+                "code", code,
+                "code_verifier", CODE_VERIFIER));
+        assertFalse(issued.has("refresh_token"));
+
+        ObjectNode refreshed = grant(MockCredentials.DEFAULT_ISSUER_BUNDLE, MockCredentials.DEFAULT_CLIENT_REGISTRATION, Map.of(
+                "grant_type", "refresh_token",
+                "client_id", MockCredentials.DEFAULT_CLAIM_CLIENT_ID,
+                "refresh_token", "whatever"));
+        assertEquals(ErrorResponse.DESC_INVALID_GRANT, refreshed.get("error").asText());
+    }
+}
@@ -0,0 +1,40 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixedDataStoreTest {
+
+    @Test
+    public void testNamespacesAreIsolated() {
+        DataStore<String> shared = new SimpleMemoryDataStore<>(true);
+        DataStore<String> a = DataStore.prefixed(shared, "a");
+        DataStore<String> b = DataStore.prefixed(shared, "b");
+
+        a.put("key", new DataStore.Entry<>("A", Instant.now().plus(Duration.ofMinutes(1))));
+        b.put("key", new DataStore.Entry<>("B", Instant.now().plus(Duration.ofMinutes(1))));
+
+        assertEquals("A", shared.getUncheckedExpiry("a:key").getValue());
+        assertEquals("B", b.get("key").getValue());
+        assertNull(b.get("a:key"));
+
+        // A fresh view of the same namespace sees the same entries, including their access counts.
+        DataStore.Entry<String> e = DataStore.prefixed(shared, "a").get("key");
+        assertEquals("A", e.getValue());
+        assertEquals(DataStore.Entry.AccessCount.SUBSEQUENT, e.getAccessCount());
+
+        a.remove("key");
+        assertNull(a.get("key"));
+        assertNotNull(b.get("key"));
+        assertSame(shared.getClock(), a.getClock());
+    }
+
+    @Test
+    public void testRejectsSeparatorInNamespace() {
+        assertThrows(IllegalArgumentException.class, () -> DataStore.prefixed(new SimpleMemoryDataStore<>(true), "a:b"));
+    }
+}
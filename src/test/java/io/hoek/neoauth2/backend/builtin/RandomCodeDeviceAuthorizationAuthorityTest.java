@@ -0,0 +1,400 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.hoek.neoauth2.DeviceAuthorizationRequest;
+import io.hoek.neoauth2.OAuthReponse;
+import io.hoek.neoauth2.Outcome;
+import io.hoek.neoauth2.ParamReader;
+import io.hoek.neoauth2.TokenRequest;
+import io.hoek.neoauth2.TokenRequestGranter;
+import io.hoek.neoauth2.backend.ClientRegistration;
+import io.hoek.neoauth2.backend.ClientSecretHash;
+import io.hoek.neoauth2.backend.DeviceAuthorization;
+import io.hoek.neoauth2.backend.IssuerBundle;
+import io.hoek.neoauth2.backend.TokenSpec;
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.internal.InvalidRequestException;
+import io.hoek.neoauth2.internal.JsonParamWriter;
+import io.hoek.neoauth2.model.DeviceAuthorizationPayload;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.neoauth2.test.MockCredentials;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RandomCodeDeviceAuthorizationAuthorityTest {
+
+    private static final URI VERIFICATION_URI = URI.create("https://example.com/device");
+    private static final String CLIENT_ID = MockCredentials.DEFAULT_CLAIM_CLIENT_ID;
+
+    private final FakeClock clock = new FakeClock();
+    private final SimpleMemoryDataStore<DeviceAuthorization> store = new SimpleMemoryDataStore<>(clock, true);
+
+    private static UserAuthorization approval() {
+        return new UserAuthorization(MockCredentials.getDefaultAuthorizationCodeOrder("unused").getSpec(), false, null, null);
+    }
+
+    private Instant inMinutes(long minutes) {
+        return clock.instant().plus(Duration.ofMinutes(minutes));
+    }
+
+    private static String pollError(RandomCodeDeviceAuthorizationAuthority device, String clientId, String deviceCode) {
+        return assertThrows(InvalidRequestException.class, () -> device.poll(clientId, deviceCode)).getErrorResponse().getError();
+    }
+
+    @Test
+    public void testStart() {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+        DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, List.of("a", "b"), inMinutes(10));
+
+        assertTrue(payload.getUserCode().matches("[BCDFGHJKLMNPQRSTVWXZ]{4}-[BCDFGHJKLMNPQRSTVWXZ]{4}"));
+        assertEquals(VERIFICATION_URI, payload.getVerificationUri());
+        assertEquals(URI.create(VERIFICATION_URI + "?user_code=" + payload.getUserCode()), payload.getVerificationUriComplete());
+        assertEquals(600, payload.getExpiresInSeconds());
+        assertEquals(5, payload.getIntervalSeconds());
+
+        DeviceAuthorization pending = device.lookupUserCode(payload.getUserCode().toLowerCase().replace("-", " "));
+        assertNotNull(pending);
+        assertEquals(CLIENT_ID, pending.getClientId());
+        assertEquals(List.of("a", "b"), pending.getScopes());
+        assertNull(device.lookupUserCode("BCDF-GHJK-LMNP"));
+    }
+
+    @Test
+    public void testApproveOnce() throws Exception {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+        DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(10));
+
+        assertEquals(ErrorResponse.DESC_AUTHORIZATION_PENDING, pollError(device, CLIENT_ID, payload.getDeviceCode()));
+
+        UserAuthorization approval = approval();
+        assertTrue(device.decide(payload.getUserCode(), approval));
+        // User codes are single use.
+        assertFalse(device.decide(payload.getUserCode(), null));
+        assertNull(device.lookupUserCode(payload.getUserCode()));
+
+        assertEquals(ErrorResponse.DESC_INVALID_GRANT, pollError(device, "mallory", payload.getDeviceCode()));
+
+        clock.advance(Duration.ofSeconds(5));
+        assertSame(approval, device.poll(CLIENT_ID, payload.getDeviceCode()));
+
+        clock.advance(Duration.ofSeconds(5));
+        assertEquals(ErrorResponse.DESC_EXPIRED_TOKEN, pollError(device, CLIENT_ID, payload.getDeviceCode()));
+    }
+
+    @Test
+    public void testRacingDecisionsAcceptOne() throws Exception {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // A single round rarely lines the threads up, so race many times.
+            for (int round = 0; round < 200; round++) {
+                DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(10));
+
+                CountDownLatch start = new CountDownLatch(1);
+                Map<UserAuthorization, Future<Boolean>> results = new HashMap<>();
+                for (int i = 0; i < threads; i++) {
+                    UserAuthorization approval = approval();
+                    results.put(approval, executor.submit(() -> {
+                        start.await();
+                        return device.decide(payload.getUserCode(), approval);
+                    }));
+                }
+                start.countDown();
+
+                UserAuthorization accepted = null;
+                for (Map.Entry<UserAuthorization, Future<Boolean>> result : results.entrySet()) {
+                    if (result.getValue().get()) {
+                        assertNull(accepted);
+                        accepted = result.getKey();
+                    }
+                }
+
+                // The device gets the decision which was accepted, not whichever was written last.
+                assertNotNull(accepted);
+                assertSame(accepted, device.poll(CLIENT_ID, payload.getDeviceCode()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRacingPollsRedeemOnce() throws Exception {
+        // Each server instance has its own poll intervals, so only the shared store can stop two of them redeeming
+        // the same decision.
+        int threads = 8;
+        List<RandomCodeDeviceAuthorizationAuthority> instances = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            instances.add(RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                DeviceAuthorizationPayload payload = instances.get(0).startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(10));
+                assertTrue(instances.get(0).decide(payload.getUserCode(), approval()));
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<UserAuthorization>> results = new ArrayList<>();
+                for (RandomCodeDeviceAuthorizationAuthority instance : instances) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            return instance.poll(CLIENT_ID, payload.getDeviceCode());
+                        } catch (InvalidRequestException e) {
+                            return null;
+                        }
+                    }));
+                }
+                start.countDown();
+
+                int redeemed = 0;
+                for (Future<UserAuthorization> result : results) {
+                    if (result.get() != null) {
+                        redeemed++;
+                    }
+                }
+                assertEquals(1, redeemed);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDeny() {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+        DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(10));
+
+        assertTrue(device.decide(payload.getUserCode(), null));
+        assertEquals(ErrorResponse.DESC_ACCESS_DENIED, pollError(device, CLIENT_ID, payload.getDeviceCode()));
+    }
+
+    @Test
+    public void testSlowDown() {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+        DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(10));
+        String code = payload.getDeviceCode();
+
+        assertEquals(ErrorResponse.DESC_AUTHORIZATION_PENDING, pollError(device, CLIENT_ID, code));
+        clock.advance(Duration.ofSeconds(4));
+        assertEquals(ErrorResponse.DESC_SLOW_DOWN, pollError(device, CLIENT_ID, code));
+
+        // The interval is now 10 seconds, counted from the rejected poll.
+        clock.advance(Duration.ofSeconds(9));
+        assertEquals(ErrorResponse.DESC_SLOW_DOWN, pollError(device, CLIENT_ID, code));
+        clock.advance(Duration.ofSeconds(15));
+        assertEquals(ErrorResponse.DESC_AUTHORIZATION_PENDING, pollError(device, CLIENT_ID, code));
+
+        // Throttling is per device code.
+        DeviceAuthorizationPayload other = device.startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(10));
+        assertEquals(ErrorResponse.DESC_AUTHORIZATION_PENDING, pollError(device, CLIENT_ID, other.getDeviceCode()));
+    }
+
+    @Test
+    public void testExpiry() {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+        DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(1));
+
+        clock.advance(Duration.ofMinutes(2));
+        assertNull(device.lookupUserCode(payload.getUserCode()));
+        assertFalse(device.decide(payload.getUserCode(), approval()));
+        assertEquals(ErrorResponse.DESC_EXPIRED_TOKEN, pollError(device, CLIENT_ID, payload.getDeviceCode()));
+    }
+
+    @Test
+    public void testLongPoll() throws Exception {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI)
+                .longPollTimeout(Duration.ofSeconds(30))
+                .build();
+        DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(10));
+        UserAuthorization approval = approval();
+
+        // The poll waits without holding this thread.
+        CompletableFuture<UserAuthorization> poll = device.pollAsync(CLIENT_ID, payload.getDeviceCode()).toCompletableFuture();
+        assertFalse(poll.isDone());
+
+        long start = System.nanoTime();
+        assertTrue(device.decide(payload.getUserCode(), approval));
+        assertSame(approval, poll.get(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testLongPollTimesOut() throws Exception {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI)
+                .longPollTimeout(Duration.ofMillis(100))
+                .build();
+        DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, List.of("a"), inMinutes(10));
+
+        CompletableFuture<UserAuthorization> poll = device.pollAsync(CLIENT_ID, payload.getDeviceCode()).toCompletableFuture();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> poll.get(10, TimeUnit.SECONDS));
+        assertEquals(ErrorResponse.DESC_AUTHORIZATION_PENDING, ((InvalidRequestException) e.getCause()).getErrorResponse().getError());
+
+        // The synchronous poll never waits.
+        clock.advance(Duration.ofSeconds(5));
+        assertEquals(ErrorResponse.DESC_AUTHORIZATION_PENDING, pollError(device, CLIENT_ID, payload.getDeviceCode()));
+    }
+
+    private static ObjectNode json(OAuthReponse page) throws Exception {
+        return new ObjectMapper().readValue(JsonParamWriter.encode(page.getContent()), ObjectNode.class);
+    }
+
+    private static ParamReader params(Map<String, String> params) {
+        Map<String, List<String>> multi = new HashMap<>();
+        params.forEach((k, v) -> multi.put(k, List.of(v)));
+        return ParamReader.from(multi::get);
+    }
+
+    @Test
+    public void testDeviceCodeGrant() throws Exception {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+        IssuerBundle bundle = MockCredentials.DEFAULT_ISSUER_BUNDLE.withClock(clock).withDeviceAuthorization(device);
+        ClientRegistration client = new MockCredentials.MockClientRegistration() {
+            @Override
+            public long getDeviceCodeLifetimeSeconds() {
+                return 5 * 60;
+            }
+        };
+
+        Outcome<DeviceAuthorizationRequest> started = DeviceAuthorizationRequest.tryParse(bundle, client,
+                params(Map.of("client_id", CLIENT_ID)));
+        assertEquals(MockCredentials.DEFAULT_SCOPES, started.getOrThrow().getScopes());
+        ObjectNode codes = json(started.getOrThrow().start());
+        assertEquals(300, codes.get("expires_in").asLong());
+
+        Map<String, String> poll = Map.of(
+                "grant_type", "urn:ietf:params:oauth:grant-type:device_code",
+                "client_id", CLIENT_ID,
+                "device_code", codes.get("device_code").asText());
+        Outcome<TokenRequestGranter> pending = TokenRequest.parser().tryParse(bundle, client, params(poll));
+        assertEquals(ErrorResponse.DESC_AUTHORIZATION_PENDING, ((Outcome.Failure<?>) pending).getError().getError());
+        assertEquals(400, ((Outcome.Failure<?>) pending).toResponse().getStatus());
+
+        DeviceAuthorization shown = device.lookupUserCode(codes.get("user_code").asText());
+        TokenSpec spec = TokenSpec.from(client, () -> MockCredentials.DEFAULT_CLAIM_SUB, shown.getClientId(), shown.getScopes(), null);
+        assertTrue(device.decide(codes.get("user_code").asText(), new UserAuthorization(spec, false, null, null)));
+
+        clock.advance(Duration.ofSeconds(5));
+        Outcome<TokenRequestGranter> granted = TokenRequest.parser().tryParse(bundle, client, params(poll));
+        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(json(granted.getOrThrow().grant()));
+    }
+
+    @Test
+    public void testDeviceCodeLifetimeIsClamped() throws Exception {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+        IssuerBundle bundle = MockCredentials.DEFAULT_ISSUER_BUNDLE.withClock(clock).withDeviceAuthorization(device);
+        ClientRegistration client = new MockCredentials.MockClientRegistration() {
+            @Override
+            public long getDeviceCodeLifetimeSeconds() {
+                return 30 * 60;
+            }
+        };
+
+        ObjectNode codes = json(DeviceAuthorizationRequest.tryParse(bundle, client, params(Map.of("client_id", CLIENT_ID)))
+                .getOrThrow().start());
+        assertEquals(DataStore.MAX_EXPIRES_IN_SECS, codes.get("expires_in").asLong());
+
+        // The code lasts as long as advertised, not as long as the client asked for.
+        clock.advance(Duration.ofSeconds(DataStore.MAX_EXPIRES_IN_SECS - 1));
+        assertEquals(ErrorResponse.DESC_AUTHORIZATION_PENDING, pollError(device, CLIENT_ID, codes.get("device_code").asText()));
+        clock.advance(Duration.ofSeconds(2));
+        assertEquals(ErrorResponse.DESC_EXPIRED_TOKEN, pollError(device, CLIENT_ID, codes.get("device_code").asText()));
+    }
+
+    @Test
+    public void testDeviceCodeGrantAsync() throws Exception {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI)
+                .longPollTimeout(Duration.ofSeconds(30))
+                .build();
+        IssuerBundle bundle = MockCredentials.DEFAULT_ISSUER_BUNDLE.withClock(clock).withDeviceAuthorization(device);
+        ClientRegistration client = new MockCredentials.MockClientRegistration() {
+            @Override
+            public long getDeviceCodeLifetimeSeconds() {
+                return 5 * 60;
+            }
+        };
+
+        DeviceAuthorizationPayload payload = device.startDeviceAuthorization(CLIENT_ID, MockCredentials.DEFAULT_SCOPES, inMinutes(5));
+        CompletableFuture<Outcome<TokenRequestGranter>> granted = TokenRequest.parser().tryParseAsync(bundle, client, params(Map.of(
+                "grant_type", "urn:ietf:params:oauth:grant-type:device_code",
+                "client_id", CLIENT_ID,
+                "device_code", payload.getDeviceCode())), null).toCompletableFuture();
+        assertFalse(granted.isDone());
+
+        TokenSpec spec = TokenSpec.from(client, () -> MockCredentials.DEFAULT_CLAIM_SUB, CLIENT_ID, MockCredentials.DEFAULT_SCOPES, null);
+        assertTrue(device.decide(payload.getUserCode(), new UserAuthorization(spec, false, null, null)));
+        MockCredentials.assertAccessTokenClaimsValidForDefaultIssuer(json(granted.get(10, TimeUnit.SECONDS).getOrThrow().grant()));
+
+        // A poll which fails its checks completes at once.
+        CompletableFuture<Outcome<TokenRequestGranter>> refused = TokenRequest.parser().tryParseAsync(bundle, client, params(Map.of(
+                "grant_type", "urn:ietf:params:oauth:grant-type:device_code",
+                "client_id", CLIENT_ID,
+                "device_code", "unknown")), null).toCompletableFuture();
+        assertTrue(refused.isDone());
+        assertEquals(ErrorResponse.DESC_EXPIRED_TOKEN, ((Outcome.Failure<?>) refused.get()).getError().getError());
+    }
+
+    @Test
+    public void testStartAuthenticatesConfidentialClient() {
+        RandomCodeDeviceAuthorizationAuthority device = RandomCodeDeviceAuthorizationAuthority.builder(store, VERIFICATION_URI).build();
+        IssuerBundle bundle = MockCredentials.DEFAULT_ISSUER_BUNDLE.withClock(clock).withDeviceAuthorization(device);
+        String hash = ClientSecretHash.hash("s3cret", 1000);
+        ClientRegistration client = new MockCredentials.MockClientRegistration() {
+            @Override
+            public long getDeviceCodeLifetimeSeconds() {
+                return 5 * 60;
+            }
+
+            @Override
+            public String getClientSecretHash() {
+                return hash;
+            }
+        };
+
+        Outcome<DeviceAuthorizationRequest> anonymous = DeviceAuthorizationRequest.tryParse(bundle, client,
+                params(Map.of("client_id", CLIENT_ID)));
+        assertEquals(ErrorResponse.DESC_INVALID_CLIENT, ((Outcome.Failure<?>) anonymous).getError().getError());
+        assertEquals(401, ((Outcome.Failure<?>) anonymous).toResponse().getStatus());
+
+        String basic = "Basic " + Base64.getEncoder().encodeToString((CLIENT_ID + ":s3cret").getBytes(StandardCharsets.UTF_8));
+        Outcome<DeviceAuthorizationRequest> started = DeviceAuthorizationRequest.tryParse(bundle, client, params(Map.of()), basic);
+        assertEquals(CLIENT_ID, started.getOrThrow().getClientId());
+    }
+
+    @Test
+    public void testDeviceCodeGrantNotPermitted() {
+        IssuerBundle bundle = MockCredentials.DEFAULT_ISSUER_BUNDLE;
+
+        Outcome<DeviceAuthorizationRequest> started = DeviceAuthorizationRequest.tryParse(bundle,
+                MockCredentials.DEFAULT_CLIENT_REGISTRATION, params(Map.of("client_id", CLIENT_ID)));
+        assertEquals(ErrorResponse.DESC_UNAUTHORIZED_CLIENT, ((Outcome.Failure<?>) started).getError().getError());
+
+        Outcome<TokenRequestGranter> poll = TokenRequest.parser().tryParse(bundle, MockCredentials.DEFAULT_CLIENT_REGISTRATION, params(Map.of(
+                "grant_type", "urn:ietf:params:oauth:grant-type:device_code",
+                "client_id", CLIENT_ID,
+                "device_code", "whatever")));
+        assertEquals(ErrorResponse.DESC_UNSUPPORTED_GRANT_TYPE, ((Outcome.Failure<?>) poll).getError().getError());
+    }
+}
@@ -0,0 +1,98 @@
+package io.hoek.neoauth2.backend.builtin;
+
+import io.hoek.neoauth2.model.ScopeSet;
+import io.hoek.neoauth2.test.MockCredentials;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScopePolicyTest {
+
+    private static final ScopePolicy POLICY = ScopePolicy.compile(Map.of(
+            "orders:read", "https://orders.example.com",
+            "orders:*", "https://orders-admin.example.com",
+            "orders:write", "https://orders.example.com",
+            "admin/*", "https://admin.example.com",
+            "admin/users/*", "https://users.example.com",
+            "profile", "https://api.example.com"));
+
+    @Test
+    public void testSingleScope() {
+        assertEquals("https://orders.example.com", POLICY.getAudience("orders:read"));
+        assertEquals("https://orders.example.com", POLICY.getAudience("orders:write"));
+        assertEquals("https://orders-admin.example.com", POLICY.getAudience("orders:delete"));
+        assertEquals("https://orders-admin.example.com", POLICY.getAudience("orders:read:all"));
+        assertEquals("https://admin.example.com", POLICY.getAudience("admin/settings"));
+        assertEquals("https://users.example.com", POLICY.getAudience("admin/users/delete"));
+        assertEquals("https://admin.example.com", POLICY.getAudience("admin/user"));
+        assertEquals("https://api.example.com", POLICY.getAudience("profile"));
+
+        assertNull(POLICY.getAudience("orders"));
+        assertNull(POLICY.getAudience("profile:extra"));
+        assertNull(POLICY.getAudience("prof"));
+        assertNull(POLICY.getAudience("admin"));
+        assertNull(POLICY.getAudience(""));
+    }
+
+    @Test
+    public void testScopeList() {
+        assertEquals("https://orders.example.com", POLICY.getAudience(List.of("orders:read", "orders:write")));
+        assertNull(POLICY.getAudience(List.of("orders:read", "orders:delete")));
+        assertNull(POLICY.getAudience(List.of("orders:read", "unknown")));
+        assertNull(POLICY.getAudience(List.of()));
+    }
+
+    @Test
+    public void testCatchAll() {
+        ScopePolicy policy = ScopePolicy.compile(Map.of("*", "https://api.example.com", "secret", "https://secret.example.com"));
+        assertEquals("https://api.example.com", policy.getAudience("anything"));
+        assertEquals("https://api.example.com", policy.getAudience("secrets"));
+        assertEquals("https://secret.example.com", policy.getAudience("secret"));
+    }
+
+    @Test
+    public void testManyRules() {
+        Map<String, String> rules = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            rules.put("service" + i + ":read", "https://service" + i + ".example.com");
+            rules.put("service" + i + ":*", "https://service" + i + "-admin.example.com");
+        }
+
+        ScopePolicy policy = ScopePolicy.compile(rules);
+        assertEquals("https://service123.example.com", policy.getAudience("service123:read"));
+        assertEquals("https://service12-admin.example.com", policy.getAudience("service12:write"));
+        assertNull(policy.getAudience("service1000:read"));
+    }
+
+    @Test
+    public void testInvalidRule() {
+        assertThrows(IllegalArgumentException.class, () -> ScopePolicy.compile(Map.of("orders:*:read", "aud")));
+        assertThrows(IllegalArgumentException.class, () -> ScopePolicy.compile(Map.of("**", "aud")));
+    }
+
+    @Test
+    public void testClientRegistration() {
+        HierarchicalScopeClientRegistration client = new HierarchicalScopeClientRegistration(POLICY, List.of("profile")) {
+            @Override
+            public Collection<URI> getAllowedRedirectUris() {
+                return MockCredentials.DEFAULT_ALLOWED_REDIRECT_URIS;
+            }
+
+            @Override
+            public long getAccessTokenLifetimeSeconds() {
+                return 60;
+            }
+        };
+
+        assertEquals(List.of("profile"), client.getDefaultScopes());
+        assertEquals("https://orders.example.com", client.validateScopesAndGetAudience(List.of("orders:read")));
+        assertEquals("https://orders.example.com", client.validateScopesAndGetAudience(ScopeSet.parse("orders:write orders:read")));
+        assertNull(client.validateScopesAndGetAudience(ScopeSet.parse("orders:read profile")));
+    }
+}
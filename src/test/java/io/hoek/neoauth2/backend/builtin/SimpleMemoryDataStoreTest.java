@@ -1,26 +1,37 @@
 package io.hoek.neoauth2.backend.builtin;
 
+import io.hoek.neoauth2.backend.UserAuthorization;
+import io.hoek.neoauth2.model.AuthorizationCodePayload;
+import io.hoek.neoauth2.test.MockCredentials;
+import io.hoek.neoauth2.test.TestUtil;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class SimpleMemoryDataStoreTest {
 
     @Test
     public void test() {
-        DataStore ds = new SimpleMemoryDataStore();
+        DataStore<String> ds = new SimpleMemoryDataStore<>();
 
         assertNull(ds.get("BLAH"));
 
         assertNull(ds.get("A"));
-        ds.put("A", new DataStore.Entry("B1", Instant.now().plus(Duration.ofHours(5000))));
+        ds.put("A", new DataStore.Entry<>("B1", Instant.now().plus(Duration.ofHours(5000))));
 
         {
-            DataStore.Entry e = ds.get("A");
+            DataStore.Entry<String> e = ds.get("A");
             assertEquals("B1", e.getValue());
             assertEquals(DataStore.Entry.AccessCount.FIRST, e.getAccessCount());
         }
@@ -28,27 +39,27 @@ public class SimpleMemoryDataStoreTest {
         assertNull(ds.get("B"));
 
         {
-            DataStore.Entry e = ds.get("A");
+            DataStore.Entry<String> e = ds.get("A");
             assertEquals("B1", e.getValue());
             assertEquals(DataStore.Entry.AccessCount.SUBSEQUENT, e.getAccessCount());
         }
 
         {
-            DataStore.Entry e = ds.get("A");
+            DataStore.Entry<String> e = ds.get("A");
             assertEquals(e.getValue(), "B1");
             assertEquals(DataStore.Entry.AccessCount.SUBSEQUENT, e.getAccessCount());
         }
 
-        ds.put("A", new DataStore.Entry("B2", Instant.now().plus(Duration.ofHours(5000))));
+        ds.put("A", new DataStore.Entry<>("B2", Instant.now().plus(Duration.ofHours(5000))));
 
         {
-            DataStore.Entry e = ds.get("A");
+            DataStore.Entry<String> e = ds.get("A");
             assertEquals("B2", e.getValue());
             assertEquals(e.getAccessCount(), DataStore.Entry.AccessCount.FIRST);
         }
 
         {
-            DataStore.Entry e = ds.get("A");
+            DataStore.Entry<String> e = ds.get("A");
             assertEquals("B2", e.getValue());
             assertEquals(DataStore.Entry.AccessCount.SUBSEQUENT, e.getAccessCount());
         }
@@ -56,15 +67,87 @@ public class SimpleMemoryDataStoreTest {
         ds.remove("A");
         assertNull(ds.get("A"));
 
-        ds.put("X", new DataStore.Entry("B3", Instant.now().plus(Duration.ofHours(5000))));
+        ds.put("X", new DataStore.Entry<>("B3", Instant.now().plus(Duration.ofHours(5000))));
 
         assertNull(ds.get("A"));
-        ds.put("A", new DataStore.Entry("B1", Instant.now().plus(Duration.ofHours(5000))));
+        ds.put("A", new DataStore.Entry<>("B1", Instant.now().plus(Duration.ofHours(5000))));
 
         {
-            DataStore.Entry e = ds.get("A");
+            DataStore.Entry<String> e = ds.get("A");
             assertEquals("B1", e.getValue());
             assertEquals(DataStore.Entry.AccessCount.FIRST, e.getAccessCount());
         }
     }
+
+    @Test
+    public void testRacingReadsSeeFirstOnce() throws Exception {
+        DataStore<String> ds = new SimpleMemoryDataStore<>(true);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 500; round++) {
+                String key = "K" + round;
+                ds.put(key, new DataStore.Entry<>("V", Instant.now().plus(Duration.ofMinutes(5))));
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return ds.get(key).getAccessCount().isFirst();
+                    }));
+                }
+                start.countDown();
+
+                int firsts = 0;
+                for (Future<Boolean> result : results) {
+                    if (result.get()) {
+                        firsts++;
+                    }
+                }
+                assertEquals(1, firsts);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExpiryFollowsClock() {
+        FakeClock clock = new FakeClock();
+        DataStore<String> ds = new SimpleMemoryDataStore<>(clock, true);
+
+        ds.put("A", new DataStore.Entry<>("B1", clock.instant().plus(Duration.ofSeconds(30))));
+        ds.put("X", new DataStore.Entry<>("B2", clock.instant().plus(Duration.ofHours(5000))));
+
+        clock.advance(Duration.ofSeconds(29));
+        assertNotNull(ds.getUncheckedExpiry("A"));
+
+        clock.advance(Duration.ofSeconds(2));
+        assertNull(ds.get("A"));
+        assertNotNull(ds.get("X"));
+
+        // Entries are never kept longer than `MAX_EXPIRES_IN_SECS`.
+        clock.advance(Duration.ofSeconds(DataStore.MAX_EXPIRES_IN_SECS));
+        assertNull(ds.getUncheckedExpiry("X"));
+    }
+
+    @Test
+    public void testSimulateManyExpiringCodes() {
+        FakeClock clock = new FakeClock();
+        RandomCodeAuthorizationAuthority authority = new RandomCodeAuthorizationAuthority(new SimpleMemoryDataStore<>(clock, true));
+        UserAuthorization order = MockCredentials.getDefaultAuthorizationCodeOrder(TestUtil.getRandom32Bytes());
+
+        AuthorizationCodePayload[] codes = new AuthorizationCodePayload[10000];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = authority.issueAuthorizationCode(order, clock.instant().plus(Duration.ofSeconds(60)));
+        }
+
+        clock.advance(Duration.ofSeconds(61));
+
+        for (AuthorizationCodePayload code : codes) {
+            assertNull(authority.readAndVerifyAuthorizationCode(code));
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package io.hoek.neoauth2.internal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.hoek.neoauth2.model.ErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ErrorResponseEncoderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static void assertEncodesLikeJackson(ErrorResponse er) throws Exception {
+        assertEquals(MAPPER.writeValueAsString(er),
+                new String(ErrorResponseEncoder.encode(er), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMatchesJackson() throws Exception {
+        for (String state : List.of("", "xyz", "\"quoted\\\"", "tab\tnewline\n", "é中😀", "</script>")) {
+            assertEncodesLikeJackson(new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "invalid code", state));
+            assertEncodesLikeJackson(new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "not a common \"message\"", state));
+            assertEncodesLikeJackson(new ErrorResponse("custom_error", state, state));
+        }
+
+        assertEncodesLikeJackson(new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "invalid code", null));
+        assertEncodesLikeJackson(new ErrorResponse(ErrorResponse.DESC_SERVER_ERROR, null, null));
+        assertEncodesLikeJackson(new ErrorResponse(ErrorResponse.DESC_SERVER_ERROR, null, "abc"));
+        assertEncodesLikeJackson(new ErrorResponse("custom_error", null, null));
+    }
+
+    @Test
+    public void testCommonErrorsAreShared() {
+        ErrorResponse er = new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing param 'client_id'", null);
+        assertSame(ErrorResponseEncoder.encode(er), ErrorResponseEncoder.encode(er));
+
+        ErrorResponse withState = new ErrorResponse(ErrorResponse.DESC_INVALID_REQUEST, "missing param 'client_id'", "s");
+        assertNotSame(ErrorResponseEncoder.encode(withState), ErrorResponseEncoder.encode(withState));
+    }
+
+    @Test
+    public void testDevicePollingErrorsAreShared() throws Exception {
+        ErrorResponse pending = new ErrorResponse(ErrorResponse.DESC_AUTHORIZATION_PENDING, "authorization pending", null);
+        assertSame(ErrorResponseEncoder.encode(pending), ErrorResponseEncoder.encode(pending));
+        assertEncodesLikeJackson(pending);
+
+        ErrorResponse slowDown = new ErrorResponse(ErrorResponse.DESC_SLOW_DOWN, "polling too frequently", null);
+        assertSame(ErrorResponseEncoder.encode(slowDown), ErrorResponseEncoder.encode(slowDown));
+        assertEncodesLikeJackson(slowDown);
+
+        ErrorResponse expired = new ErrorResponse(ErrorResponse.DESC_EXPIRED_TOKEN, "device code expired", null);
+        assertSame(ErrorResponseEncoder.encode(expired), ErrorResponseEncoder.encode(expired));
+        assertEncodesLikeJackson(expired);
+    }
+}
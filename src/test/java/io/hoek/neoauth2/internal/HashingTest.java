@@ -0,0 +1,69 @@
+package io.hoek.neoauth2.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashingTest {
+
+    private static final String ABC_SHA256 = "ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0";
+
+    @Test
+    public void testSha256() {
+        assertEquals(ABC_SHA256, Hashing.sha256Base64Url("abc"));
+        // The pooled digest is reset between uses.
+        assertEquals(ABC_SHA256, Hashing.sha256Base64Url("abc".getBytes()));
+        assertEquals(Hashing.SHA256_LENGTH, Hashing.sha256("").length);
+        assertEquals(ABC_SHA256, Util.calculateSha256Base64UrlEncodedWithoutPadding("abc"));
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                results.add(executor.submit(() -> Hashing.sha256Base64Url("abc")));
+            }
+
+            for (Future<String> result : results) {
+                assertEquals(ABC_SHA256, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDecodeBase64Url() {
+        assertArrayEquals(Hashing.sha256("abc"), Hashing.decodeBase64Url(ABC_SHA256));
+        assertArrayEquals(new byte[]{(byte) 0xfb, (byte) 0xff}, Hashing.decodeBase64Url("-_8"));
+        assertNull(Hashing.decodeBase64Url("+/8"));
+        assertNull(Hashing.decodeBase64Url("a"));
+    }
+
+    @Test
+    public void testConstantTimeEquals() {
+        assertTrue(Hashing.constantTimeEquals(new byte[]{1, 2}, new byte[]{1, 2}));
+        assertFalse(Hashing.constantTimeEquals(new byte[]{1, 2}, new byte[]{1, 3}));
+        assertFalse(Hashing.constantTimeEquals(new byte[]{1, 2}, new byte[]{1}));
+        assertFalse(Hashing.constantTimeEquals(null, new byte[]{1}));
+    }
+
+    @Test
+    public void testHmacSha256() {
+        // RFC 4231, test case 2.
+        byte[] key = "Jefe".getBytes(StandardCharsets.UTF_8);
+        assertEquals("W9zBRr9gdU5qBCQmCJV1x1oAPwidJzmDnexYuWTsOEM", Hashing.encodeBase64Url(Hashing.hmacSha256(key, "what do ya want for nothing?")));
+        // The pooled MAC is rekeyed between uses.
+        assertFalse(Arrays.equals(Hashing.hmacSha256(key, "x"), Hashing.hmacSha256(new byte[]{1}, "x")));
+    }
+}
@@ -0,0 +1,91 @@
+package io.hoek.neoauth2.internal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.hoek.neoauth2.model.AccessTokenPayload;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonParamWriterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ParamWriter.Writable WRITABLE = writer -> {
+        writer.set("access_token", "abc.def.ghi");
+        writer.set("expires_in", 3600);
+        writer.set("quoted", "\"x\\y\"\n\t\u0001");
+        writer.set("unicode", "é中😀");
+        writer.set("min", Long.MIN_VALUE);
+    };
+
+    private static String expected(ParamWriter.Writable writable) throws Exception {
+        ObjectNode root = MAPPER.createObjectNode();
+        writable.writeTo(new ParamWriter<Void>() {
+            @Override
+            public void set(String param, String value) {
+                root.put(param, value);
+            }
+
+            @Override
+            public void set(String param, long value) {
+                root.put(param, value);
+            }
+
+            @Override
+            public Void build() {
+                return null;
+            }
+        });
+
+        return MAPPER.writeValueAsString(root);
+    }
+
+    // The streaming generator escapes characters outside the BMP where the tree serializer writes them raw, so we
+    // compare the parsed documents rather than the bytes.
+    private static void assertJsonEquals(String expected, byte[] actual) throws Exception {
+        assertEquals(MAPPER.readTree(expected), MAPPER.readTree(actual));
+    }
+
+    @Test
+    public void testMatchesTree() throws Exception {
+        assertJsonEquals(expected(WRITABLE), JsonParamWriter.encode(WRITABLE));
+        assertJsonEquals(expected(WRITABLE), new JsonParamWriter().buildWith(WRITABLE));
+        assertEquals("{}", new String(JsonParamWriter.encode(writer -> {
+        }), StandardCharsets.UTF_8));
+
+        AccessTokenPayload payload = new AccessTokenPayload("token", "Bearer", 60, List.of("a", "b"));
+        assertJsonEquals(expected(payload), JsonParamWriter.encode(payload));
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        boolean[] closed = {false};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream wrapped = new OutputStream() {
+            @Override
+            public void write(int b) {
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        JsonParamWriter.encode(WRITABLE, wrapped);
+        assertJsonEquals(expected(WRITABLE), out.toByteArray());
+        assertFalse(closed[0]);
+    }
+}
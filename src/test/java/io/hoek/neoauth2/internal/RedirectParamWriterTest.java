@@ -0,0 +1,119 @@
+package io.hoek.neoauth2.internal;
+
+import io.hoek.neoauth2.FormParamReader;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.UriBuilder;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedirectParamWriterTest {
+
+    private static final List<URI> URIS = List.of(
+            URI.create("https://example.com/redirect_endpoint"),
+            URI.create("https://example.com/callback?tenant=abc&x=1"),
+            URI.create("https://example.com/callback?state=stale&code=stale&tenant=abc"),
+            URI.create("http://127.0.0.1:9090/redirect%20endpoint?a%20b=c%20d"));
+
+    // Values which the `UriBuilder`-based writers (which the current ones replaced) also handle correctly.
+    private static final Map<String, String> PARAMS = Map.of(
+            "code", "HoJrB3Rz-2_kT.q~x",
+            "state", "some state/with ?&=#+ \"reserved\" chars",
+            "scope", "read write admin:all",
+            "unicode", "é中😀");
+
+    private static void assertParamsEqual(Map<String, String> expected, String rawParams) {
+        FormParamReader reader = FormParamReader.from(rawParams);
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(List.of(entry.getValue()), reader.get(entry.getKey()));
+        }
+    }
+
+    // Parameters already in the redirect URI which we didn't overwrite are preserved.
+    private static void assertOriginalParamsPreserved(URI base, String rawQuery) {
+        FormParamReader original = FormParamReader.from(base.getRawQuery());
+        FormParamReader actual = FormParamReader.from(rawQuery);
+        for (String name : List.of("tenant", "x", "a b")) {
+            assertEquals(original.get(name), actual.get(name));
+        }
+    }
+
+    @Test
+    public void testQueryMatchesUriBuilder() {
+        for (URI uri : URIS) {
+            UriBuilder builder = UriBuilder.fromUri(uri);
+            UriQueryParamWriter writer = new UriQueryParamWriter(uri);
+            PARAMS.forEach((name, value) -> {
+                builder.replaceQueryParam(name, value);
+                writer.set(name, value);
+            });
+
+            URI expected = builder.build();
+            URI actual = writer.build();
+
+            assertEquals(expected.getScheme(), actual.getScheme());
+            assertEquals(expected.getRawAuthority(), actual.getRawAuthority());
+            assertEquals(expected.getRawPath(), actual.getRawPath());
+            assertNull(actual.getRawFragment());
+            assertParamsEqual(PARAMS, expected.getRawQuery());
+            assertParamsEqual(PARAMS, actual.getRawQuery());
+            assertOriginalParamsPreserved(uri, expected.getRawQuery());
+            assertOriginalParamsPreserved(uri, actual.getRawQuery());
+            assertEquals(actual.toString(), writer.buildLocation());
+        }
+    }
+
+    @Test
+    public void testFragmentMatchesUriBuilder() {
+        for (URI uri : URIS) {
+            StringBuilder fragment = new StringBuilder();
+            UriFragmentParamWriter writer = new UriFragmentParamWriter(uri);
+            PARAMS.forEach((name, value) -> {
+                if (fragment.length() != 0) {
+                    fragment.append("&");
+                }
+                fragment.append(RedirectParamWriter.encode(name)).append("=").append(RedirectParamWriter.encode(value));
+                writer.set(name, value);
+            });
+
+            URI expected = UriBuilder.fromUri(uri).fragment(fragment.toString()).build();
+            URI actual = writer.build();
+
+            assertEquals(expected.getRawSchemeSpecificPart(), actual.getRawSchemeSpecificPart());
+            assertParamsEqual(PARAMS, expected.getRawFragment());
+            assertParamsEqual(PARAMS, actual.getRawFragment());
+        }
+    }
+
+    @Test
+    public void testEncoding() {
+        assertEquals("AZaz09-._~", RedirectParamWriter.encode("AZaz09-._~"));
+        assertEquals("%20%2B%25%7B%7D%26%3D%23%3F%2F", RedirectParamWriter.encode(" +%{}&=#?/"));
+        assertEquals("%C3%A9%E4%B8%AD%F0%9F%98%80", RedirectParamWriter.encode("é中😀"));
+
+        // Values which `UriBuilder` would have mistaken for templates or existing escapes round-trip unchanged.
+        UriQueryParamWriter writer = new UriQueryParamWriter(URI.create("https://example.com/cb"));
+        writer.set("state", "{state}%41");
+        assertEquals("https://example.com/cb?state=%7Bstate%7D%2541", writer.buildLocation());
+        assertEquals(List.of("{state}%41"), FormParamReader.from(writer.build().getRawQuery()).get("state"));
+    }
+
+    @Test
+    public void testReplace() {
+        UriQueryParamWriter writer = new UriQueryParamWriter(URI.create("https://example.com/cb?a=1&b=2&a=3#frag"));
+        writer.set("a", "x");
+        writer.set("c", "y");
+        writer.set("a", "z");
+        assertEquals("https://example.com/cb?b=2&c=y&a=z#frag", writer.buildLocation());
+
+        assertEquals("https://example.com/cb", new UriQueryParamWriter(URI.create("https://example.com/cb")).buildLocation());
+
+        UriFragmentParamWriter fragmentWriter = new UriFragmentParamWriter(URI.create("https://example.com/cb?a=1#old"));
+        fragmentWriter.set("access_token", "t");
+        fragmentWriter.set("expires_in", 3600);
+        assertEquals("https://example.com/cb?a=1#access_token=t&expires_in=3600", fragmentWriter.buildLocation());
+    }
+}
@@ -0,0 +1,85 @@
+package io.hoek.neoauth2.internal;
+
+import io.hoek.neoauth2.test.MockCredentials;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedirectUriMatcherTest {
+
+    private static final List<URI> CANDIDATES = List.of(
+            URI.create("https://example.com/cb"),
+            URI.create("https://EXAMPLE.com/cb"),
+            URI.create("https://example.com/cb2"),
+            URI.create("https://example.com/cb?x=%2f"),
+            URI.create("https://example.com/cb?x=%2F"),
+            URI.create("https://example.com:8443/cb"),
+            URI.create("http://localhost/redirect"),
+            URI.create("http://localhost:1234/redirect"),
+            URI.create("http://127.0.0.1:9090/redirect"),
+            URI.create("http://[::1]:9090/redirect"),
+            URI.create("https://localhost:9090/redirect"),
+            URI.create("http://localhost:9090/redirect/other"),
+            URI.create("no/host"));
+
+    @Test
+    public void testMatchesLikeDoUrisMatch() {
+        List<URI> allowed = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            allowed.add(URI.create("https://tenant" + i + ".example.com/cb"));
+        }
+        allowed.add(URI.create("https://example.com/cb?x=%2F"));
+        allowed.add(URI.create("https://example.com/cb"));
+        allowed.add(URI.create("http://127.0.0.1:9090/redirect"));
+        allowed.add(URI.create("no/host"));
+
+        RedirectUriMatcher matcher = RedirectUriMatcher.of(allowed);
+        for (URI candidate : CANDIDATES) {
+            assertEquals(allowed.stream().anyMatch(uri -> Util.doUrisMatch(candidate, uri)), matcher.matches(candidate),
+                    candidate.toString());
+        }
+
+        assertSame(allowed.get(1000), matcher.matchExact("https://example.com/cb?x=%2F"));
+        assertNull(matcher.matchExact("https://example.com/cb?x=%2f"));
+        assertNull(matcher.matchExact("http://localhost:9090/redirect"));
+    }
+
+    @Test
+    public void testCachedPerClientVersion() {
+        List<URI> allowed = new ArrayList<>(MockCredentials.DEFAULT_ALLOWED_REDIRECT_URIS);
+        AtomicLong version = new AtomicLong();
+        MockCredentials.MockClientRegistration client = new MockCredentials.MockClientRegistration() {
+            @Override
+            public Collection<URI> getAllowedRedirectUris() {
+                return allowed;
+            }
+
+            @Override
+            public Object getAllowedRedirectUrisVersion() {
+                return version.get();
+            }
+        };
+
+        RedirectUriMatcher matcher = RedirectUriMatcher.forClient(client);
+        assertSame(matcher, RedirectUriMatcher.forClient(client));
+        assertSame(MockCredentials.DEFAULT_REDIRECT_URI, matcher.matchExact(MockCredentials.DEFAULT_REDIRECT_URI.toString()));
+
+        // Changing the collection in place is not seen until the version changes.
+        allowed.remove(MockCredentials.DEFAULT_REDIRECT_URI);
+        assertTrue(matcher.matches(MockCredentials.DEFAULT_REDIRECT_URI));
+        version.incrementAndGet();
+        assertNotSame(matcher, RedirectUriMatcher.forClient(client));
+        assertFalse(RedirectUriMatcher.forClient(client).matches(MockCredentials.DEFAULT_REDIRECT_URI));
+    }
+
+    @Test
+    public void testUnversionedClientHasNoMatcher() {
+        assertNull(RedirectUriMatcher.forClient(new MockCredentials.MockClientRegistration()));
+    }
+}
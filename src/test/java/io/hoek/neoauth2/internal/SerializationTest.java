@@ -0,0 +1,42 @@
+package io.hoek.neoauth2.internal;
+
+import io.hoek.neoauth2.model.AccessTokenPayload;
+import io.hoek.neoauth2.model.CodeChallengeMethod;
+import io.hoek.neoauth2.model.ErrorResponse;
+import io.hoek.neoauth2.model.GrantType;
+import io.hoek.neoauth2.model.ResponseType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerializationTest {
+
+    @Test
+    public void testReadersAndWritersAreShared() {
+        Serialization.warmUp();
+
+        assertSame(Serialization.readerFor(ErrorResponse.class), Serialization.readerFor(ErrorResponse.class));
+        assertSame(Serialization.writerFor(ErrorResponse.class), Serialization.writerFor(ErrorResponse.class));
+    }
+
+    @Test
+    public void testAccessTokenPayloadUsesWireFormat() throws Exception {
+        AccessTokenPayload payload = new AccessTokenPayload("token", AccessTokenPayload.TOKEN_TYPE_BEARER, 60, List.of("a", "b"));
+        assertEquals(new String(JsonParamWriter.encode(payload), StandardCharsets.UTF_8),
+                Serialization.writerFor(AccessTokenPayload.class).writeValueAsString(payload));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ErrorResponse er = new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "invalid code", "xyz");
+        assertEquals(er, Serialization.readerFor(ErrorResponse.class)
+                .readValue(Serialization.writerFor(ErrorResponse.class).writeValueAsString(er)));
+
+        assertEquals("\"S256\"", Serialization.writerFor(CodeChallengeMethod.class).writeValueAsString(CodeChallengeMethod.S256));
+        assertEquals(GrantType.CLIENT_CREDENTIALS, Serialization.readerFor(GrantType.class).readValue("\"client_credentials\""));
+        assertEquals(ResponseType.IMPLICIT, Serialization.readerFor(ResponseType.class).readValue("\"token\""));
+    }
+}
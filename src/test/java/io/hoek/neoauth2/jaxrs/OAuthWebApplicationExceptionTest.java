@@ -0,0 +1,59 @@
+package io.hoek.neoauth2.jaxrs;
+
+import io.hoek.neoauth2.HttpResponse;
+import io.hoek.neoauth2.OAuthReponse;
+import io.hoek.neoauth2.internal.ErrorResponseEncoder;
+import io.hoek.neoauth2.internal.UriQueryParamWriter;
+import io.hoek.neoauth2.model.AccessTokenPayload;
+import io.hoek.neoauth2.model.ErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OAuthWebApplicationExceptionTest {
+
+    @Test
+    public void testJsonPage() {
+        OAuthReponse.JsonPage page = new OAuthReponse.JsonPage(HttpResponse.STATUS_OK,
+                new AccessTokenPayload("token", AccessTokenPayload.TOKEN_TYPE_BEARER, 60, List.of("a", "b")));
+
+        OAuthWebApplicationException e = new OAuthWebApplicationException(page);
+        assertSame(page, e.getOAuthResponse());
+        assertSame(page, e.getCause());
+        assertEquals("HTTP 200 OK", e.getMessage());
+
+        Response response = e.getResponse();
+        assertEquals(200, response.getStatus());
+        assertEquals("no-store", response.getHeaderString("Cache-Control"));
+        assertEquals(new String(page.getHttpResponse().getBody(), StandardCharsets.UTF_8), response.getEntity().toString());
+    }
+
+    @Test
+    public void testRedirect() {
+        OAuthReponse.Redirect redirect = new OAuthReponse.Redirect(
+                new UriQueryParamWriter(URI.create("https://example.com/cb")),
+                new ErrorResponse(ErrorResponse.DESC_ACCESS_DENIED, "server denied access", "xyz"));
+
+        Response response = new OAuthReponseMapper().toResponse(redirect);
+        assertEquals(302, response.getStatus());
+        assertEquals(redirect.getHttpResponse().getHeader(HttpResponse.HEADER_LOCATION), response.getHeaderString("Location"));
+        assertFalse(response.hasEntity());
+    }
+
+    @Test
+    public void testJsonEntity() throws Exception {
+        ErrorResponse er = new ErrorResponse(ErrorResponse.DESC_INVALID_GRANT, "invalid code", "stäte");
+        JsonEntity entity = new JsonEntity(ErrorResponseEncoder.encode(er));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.write(out);
+        assertArrayEquals(entity.getBytes(), out.toByteArray());
+        assertEquals("{\"error\":\"invalid_grant\",\"error_message\":\"invalid code\",\"state\":\"stäte\"}", entity.toString());
+    }
+}
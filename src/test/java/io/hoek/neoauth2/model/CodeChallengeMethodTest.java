@@ -0,0 +1,48 @@
+package io.hoek.neoauth2.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodeChallengeMethodTest {
+
+    // From RFC 7636, Appendix B.
+    private static final String VERIFIER = "dBjftJeZ4CVP-mB92K27uhbUJU1p1r_wW1gFWFOEjXk";
+    private static final String CHALLENGE = "E9Melhoa2OwvFrEMTJguCHaoeK1t8URWbuGJSstw-cM";
+
+    @Test
+    public void testS256() {
+        assertEquals(CHALLENGE, CodeChallengeMethod.S256.calculateChallenge(VERIFIER));
+
+        PkceInfo info = new PkceInfo(CodeChallengeMethod.S256, CHALLENGE);
+        assertTrue(info.verify(VERIFIER));
+        assertTrue(info.verify(VERIFIER));
+        assertFalse(info.verify(VERIFIER + "x"));
+        assertFalse(info.verify(CHALLENGE));
+    }
+
+    @Test
+    public void testS256MalformedChallenge() {
+        assertNull(CodeChallengeMethod.S256.decodeChallenge("not base64!"));
+        assertNull(CodeChallengeMethod.S256.decodeChallenge("YWJj"));
+        assertFalse(new PkceInfo(CodeChallengeMethod.S256, "not base64!").verify(VERIFIER));
+    }
+
+    @Test
+    public void testPlain() {
+        PkceInfo info = new PkceInfo(CodeChallengeMethod.PLAIN, VERIFIER);
+        assertTrue(info.verify(VERIFIER));
+        assertFalse(info.verify(CHALLENGE));
+    }
+
+    @Test
+    public void testSettersResetDecodedChallenge() {
+        PkceInfo info = new PkceInfo(CodeChallengeMethod.PLAIN, VERIFIER);
+        assertTrue(info.verify(VERIFIER));
+
+        info.setMethod(CodeChallengeMethod.S256);
+        info.setChallenge(CHALLENGE);
+        assertTrue(info.verify(VERIFIER));
+        assertEquals(new PkceInfo(CodeChallengeMethod.S256, CHALLENGE), info);
+    }
+}
@@ -0,0 +1,113 @@
+package io.hoek.neoauth2.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScopeSetTest {
+
+    // Tests which register scopes use their own registry, so as not to fill the global one for other tests.
+    private final ScopeRegistry registry = new ScopeRegistry();
+
+    private ScopeSet parse(String scopes) {
+        return ScopeSet.parse(registry, scopes);
+    }
+
+    @Test
+    public void testParse() {
+        ScopeSet scopes = ScopeSet.parse("read  write read admin:all");
+        assertEquals(List.of("read", "write", "admin:all"), scopes.toList());
+        assertEquals("read write admin:all", scopes.toString());
+        assertEquals(3, scopes.size());
+
+        assertTrue(ScopeSet.parse("").isEmpty());
+        assertEquals(ScopeSet.EMPTY, ScopeSet.parse(" "));
+        assertEquals("", ScopeSet.EMPTY.toString());
+    }
+
+    @Test
+    public void testEquality() {
+        assertEquals(ScopeSet.parse("a b c"), ScopeSet.parse("c b a"));
+        assertEquals(ScopeSet.parse("a b c").hashCode(), ScopeSet.parse("c a b b").hashCode());
+        assertEquals(ScopeSet.parse("a b c"), ScopeSet.of(List.of("b", "c", "a")));
+        assertNotEquals(ScopeSet.parse("a b c"), ScopeSet.parse("a b"));
+        assertNotEquals(ScopeSet.parse("a b"), ScopeSet.parse("a b c"));
+        assertNotEquals(ScopeSet.parse("a"), ScopeSet.EMPTY);
+    }
+
+    @Test
+    public void testContains() {
+        ScopeSet abc = ScopeSet.parse("a b c");
+        assertTrue(abc.contains("a"));
+        assertFalse(abc.contains("d"));
+        assertFalse(abc.contains("never seen before"));
+
+        assertTrue(abc.containsAll(ScopeSet.parse("a c")));
+        assertTrue(abc.containsAll(ScopeSet.EMPTY));
+        assertTrue(abc.containsAll(abc));
+        assertFalse(abc.containsAll(ScopeSet.parse("a d")));
+        assertFalse(ScopeSet.parse("a c").containsAll(abc));
+    }
+
+    @Test
+    public void testRequestsDoNotRegister() {
+        int registered = registry.size();
+        ScopeSet parsed = parse("never-registered-1 never-registered-2");
+        assertEquals(registered, registry.size());
+
+        registry.register("never-registered-1");
+        assertEquals(registered + 1, registry.size());
+        assertTrue(parsed.contains("never-registered-1"));
+    }
+
+    @Test
+    public void testRegisteredLater() {
+        ScopeSet before = parse("late-1 late-2 late-3");
+        registry.register("late-1", "late-2");
+        ScopeSet after = parse("late-3 late-2 late-1");
+
+        assertEquals(before, after);
+        assertEquals(after, before);
+        assertEquals(before.hashCode(), after.hashCode());
+        assertTrue(before.containsAll(parse("late-2")));
+        assertTrue(parse("late-1").containsAll(parse("late-1")));
+        assertFalse(after.containsAll(parse("late-1 late-4")));
+        assertNotEquals(before, parse("late-1 late-2"));
+
+        // Sets from another registry compare by name.
+        ScopeRegistry other = new ScopeRegistry();
+        other.register("late-2");
+        assertEquals(before, ScopeSet.parse(other, "late-1 late-2 late-3"));
+        assertEquals(after, ScopeSet.parse(other, "late-1 late-2 late-3"));
+        assertTrue(after.containsAll(ScopeSet.parse(other, "late-2 late-3")));
+        assertFalse(ScopeSet.parse(other, "late-2").containsAll(after));
+    }
+
+    @Test
+    public void testOverflow() {
+        // Fill the registry, so that further scopes are stored by name.
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < ScopeSet.MAX_INTERNED; i++) {
+            many.add("overflow-test-" + i);
+        }
+        registry.register(many.toArray(new String[0]));
+
+        ScopeSet mixed = parse("a overflow-extra-1 overflow-extra-2 overflow-test-5");
+        assertEquals(List.of("a", "overflow-extra-1", "overflow-extra-2", "overflow-test-5"), mixed.toList());
+        assertEquals(mixed, parse("overflow-extra-2 overflow-test-5 a overflow-extra-1 overflow-extra-1"));
+        assertNotEquals(mixed, parse("a overflow-extra-1 overflow-test-5"));
+
+        assertTrue(mixed.contains("overflow-extra-2"));
+        assertFalse(mixed.contains("overflow-extra-3"));
+        assertTrue(mixed.containsAll(parse("overflow-extra-1 a")));
+        assertFalse(mixed.containsAll(parse("overflow-extra-3 a")));
+        assertFalse(parse("a overflow-test-5").containsAll(mixed));
+
+        ScopeSet all = ScopeSet.of(registry, many);
+        assertEquals(ScopeSet.MAX_INTERNED, all.size());
+        assertTrue(all.containsAll(parse("overflow-test-0 overflow-test-4095")));
+    }
+}
@@ -57,7 +57,7 @@ public class MockCredentials {
         DEFAULT_SIGNING_KEY_PUBLIC = (RSAPublicKey) keyPair.getPublic();
 
         DEFAULT_ISSUER_BUNDLE = IssuerBundle.with(
-                new RandomCodeAuthorizationAuthority(new SimpleMemoryDataStore(true)),
+                new RandomCodeAuthorizationAuthority(new SimpleMemoryDataStore<>(true)),
                 new Rfc9068JwtAccessTokenIssuer(DEFAULT_ISSUER_URI, DEFAULT_KEY_ID, DEFAULT_SIGNING_KEY_PRIVATE));
     }
 